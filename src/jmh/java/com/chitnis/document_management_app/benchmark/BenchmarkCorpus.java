@@ -0,0 +1,96 @@
+package com.chitnis.document_management_app.benchmark;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Text corpus shared by the benchmarks, extracted from the PDFs in {@code uploads/}.
+ *
+ * Files are read in name order and the text is capped, so every run sees the same input.
+ * Point {@code -Dbenchmark.corpus.dir} elsewhere to use another set of PDFs; if none can be
+ * read, a seeded generator produces prose-like text instead.
+ */
+final class BenchmarkCorpus {
+
+	static final int MAX_CHARS = 2_000_000;
+	static final int EMBEDDING_DIMENSION = 1024;
+
+	private static String text;
+
+	private BenchmarkCorpus() {
+	}
+
+	static synchronized String text() {
+		if (text == null) {
+			String extracted = extract(Paths.get(System.getProperty("benchmark.corpus.dir", "uploads")));
+			text = extracted.isBlank() ? generate() : extracted;
+		}
+		return text;
+	}
+
+	/**
+	 * Seeded random unit vector, standing in for an embedding.
+	 */
+	static float[] randomUnitVector(Random random, int dimension) {
+		float[] vector = new float[dimension];
+		double norm = 0;
+		for (int i = 0; i < dimension; i++) {
+			vector[i] = (float) random.nextGaussian();
+			norm += vector[i] * vector[i];
+		}
+		float scale = (float) (1 / Math.sqrt(norm));
+		for (int i = 0; i < dimension; i++) {
+			vector[i] *= scale;
+		}
+		return vector;
+	}
+
+	private static String extract(Path dir) {
+		StringBuilder out = new StringBuilder();
+		if (!Files.isDirectory(dir)) {
+			return "";
+		}
+		List<Path> pdfs;
+		try (Stream<Path> files = Files.list(dir)) {
+			pdfs = files.filter(file -> file.getFileName().toString().toLowerCase().endsWith(".pdf")).sorted().toList();
+		} catch (IOException ex) {
+			return "";
+		}
+		for (Path pdf : pdfs) {
+			if (out.length() >= MAX_CHARS) {
+				break;
+			}
+			try (PDDocument document = Loader.loadPDF(pdf.toFile())) {
+				out.append(new PDFTextStripper().getText(document)).append('\n');
+			} catch (IOException ex) {
+				// Unreadable or encrypted uploads are skipped
+			}
+		}
+		return out.length() > MAX_CHARS ? out.substring(0, MAX_CHARS) : out.toString();
+	}
+
+	private static String generate() {
+		String[] words = {"the", "policy", "applies", "to", "all", "employees", "and", "contractors", "who",
+				"process", "customer", "data", "within", "thirty", "days", "of", "the", "request", "refund",
+				"invoice", "agreement", "section", "terms", "payment", "notice", "period", "renewal"};
+		Random random = new Random(11);
+		StringBuilder out = new StringBuilder(MAX_CHARS);
+		while (out.length() < MAX_CHARS) {
+			int sentence = 6 + random.nextInt(20);
+			for (int i = 0; i < sentence; i++) {
+				out.append(i == 0 ? "" : " ").append(words[random.nextInt(words.length)]);
+			}
+			out.append(random.nextInt(8) == 0 ? ".\n\n" : ". ");
+		}
+		return out.toString();
+	}
+}
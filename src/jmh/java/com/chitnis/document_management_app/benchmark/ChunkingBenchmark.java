@@ -0,0 +1,60 @@
+package com.chitnis.document_management_app.benchmark;
+
+import com.chitnis.document_management_app.util.TextChunker;
+import com.chitnis.document_management_app.util.VectorUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunking the extracted corpus, both as one string and streamed page-sized pieces at a time
+ * the way ingestion feeds the chunker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChunkingBenchmark {
+
+	private static final int PAGE_CHARS = 3000;
+
+	@Param({"800"})
+	int chunkSize;
+
+	private String text;
+
+	@Setup
+	public void setUp() {
+		text = BenchmarkCorpus.text();
+	}
+
+	@Benchmark
+	public List<String> splitIntoChunks() {
+		return VectorUtils.splitIntoChunks(text, chunkSize);
+	}
+
+	@Benchmark
+	public int streamedChunker() {
+		int[] chunks = {0};
+		TextChunker chunker = new TextChunker(chunkSize, chunk -> chunks[0]++);
+		for (int start = 0; start < text.length(); start += PAGE_CHARS) {
+			chunker.write(text, start, Math.min(PAGE_CHARS, text.length() - start));
+		}
+		chunker.close();
+		return chunks[0];
+	}
+}
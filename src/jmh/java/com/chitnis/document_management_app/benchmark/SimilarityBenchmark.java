@@ -0,0 +1,122 @@
+package com.chitnis.document_management_app.benchmark;
+
+import com.chitnis.document_management_app.util.SimilarityKernel;
+import com.chitnis.document_management_app.util.SimilarityKernels;
+import com.chitnis.document_management_app.util.VectorUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the boxed {@code List<Double>} cosine the Q&A path used to run per chunk with the
+ * primitive kernels, for a single pair and for one query against a document's worth of rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SimilarityBenchmark {
+
+	@Param({"768"})
+	int dimension;
+
+	@Param({"1000"})
+	int rows;
+
+	private List<Double> boxedQuery;
+	private List<List<Double>> boxedRows;
+	private float[] query;
+	private float[] matrix;
+	private float[] firstRow;
+	private float[] scores;
+	private SimilarityKernel scalar;
+	private SimilarityKernel vectorized;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(7);
+		query = SimilarityKernels.normalize(randomVector(random));
+		matrix = new float[rows * dimension];
+		boxedRows = new ArrayList<>(rows);
+		for (int row = 0; row < rows; row++) {
+			float[] vector = SimilarityKernels.normalize(randomVector(random));
+			System.arraycopy(vector, 0, matrix, row * dimension, dimension);
+			boxedRows.add(box(vector));
+		}
+		boxedQuery = box(query);
+		firstRow = Arrays.copyOf(matrix, dimension);
+		scores = new float[rows];
+		scalar = SimilarityKernels.scalar();
+		vectorized = SimilarityKernels.vectorized() != null ? SimilarityKernels.vectorized() : scalar;
+	}
+
+	@Benchmark
+	public double pairBoxedCosine() {
+		return VectorUtils.cosineSimilarity(boxedQuery, boxedRows.get(0));
+	}
+
+	@Benchmark
+	public double pairCosineSimilarity() {
+		return VectorUtils.cosineSimilarity(query, firstRow);
+	}
+
+	@Benchmark
+	public float pairScalarDot() {
+		return scalar.dot(query, 0, matrix, 0, dimension);
+	}
+
+	@Benchmark
+	public float pairVectorDot() {
+		return vectorized.dot(query, 0, matrix, 0, dimension);
+	}
+
+	@Benchmark
+	public double batchBoxedCosine() {
+		double best = -1;
+		for (List<Double> row : boxedRows) {
+			best = Math.max(best, VectorUtils.cosineSimilarity(boxedQuery, row));
+		}
+		return best;
+	}
+
+	@Benchmark
+	public float[] batchScalar() {
+		scalar.dotBatch(query, matrix, 0, rows, dimension, scores);
+		return scores;
+	}
+
+	@Benchmark
+	public float[] batchVector() {
+		vectorized.dotBatch(query, matrix, 0, rows, dimension, scores);
+		return scores;
+	}
+
+	private float[] randomVector(Random random) {
+		float[] vector = new float[dimension];
+		for (int i = 0; i < dimension; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return vector;
+	}
+
+	private static List<Double> box(float[] vector) {
+		List<Double> boxed = new ArrayList<>(vector.length);
+		for (float value : vector) {
+			boxed.add((double) value);
+		}
+		return boxed;
+	}
+}
@@ -0,0 +1,59 @@
+package com.chitnis.document_management_app.benchmark;
+
+import com.chitnis.document_management_app.service.DocumentVectorIndex;
+import com.chitnis.document_management_app.util.VectorUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The top-k chunk selection {@code DocumentQaService} runs through {@link DocumentVectorIndex},
+ * with one row per chunk of the corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SimilaritySearchBenchmark {
+
+	@Param({"5", "12"})
+	int k;
+
+	private DocumentVectorIndex index;
+	private float[] query;
+
+	@Setup
+	public void setUp() {
+		int dimension = BenchmarkCorpus.EMBEDDING_DIMENSION;
+		int rows = VectorUtils.splitIntoChunks(BenchmarkCorpus.text(), 800).size();
+		Random random = new Random(9);
+		long[] ids = new long[rows];
+		float[] matrix = new float[rows * dimension];
+		for (int i = 0; i < rows; i++) {
+			ids[i] = i;
+			System.arraycopy(BenchmarkCorpus.randomUnitVector(random, dimension), 0, matrix, i * dimension, dimension);
+		}
+		index = new DocumentVectorIndex(ids, matrix, dimension);
+		query = BenchmarkCorpus.randomUnitVector(random, dimension);
+	}
+
+	@Benchmark
+	public List<DocumentVectorIndex.Match> topK() {
+		return index.search(query, k);
+	}
+}
@@ -0,0 +1,72 @@
+package com.chitnis.document_management_app.benchmark;
+
+import com.chitnis.document_management_app.util.SearchTokenizer;
+import com.chitnis.document_management_app.util.SnippetBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snippet building for a search hit in the middle of the corpus.
+ *
+ * {@code windowed} is what {@code DocumentService.buildSnippet} does: normalize only a window
+ * around the known match offset. {@code wholeText} is the approach still used by the Q&A
+ * fallback, which normalizes and lower-cases the full text to find the first match.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SnippetBenchmark {
+
+	private String text;
+	private String term;
+	private int matchOffset;
+
+	@Setup
+	public void setUp() {
+		text = BenchmarkCorpus.text();
+		// First longer term after the middle of the corpus
+		int middle = text.length() / 2;
+		int[] found = {-1};
+		String[] foundTerm = {text.substring(0, Math.min(6, text.length())).toLowerCase()};
+		SearchTokenizer.tokenize(text.substring(middle), (token, offset) -> {
+			if (found[0] < 0 && token.length() >= 6) {
+				found[0] = middle + offset;
+				foundTerm[0] = token;
+			}
+		});
+		matchOffset = Math.max(found[0], 0);
+		term = foundTerm[0];
+	}
+
+	@Benchmark
+	public String windowed() {
+		int radius = SnippetBuilder.DEFAULT_RADIUS;
+		int start = Math.max(0, matchOffset - radius * 2);
+		int end = Math.min(text.length(), matchOffset + term.length() + radius * 2);
+		return SnippetBuilder.around(text.substring(start, end), matchOffset - start, term.length(), radius,
+				start > 0, end < text.length());
+	}
+
+	@Benchmark
+	public String wholeText() {
+		String normalized = text.replaceAll("\\s+", " ");
+		int match = Math.max(normalized.toLowerCase().indexOf(term), 0);
+		int start = Math.max(0, match - 120);
+		int end = Math.min(normalized.length(), match + 120);
+		return normalized.substring(start, end);
+	}
+}
@@ -0,0 +1,67 @@
+package com.chitnis.document_management_app.benchmark;
+
+import com.chitnis.document_management_app.util.VectorCodec;
+import com.chitnis.document_management_app.util.VectorUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The legacy JSON vector format next to the binary codec that replaced it in storage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VectorCodecBenchmark {
+
+	private List<Double> vector;
+	private String json;
+	private byte[] encoded;
+
+	@Setup
+	public void setUp() {
+		float[] values = BenchmarkCorpus.randomUnitVector(new Random(3), BenchmarkCorpus.EMBEDDING_DIMENSION);
+		vector = new ArrayList<>(values.length);
+		for (float value : values) {
+			vector.add((double) value);
+		}
+		json = VectorUtils.vectorToJson(vector);
+		encoded = VectorCodec.encode(values);
+	}
+
+	@Benchmark
+	public String vectorToJson() {
+		return VectorUtils.vectorToJson(vector);
+	}
+
+	@Benchmark
+	public List<Double> parseJsonToVector() {
+		return VectorUtils.parseJsonToVector(json);
+	}
+
+	@Benchmark
+	public byte[] encodeBinary() {
+		return VectorCodec.encode(vector);
+	}
+
+	@Benchmark
+	public float[] decodeBinary() {
+		return VectorCodec.decode(encoded);
+	}
+}
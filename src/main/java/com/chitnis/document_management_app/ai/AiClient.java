@@ -1,9 +1,15 @@
 package com.chitnis.document_management_app.ai;
 
+import com.chitnis.document_management_app.util.TokenEstimator;
+
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClientException;
@@ -13,27 +19,66 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import jakarta.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Component
 public class AiClient {
 
     private static final Logger log = LoggerFactory.getLogger(AiClient.class);
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private static final String SUMMARY_SYSTEM_PROMPT = "You are a helpful assistant that summarizes documents.";
+    private static final String QA_SYSTEM_PROMPT = "You are a careful analyst that answers strictly from the provided document.";
+    private static final String MULTI_QA_SYSTEM_PROMPT = "You are a careful analyst that answers strictly from the provided documents and can compare and synthesize information across them.";
+    private static final String QA_UNAVAILABLE = "AI Q&A is currently unavailable. Please configure the Groq API key to enable this feature. Get a free key at: https://console.groq.com";
+    private static final String AI_TEMPORARILY_UNAVAILABLE = "AI temporarily unavailable. Unable to answer the question.";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String QUESTION_PROMPT_HEADER = """
+            You are given a document and a question.
+            * Answer exclusively with facts stated in the document.
+            * Quote or reference the specific detail that supports the answer.
+            * If the document does not contain the information, reply exactly with: "The document does not mention this."
+
+            Document:
+            """;
+    private static final String QUESTION_PROMPT_FOOTER = "Provide a concise answer plus a short supporting quote.\n";
+    private static final String MULTI_QUESTION_PROMPT_HEADER = """
+            You are given multiple documents and a question.
+            * Answer exclusively with facts stated in the documents.
+            * Compare and synthesize information from all provided documents.
+            * Quote or reference specific details from the documents that support the answer.
+            * If comparing, clearly mention which document contains which information.
+            * If the documents do not contain the information, reply exactly with: "The documents do not mention this."
+
+            Documents:
+            """;
+    private static final String MULTI_QUESTION_PROMPT_FOOTER = "Provide a concise answer that synthesizes information from all relevant documents, with supporting quotes.\n";
+
+    private final RestTemplate restTemplate;
     private final String apiKey;
     private final String baseUrl;
     private final String model;
+    private final TokenEstimator tokenEstimator;
 
     public AiClient(
+            @Qualifier("groqRestTemplate") RestTemplate restTemplate,
             @Value("${groq.api.key:}") String apiKey,
             @Value("${groq.api.base-url:https://api.groq.com/openai/v1}") String baseUrl,
             @Value("${groq.api.model:llama-3.1-8b-instant}") String model
     ) {
+        this.restTemplate = restTemplate;
         this.apiKey = apiKey;
         this.baseUrl = baseUrl;
         this.model = model;
+        this.tokenEstimator = TokenEstimator.forModel(model);
     }
 
     @PostConstruct
@@ -47,26 +92,32 @@ public class AiClient {
         }
     }
 
-    public String summarize(String text) {
-        String truncated = text.length() > 4000 ? text.substring(0, 4000) : text;
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * Token counts for the configured model, for callers packing prompt context into a budget.
+     */
+    public TokenEstimator getTokenEstimator() {
+        return tokenEstimator;
+    }
 
+    /**
+     * Summarize a whole text in 10 bullet points. The text is sent as is; long documents go
+     * through {@code HierarchicalSummarizer}, which keeps each call within budget.
+     */
+    public String summarize(String text) {
         if (apiKey == null || apiKey.isBlank()) {
             log.warn("⚠️  Groq API key not configured. Using fallback summary.");
-            return fallbackSummary(truncated);
+            return fallbackSummary(text);
         }
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setBearerAuth(apiKey);
 
-        Map<String, Object> body = Map.of(
-                "model", model,
-                "temperature", 0.3,
-                "messages", List.of(
-                        Map.of("role", "system", "content", "You are a helpful assistant that summarizes documents."),
-                        Map.of("role", "user", "content", "Summarize the following document in 10 concise bullet points:\n\n" + truncated)
-                )
-        );
+        Map<String, Object> body = chatBody(0.3, SUMMARY_SYSTEM_PROMPT, summaryPrompt(text), false);
 
         HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
         ChatCompletionResponse response;
@@ -84,62 +135,44 @@ public class AiClient {
                 log.error("   1. Your API key is valid and not expired");
                 log.error("   2. Your Groq account has billing enabled");
                 log.error("   3. You haven't exceeded your quota");
-                return fallbackSummary(truncated);
+                return fallbackSummary(text);
             }
             throw new IllegalStateException(message, ex);
         } catch (RestClientException ex) {
             log.error("❌ Failed to connect to Groq API: {} - {}", ex.getClass().getSimpleName(), ex.getMessage());
             log.error("   Full error: ", ex);
-            return fallbackSummary(truncated);
+            return fallbackSummary(text);
         }
 
         if (response == null || response.choices == null || response.choices.isEmpty()
                 || response.choices.get(0).message == null
                 || response.choices.get(0).message.content == null) {
             log.warn("Empty AI response received, using fallback summary.");
-            return fallbackSummary(truncated);
+            return fallbackSummary(text);
         }
 
         return response.choices.get(0).message.content;
     }
 
-    public String answerQuestion(String text, String question) {
+    /**
+     * Answer a question from one document's passages. The caller packs the context within its
+     * token budget, so it is sent as is.
+     */
+    public String answerQuestion(CharSequence text, String question) {
         if (question == null || question.isBlank()) {
             throw new IllegalArgumentException("Question must not be empty.");
         }
 
         if (apiKey == null || apiKey.isBlank()) {
             log.warn("⚠️  Groq API key not configured. AI Q&A unavailable.");
-            return "AI Q&A is currently unavailable. Please configure the Groq API key to enable this feature. Get a free key at: https://console.groq.com";
+            return QA_UNAVAILABLE;
         }
 
-        String truncated = text.length() > 6000 ? text.substring(0, 6000) : text;
-
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setBearerAuth(apiKey);
 
-        String userPrompt = """
-                You are given a document and a question.
-                * Answer exclusively with facts stated in the document.
-                * Quote or reference the specific detail that supports the answer.
-                * If the document does not contain the information, reply exactly with: "The document does not mention this."
-
-                Document:
-                %s
-
-                Question: %s
-                Provide a concise answer plus a short supporting quote.
-                """.formatted(truncated, question);
-
-        Map<String, Object> body = Map.of(
-                "model", model,
-                "temperature", 0.1,
-                "messages", List.of(
-                        Map.of("role", "system", "content", "You are a careful analyst that answers strictly from the provided document."),
-                        Map.of("role", "user", "content", userPrompt)
-                )
-        );
+        Map<String, Object> body = chatBody(0.1, QA_SYSTEM_PROMPT, questionPrompt(text, question), false);
 
         HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
         ChatCompletionResponse response;
@@ -157,13 +190,13 @@ public class AiClient {
                 log.error("   1. Your API key is valid and not expired");
                 log.error("   2. Your Groq account has billing enabled");
                 log.error("   3. You haven't exceeded your quota");
-                return "AI temporarily unavailable. Unable to answer the question.";
+                return AI_TEMPORARILY_UNAVAILABLE;
             }
             throw new IllegalStateException(message, ex);
         } catch (RestClientException ex) {
             log.error("❌ Failed to connect to Groq API: {} - {}", ex.getClass().getSimpleName(), ex.getMessage());
             log.error("   Full error: ", ex);
-            return "AI temporarily unavailable. Unable to answer the question.";
+            return AI_TEMPORARILY_UNAVAILABLE;
         }
 
         if (response == null || response.choices == null || response.choices.isEmpty()
@@ -176,53 +209,29 @@ public class AiClient {
         return response.choices.get(0).message.content.trim();
     }
 
-    public String answerQuestionMulti(List<String> documentTexts, String question) {
+    /**
+     * Answer a question from passages of several documents. The caller builds the context
+     * within its token budget, so it is sent as is.
+     */
+    public String answerQuestionMulti(CharSequence context, String question) {
         if (question == null || question.isBlank()) {
             throw new IllegalArgumentException("Question must not be empty.");
         }
 
-        if (documentTexts == null || documentTexts.isEmpty()) {
-            throw new IllegalArgumentException("At least one document text must be provided.");
+        if (isBlank(context)) {
+            throw new IllegalArgumentException("Document context must not be empty.");
         }
 
         if (apiKey == null || apiKey.isBlank()) {
             log.warn("⚠️  Groq API key not configured. AI Q&A unavailable.");
-            return "AI Q&A is currently unavailable. Please configure the Groq API key to enable this feature. Get a free key at: https://console.groq.com";
+            return QA_UNAVAILABLE;
         }
 
-        // Combine all document texts with separators
-        String combinedContext = String.join("\n\n---DOCUMENT SEPARATOR---\n\n", documentTexts);
-
-        // Truncate to fit model context
-        String truncated = combinedContext.length() > 10000 ? combinedContext.substring(0, 10000) : combinedContext;
-
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setBearerAuth(apiKey);
 
-        String userPrompt = """
-                You are given multiple documents and a question.
-                * Answer exclusively with facts stated in the documents.
-                * Compare and synthesize information from all provided documents.
-                * Quote or reference specific details from the documents that support the answer.
-                * If comparing, clearly mention which document contains which information.
-                * If the documents do not contain the information, reply exactly with: "The documents do not mention this."
-
-                Documents:
-                %s
-
-                Question: %s
-                Provide a concise answer that synthesizes information from all relevant documents, with supporting quotes.
-                """.formatted(truncated, question);
-
-        Map<String, Object> body = Map.of(
-                "model", model,
-                "temperature", 0.1,
-                "messages", List.of(
-                        Map.of("role", "system", "content", "You are a careful analyst that answers strictly from the provided documents and can compare and synthesize information across them."),
-                        Map.of("role", "user", "content", userPrompt)
-                )
-        );
+        Map<String, Object> body = chatBody(0.1, MULTI_QA_SYSTEM_PROMPT, multiQuestionPrompt(context, question), false);
 
         HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
         ChatCompletionResponse response;
@@ -240,13 +249,13 @@ public class AiClient {
                 log.error("   1. Your API key is valid and not expired");
                 log.error("   2. Your Groq account has billing enabled");
                 log.error("   3. You haven't exceeded your quota");
-                return "AI temporarily unavailable. Unable to answer the question.";
+                return AI_TEMPORARILY_UNAVAILABLE;
             }
             throw new IllegalStateException(message, ex);
         } catch (RestClientException ex) {
             log.error("❌ Failed to connect to Groq API: {} - {}", ex.getClass().getSimpleName(), ex.getMessage());
             log.error("   Full error: ", ex);
-            return "AI temporarily unavailable. Unable to answer the question.";
+            return AI_TEMPORARILY_UNAVAILABLE;
         }
 
         if (response == null || response.choices == null || response.choices.isEmpty()
@@ -259,6 +268,285 @@ public class AiClient {
         return response.choices.get(0).message.content.trim();
     }
 
+    /**
+     * Streaming variant of {@link #summarize}: each generated token is handed to {@code onToken}
+     * as soon as it arrives. Fallback text, when the provider is unavailable, is handed over in
+     * one piece.
+     *
+     * @return The complete summary
+     */
+    public String streamSummary(String text, Consumer<String> onToken) {
+        if (apiKey == null || apiKey.isBlank()) {
+            log.warn("⚠️  Groq API key not configured. Using fallback summary.");
+            return emit(fallbackSummary(text), onToken);
+        }
+
+        Map<String, Object> body = chatBody(0.3, SUMMARY_SYSTEM_PROMPT, summaryPrompt(text), true);
+        return streamCompletion(body, onToken, () -> fallbackSummary(text));
+    }
+
+    /**
+     * Map step of map-reduce summarization: condense one section of a longer document.
+     *
+     * @return The section summary, or {@code null} if the provider is unavailable
+     */
+    public String summarizeSection(String section) {
+        if (apiKey == null || apiKey.isBlank()) {
+            return null;
+        }
+        return completeOrNull(chatBody(0.2, SUMMARY_SYSTEM_PROMPT, sectionPrompt(section), false));
+    }
+
+    /**
+     * Reduce step of map-reduce summarization: merge summaries of consecutive sections into
+     * one shorter summary that can be merged again.
+     *
+     * @return The merged summary, or {@code null} if the provider is unavailable
+     */
+    public String combineSummaries(List<String> summaries) {
+        if (apiKey == null || apiKey.isBlank()) {
+            return null;
+        }
+        return completeOrNull(chatBody(0.2, SUMMARY_SYSTEM_PROMPT, combinePrompt(summaries), false));
+    }
+
+    /**
+     * Streaming variant of {@link #answerQuestion}.
+     *
+     * @return The complete answer
+     */
+    public String streamAnswer(CharSequence text, String question, Consumer<String> onToken) {
+        if (question == null || question.isBlank()) {
+            throw new IllegalArgumentException("Question must not be empty.");
+        }
+
+        if (apiKey == null || apiKey.isBlank()) {
+            log.warn("⚠️  Groq API key not configured. AI Q&A unavailable.");
+            return emit(QA_UNAVAILABLE, onToken);
+        }
+
+        Map<String, Object> body = chatBody(0.1, QA_SYSTEM_PROMPT, questionPrompt(text, question), true);
+        return streamCompletion(body, onToken, () -> AI_TEMPORARILY_UNAVAILABLE).trim();
+    }
+
+    /**
+     * Streaming variant of {@link #answerQuestionMulti}.
+     *
+     * @return The complete answer
+     */
+    public String streamAnswerMulti(CharSequence context, String question, Consumer<String> onToken) {
+        if (question == null || question.isBlank()) {
+            throw new IllegalArgumentException("Question must not be empty.");
+        }
+
+        if (isBlank(context)) {
+            throw new IllegalArgumentException("Document context must not be empty.");
+        }
+
+        if (apiKey == null || apiKey.isBlank()) {
+            log.warn("⚠️  Groq API key not configured. AI Q&A unavailable.");
+            return emit(QA_UNAVAILABLE, onToken);
+        }
+
+        Map<String, Object> body = chatBody(0.1, MULTI_QA_SYSTEM_PROMPT, multiQuestionPrompt(context, question), true);
+        return streamCompletion(body, onToken, () -> AI_TEMPORARILY_UNAVAILABLE).trim();
+    }
+
+    /**
+     * Blocking completion for intermediate results that are cached, so fallback text must
+     * never stand in for them.
+     */
+    private String completeOrNull(Map<String, Object> body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(apiKey);
+
+        ChatCompletionResponse response;
+        try {
+            response = restTemplate.postForObject(
+                    baseUrl + "/chat/completions",
+                    new HttpEntity<>(body, headers),
+                    ChatCompletionResponse.class
+            );
+        } catch (RestClientResponseException ex) {
+            int status = ex.getStatusCode().value();
+            log.error("❌ Groq API call failed with status {}: {}", status, ex.getResponseBodyAsString());
+            if (status == 401 || status == 403 || status == 429) {
+                return null;
+            }
+            throw new IllegalStateException("AI provider error (" + status + "): " + ex.getResponseBodyAsString(), ex);
+        } catch (RestClientException ex) {
+            log.error("❌ Failed to connect to Groq API: {} - {}", ex.getClass().getSimpleName(), ex.getMessage());
+            return null;
+        }
+
+        if (response == null || response.choices == null || response.choices.isEmpty()
+                || response.choices.get(0).message == null
+                || response.choices.get(0).message.content == null
+                || response.choices.get(0).message.content.isBlank()) {
+            return null;
+        }
+        return response.choices.get(0).message.content.trim();
+    }
+
+    /**
+     * Post a completion request with {@code stream: true} and read the server-sent events as
+     * they arrive, so no token waits for the rest of the completion. Errors before the first
+     * token fall back like the blocking calls do; a stream that breaks off halfway throws,
+     * since its text is incomplete.
+     */
+    private String streamCompletion(Map<String, Object> body, Consumer<String> onToken, Supplier<String> fallback) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+        headers.setBearerAuth(apiKey);
+
+        StringBuilder text = new StringBuilder();
+        try {
+            restTemplate.execute(
+                    baseUrl + "/chat/completions",
+                    HttpMethod.POST,
+                    restTemplate.httpEntityCallback(new HttpEntity<>(body, headers)),
+                    response -> readEventStream(response.getBody(), token -> {
+                        text.append(token);
+                        onToken.accept(token);
+                    })
+            );
+        } catch (RestClientResponseException ex) {
+            int status = ex.getStatusCode().value();
+            String message = "AI provider error (" + status + "): " + ex.getResponseBodyAsString();
+            log.error("❌ Groq API call failed with status {}: {}", status, ex.getResponseBodyAsString());
+            if (status == 401 || status == 403 || status == 429) {
+                log.error("❌ Authentication/Quota issue detected. Please check:");
+                log.error("   1. Your API key is valid and not expired");
+                log.error("   2. Your Groq account has billing enabled");
+                log.error("   3. You haven't exceeded your quota");
+                return emit(fallback.get(), onToken);
+            }
+            throw new IllegalStateException(message, ex);
+        } catch (RestClientException ex) {
+            if (!text.isEmpty()) {
+                throw new IllegalStateException("AI response stream was interrupted", ex);
+            }
+            log.error("❌ Failed to connect to Groq API: {} - {}", ex.getClass().getSimpleName(), ex.getMessage());
+            log.error("   Full error: ", ex);
+            return emit(fallback.get(), onToken);
+        }
+
+        if (text.isEmpty()) {
+            log.warn("Empty AI response stream received.");
+            return emit(fallback.get(), onToken);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Read OpenAI-compatible chat completion chunks ({@code data: {...}} lines, ending with
+     * {@code data: [DONE]}) and pass on each non-empty content delta.
+     */
+    static Void readEventStream(InputStream body, Consumer<String> onToken) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            String data = line.substring(5).trim();
+            if (data.equals("[DONE]")) {
+                break;
+            }
+            if (data.isEmpty()) {
+                continue;
+            }
+            JsonNode chunk = OBJECT_MAPPER.readTree(data);
+            if (chunk.hasNonNull("error")) {
+                throw new IllegalStateException("AI provider error: " + chunk.get("error").path("message").asText(chunk.get("error").toString()));
+            }
+            JsonNode content = chunk.path("choices").path(0).path("delta").path("content");
+            if (content.isTextual() && !content.asText().isEmpty()) {
+                onToken.accept(content.asText());
+            }
+        }
+        return null;
+    }
+
+    private static String emit(String text, Consumer<String> onToken) {
+        onToken.accept(text);
+        return text;
+    }
+
+    private Map<String, Object> chatBody(double temperature, String systemPrompt, String userPrompt, boolean stream) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("model", model);
+        body.put("temperature", temperature);
+        body.put("messages", List.of(
+                Map.of("role", "system", "content", systemPrompt),
+                Map.of("role", "user", "content", userPrompt)
+        ));
+        if (stream) {
+            body.put("stream", true);
+        }
+        return body;
+    }
+
+    private static String summaryPrompt(String text) {
+        return "Summarize the following document in 10 concise bullet points:\n\n" + text;
+    }
+
+    private static String sectionPrompt(String section) {
+        return """
+                The following is one section of a longer document.
+                Summarize it in concise bullet points, keeping names, figures, dates and conclusions.
+                Do not add an introduction or refer to "this section".
+
+                Section:
+                %s
+                """.formatted(section);
+    }
+
+    private static String combinePrompt(List<String> summaries) {
+        return """
+                The following are summaries of consecutive sections of one document, in order.
+                Merge them into a single summary in concise bullet points, keeping the most important
+                names, figures, dates and conclusions and dropping repetition.
+
+                %s
+                """.formatted(String.join("\n\n---\n\n", summaries));
+    }
+
+    private static String questionPrompt(CharSequence text, String question) {
+        return questionPrompt(QUESTION_PROMPT_HEADER, text, question, QUESTION_PROMPT_FOOTER);
+    }
+
+    private static String multiQuestionPrompt(CharSequence context, String question) {
+        return questionPrompt(MULTI_QUESTION_PROMPT_HEADER, context, question, MULTI_QUESTION_PROMPT_FOOTER);
+    }
+
+    /**
+     * Assemble a prompt in one presized builder, so the context is copied once rather than
+     * through formatting and concatenation.
+     */
+    private static String questionPrompt(String header, CharSequence context, String question, String footer) {
+        StringBuilder prompt = new StringBuilder(header.length() + context.length() + question.length() + footer.length() + 16);
+        return prompt.append(header)
+                .append(context)
+                .append("\n\nQuestion: ").append(question).append('\n')
+                .append(footer)
+                .toString();
+    }
+
+    private static boolean isBlank(CharSequence text) {
+        if (text == null) {
+            return true;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private String fallbackSummary(String text) {
         String[] paragraphs = text.split("\\r?\\n");
         StringBuilder builder = new StringBuilder("Fallback summary (AI unavailable):\n");
@@ -0,0 +1,59 @@
+package com.chitnis.document_management_app.config;
+
+import com.chitnis.document_management_app.service.BlobStore;
+import com.chitnis.document_management_app.service.LocalBlobStore;
+import com.chitnis.document_management_app.service.S3BlobStore;
+import com.chitnis.document_management_app.util.SigV4Signer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+
+@Configuration
+public class BlobStoreConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobStoreConfig.class);
+
+    /**
+     * Where uploaded files live. {@code app.storage.type=local} keeps them under
+     * {@code app.upload-dir}; {@code s3} keeps them in an S3-compatible bucket that several
+     * app nodes can share.
+     */
+    @Bean
+    public BlobStore blobStore(@Value("${app.storage.type:local}") String type,
+                               @Value("${app.upload-dir}") String uploadDir,
+                               @Value("${app.storage.s3.endpoint:}") String endpoint,
+                               @Value("${app.storage.s3.region:us-east-1}") String region,
+                               @Value("${app.storage.s3.bucket:}") String bucket,
+                               @Value("${app.storage.s3.prefix:}") String prefix,
+                               @Value("${app.storage.s3.access-key:}") String accessKey,
+                               @Value("${app.storage.s3.secret-key:}") String secretKey,
+                               @Value("${app.storage.s3.cache-dir:${java.io.tmpdir}/document-blob-cache}") String cacheDir,
+                               @Value("${app.storage.s3.cache-max-bytes:10737418240}") long cacheMaxBytes,
+                               @Value("${app.storage.s3.timeout:PT60S}") Duration timeout) {
+        if (!"s3".equals(type.toLowerCase(Locale.ROOT))) {
+            log.info("Storing uploads under {}", Paths.get(uploadDir).toAbsolutePath());
+            return new LocalBlobStore(uploadDir);
+        }
+        if (endpoint.isBlank() || bucket.isBlank()) {
+            throw new IllegalStateException("app.storage.s3.endpoint and app.storage.s3.bucket must be set for S3 storage");
+        }
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        log.info("Storing uploads in bucket {} at {}", bucket, endpoint);
+        return new S3BlobStore(httpClient, URI.create(endpoint), bucket, prefix,
+                new SigV4Signer(accessKey, secretKey, region, "s3"), Paths.get(cacheDir), cacheMaxBytes, timeout, Clock.systemUTC());
+    }
+}
@@ -0,0 +1,68 @@
+package com.chitnis.document_management_app.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Outbound HTTP for the AI providers.
+ *
+ * One JDK {@link HttpClient} is shared by all providers: it keeps connections alive and reuses
+ * them across requests, and negotiates HTTP/2 over TLS where the server supports it. Each
+ * provider gets its own {@link RestTemplate} with a read timeout and a concurrency limit, so
+ * a slow or hung provider cannot hold request threads indefinitely. Templates come from
+ * Spring Boot's {@link RestTemplateBuilder}, which also records {@code http.client.requests}.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public HttpClient outboundHttpClient(@Value("${app.http.connect-timeout:PT5S}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate groqRestTemplate(RestTemplateBuilder builder,
+                                         HttpClient outboundHttpClient,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${groq.api.read-timeout:PT60S}") Duration readTimeout,
+                                         @Value("${groq.api.max-concurrent-requests:16}") int maxConcurrent,
+                                         @Value("${app.http.max-wait:PT10S}") Duration maxWait) {
+        return providerTemplate(builder, outboundHttpClient, readTimeout,
+                new ProviderConcurrencyLimiter("groq", maxConcurrent, maxWait, meterRegistry));
+    }
+
+    @Bean
+    public RestTemplate jinaRestTemplate(RestTemplateBuilder builder,
+                                         HttpClient outboundHttpClient,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${jina.api.read-timeout:PT30S}") Duration readTimeout,
+                                         @Value("${jina.api.max-concurrent-requests:8}") int maxConcurrent,
+                                         @Value("${app.http.max-wait:PT10S}") Duration maxWait) {
+        return providerTemplate(builder, outboundHttpClient, readTimeout,
+                new ProviderConcurrencyLimiter("jina", maxConcurrent, maxWait, meterRegistry));
+    }
+
+    private static RestTemplate providerTemplate(RestTemplateBuilder builder, HttpClient httpClient,
+                                                 Duration readTimeout, ProviderConcurrencyLimiter limiter) {
+        return builder
+                .requestFactory(() -> {
+                    JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+                    factory.setReadTimeout(readTimeout);
+                    return factory;
+                })
+                .additionalInterceptors(limiter)
+                .build();
+    }
+}
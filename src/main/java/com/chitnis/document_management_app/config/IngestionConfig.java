@@ -0,0 +1,56 @@
+package com.chitnis.document_management_app.config;
+
+import com.chitnis.document_management_app.service.PdfTextExtractor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class IngestionConfig {
+
+    /**
+     * Bounded worker pool for the extraction/chunking/embedding pipeline. When the queue is
+     * full, submissions are rejected instead of piling up in memory. In virtual-thread mode
+     * each job gets a virtual thread and the worker count becomes a semaphore limit.
+     */
+    @Bean
+    public TaskExecutor ingestionExecutor(
+            Environment environment,
+            @Value("${app.ingestion.workers:2}") int workers,
+            @Value("${app.ingestion.queue-capacity:100}") int queueCapacity) {
+        if (VirtualThreads.enabled(environment)) {
+            return VirtualThreads.executor("ingestion-", workers, queueCapacity);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ingestion-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Shared pool for extracting page ranges of large PDFs in parallel. Sized to the configured
+     * extraction parallelism (all cores by default) so concurrent ingestions share the CPUs
+     * instead of multiplying threads. Callers bound their own in-flight work, so the queue is not capped.
+     * Parsing is CPU-bound, so this pool stays on platform threads in virtual-thread mode.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor extractionExecutor(
+            @Value("${app.extraction.parallelism:0}") int parallelism) {
+        int threads = PdfTextExtractor.resolveParallelism(parallelism);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("extraction-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,135 @@
+package com.chitnis.document_management_app.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of concurrent requests to one AI provider. A request that cannot get a
+ * slot within {@code maxWait} fails with a {@link ResourceAccessException}, like an
+ * unreachable provider: chat calls take their usual fallback, and the embedding client
+ * returns stand-in vectors, which make an ingestion batch fail and be retried.
+ *
+ * Publishes {@code http.client.provider.active}, {@code .limit}, {@code .wait} and
+ * {@code .rejected}, tagged with the provider name, so pool saturation is visible.
+ */
+public class ProviderConcurrencyLimiter implements ClientHttpRequestInterceptor {
+
+    private final String provider;
+    private final int limit;
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public ProviderConcurrencyLimiter(String provider, int limit, Duration maxWait, MeterRegistry meterRegistry) {
+        this.provider = provider;
+        this.limit = Math.max(1, limit);
+        this.permits = new Semaphore(this.limit, true);
+        this.maxWaitNanos = maxWait.toNanos();
+        Gauge.builder("http.client.provider.active", this, ProviderConcurrencyLimiter::active)
+                .description("Requests to the provider currently in flight")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        Gauge.builder("http.client.provider.limit", this, limiter -> limiter.limit)
+                .description("Maximum concurrent requests to the provider")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("http.client.provider.wait")
+                .description("Time spent waiting for a free slot to the provider")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("http.client.provider.rejected")
+                .description("Requests that gave up waiting for a free slot")
+                .tag("provider", provider)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for a connection to " + provider);
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejected.increment();
+            throw new ResourceAccessException("All " + limit + " connections to " + provider + " are busy");
+        }
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+        // Streamed bodies are read after this returns, so the slot is held until the response is closed
+        return new PermitReleasingResponse(response, permits);
+    }
+
+    int active() {
+        return limit - permits.availablePermits();
+    }
+
+    private static class PermitReleasingResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        PermitReleasingResponse(ClientHttpResponse delegate, Semaphore permits) {
+            this.delegate = delegate;
+            this.permits = permits;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        }
+    }
+}
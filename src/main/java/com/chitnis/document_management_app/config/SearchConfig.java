@@ -0,0 +1,48 @@
+package com.chitnis.document_management_app.config;
+
+import com.chitnis.document_management_app.repository.DocumentRepository;
+import com.chitnis.document_management_app.service.FullTextSearchIndex;
+import com.chitnis.document_management_app.service.InMemoryFullTextSearchIndex;
+import com.chitnis.document_management_app.service.PostgresFullTextSearchIndex;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Locale;
+
+@Configuration
+public class SearchConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchConfig.class);
+
+    /**
+     * Full-text engine for document search. {@code app.search.engine=auto} picks PostgreSQL
+     * {@code tsvector} search when running on PostgreSQL and the embedded index otherwise.
+     */
+    @Bean
+    public FullTextSearchIndex fullTextSearchIndex(
+            @Value("${app.search.engine:auto}") String engine,
+            JdbcTemplate jdbcTemplate,
+            DocumentRepository documentRepository) {
+        boolean postgres = switch (engine.toLowerCase(Locale.ROOT)) {
+            case "postgres" -> true;
+            case "memory" -> false;
+            default -> "PostgreSQL".equalsIgnoreCase(jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName()));
+        };
+
+        if (postgres) {
+            PostgresFullTextSearchIndex index = new PostgresFullTextSearchIndex(jdbcTemplate);
+            index.createSchema();
+            log.info("Using PostgreSQL full-text search");
+            return index;
+        }
+        log.info("Using embedded full-text search index");
+        return new InMemoryFullTextSearchIndex(documentRepository);
+    }
+}
@@ -0,0 +1,60 @@
+package com.chitnis.document_management_app.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Starts a new thread per task, meant for virtual threads, and bounds the work with semaphores
+ * instead of a pool size: at most {@code maxConcurrent} tasks run at once and at most
+ * {@code queueCapacity} more wait for a slot. Anything beyond that is rejected with
+ * {@link TaskRejectedException}, like a full {@code ThreadPoolTaskExecutor} queue.
+ */
+public class SemaphoreTaskExecutor implements TaskExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(SemaphoreTaskExecutor.class);
+
+    private final ThreadFactory threadFactory;
+    private final Semaphore running;
+    private final Semaphore admitted;
+
+    public SemaphoreTaskExecutor(ThreadFactory threadFactory, int maxConcurrent, int queueCapacity) {
+        this.threadFactory = threadFactory;
+        this.running = new Semaphore(Math.max(1, maxConcurrent), true);
+        this.admitted = new Semaphore((int) Math.min(Integer.MAX_VALUE, (long) Math.max(1, maxConcurrent) + Math.max(0, queueCapacity)));
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            throw new TaskRejectedException("Executor is at capacity; task " + task + " rejected");
+        }
+        try {
+            threadFactory.newThread(() -> runWithPermit(task)).start();
+        } catch (RuntimeException | Error ex) {
+            admitted.release();
+            throw new TaskRejectedException("Could not start a thread for task " + task, ex);
+        }
+    }
+
+    private void runWithPermit(Runnable task) {
+        try {
+            running.acquire();
+            try {
+                task.run();
+            } finally {
+                running.release();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            log.error("Unexpected error in task", ex);
+        } finally {
+            admitted.release();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.chitnis.document_management_app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class StreamingConfig {
+
+    /**
+     * Workers that relay streamed AI responses to SSE clients. Each stream occupies a worker
+     * until the model finishes, so the pool is bounded by the provider's concurrency limit
+     * rather than by CPU; when it is full, new streams are refused instead of queueing for minutes.
+     * In virtual-thread mode a stream costs no platform thread, so the limit can be raised freely.
+     */
+    @Bean
+    public TaskExecutor streamingExecutor(
+            Environment environment,
+            @Value("${app.streaming.workers:16}") int workers,
+            @Value("${app.streaming.queue-capacity:32}") int queueCapacity) {
+        if (VirtualThreads.enabled(environment)) {
+            return VirtualThreads.executor("streaming-", workers, queueCapacity);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("streaming-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
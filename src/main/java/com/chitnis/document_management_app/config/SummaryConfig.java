@@ -0,0 +1,33 @@
+package com.chitnis.document_management_app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class SummaryConfig {
+
+    /**
+     * Shared pool for the section and merge calls of map-reduce summarization. Its size is the
+     * number of summarization calls in flight across all documents; callers wait for their own
+     * tasks, so the queue is not capped.
+     */
+    @Bean
+    public TaskExecutor summaryExecutor(
+            Environment environment,
+            @Value("${app.summary.parallelism:4}") int parallelism) {
+        if (VirtualThreads.enabled(environment)) {
+            return VirtualThreads.executor("summary-", parallelism, Integer.MAX_VALUE);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("summary-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,42 @@
+package com.chitnis.document_management_app.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+/**
+ * Virtual-thread mode, switched by Spring Boot's {@code spring.threads.virtual.enabled}. The
+ * same property moves Tomcat's request handling onto virtual threads; it only takes effect on
+ * Java 21 or newer, and older JVMs keep the platform thread pools.
+ */
+final class VirtualThreads {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private VirtualThreads() {
+    }
+
+    static boolean enabled(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return true;
+        }
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; using platform threads",
+                    Runtime.version().feature());
+        }
+        return false;
+    }
+
+    /**
+     * Executor that starts a virtual thread per task, bounded by semaphores.
+     */
+    static TaskExecutor executor(String threadNamePrefix, int maxConcurrent, int queueCapacity) {
+        log.info("Running {}* tasks on virtual threads (max {} concurrent, {} waiting)",
+                threadNamePrefix, maxConcurrent, queueCapacity);
+        return new SemaphoreTaskExecutor(new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory(),
+                maxConcurrent, queueCapacity);
+    }
+}
@@ -1,23 +1,33 @@
 package com.chitnis.document_management_app.controller;
+import com.chitnis.document_management_app.service.BlobStore;
 import com.chitnis.document_management_app.service.DocumentQaService;
 import com.chitnis.document_management_app.service.DocumentSummaryService;
 import com.chitnis.document_management_app.service.DocumentService;
+import com.chitnis.document_management_app.service.IngestionService;
 import com.chitnis.document_management_app.entity.DocumentSummary;
 import com.chitnis.document_management_app.entity.Document;
+import com.chitnis.document_management_app.entity.IngestionJob;
 import com.chitnis.document_management_app.dto.DocumentSearchResult;
 import com.chitnis.document_management_app.dto.DocumentQaResponse;
 import com.chitnis.document_management_app.dto.DocumentQaRequest;
 import com.chitnis.document_management_app.dto.DocumentResponse;
 import com.chitnis.document_management_app.dto.MultiDocumentQaRequest;
 import com.chitnis.document_management_app.dto.MultiDocumentQaResponse;
+import com.chitnis.document_management_app.repository.DocumentRepository;
 
 import jakarta.persistence.EntityNotFoundException;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -25,29 +35,51 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
 import java.io.IOException;
-import java.nio.file.Path;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/documents")
 public class DocumentController {
 
+    private static final Logger log = LoggerFactory.getLogger(DocumentController.class);
+
     private final DocumentService documentService;
     private final DocumentSummaryService documentSummaryService;
     private final DocumentQaService documentQaService;
+    private final IngestionService ingestionService;
+    private final TaskExecutor streamingExecutor;
+
+    private final FileRangeResponder fileResponder;
+
+    @Value("${app.streaming.timeout:PT5M}")
+    private Duration streamTimeout;
 
     public DocumentController(DocumentService documentService,
                               DocumentSummaryService documentSummaryService,
-                              DocumentQaService documentQaService) {
+                              DocumentQaService documentQaService,
+                              IngestionService ingestionService,
+                              @Qualifier("streamingExecutor") TaskExecutor streamingExecutor,
+                              @Value("${app.download.sendfile-min-bytes:49152}") long sendfileMinBytes) {
         this.documentService = documentService;
         this.documentSummaryService = documentSummaryService;
         this.documentQaService = documentQaService;
+        this.ingestionService = ingestionService;
+        this.streamingExecutor = streamingExecutor;
+        this.fileResponder = new FileRangeResponder(sendfileMinBytes);
     }
 
     @PostMapping
@@ -55,6 +87,31 @@ public class DocumentController {
         try {
             Document saved = documentService.uploadDocument(file);
             return ResponseEntity.status(HttpStatus.CREATED).body(toResponse(saved));
+        } catch (MaxUploadSizeExceededException ex) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("error", "File exceeds the maximum upload size of " + ex.getMaxUploadSize() + " bytes."));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Unable to store the uploaded file."));
+        }
+    }
+
+    /**
+     * Upload a PDF sent as the raw request body ({@code Content-Type: application/pdf}), so it
+     * is streamed to storage without multipart buffering.
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_PDF_VALUE)
+    public ResponseEntity<?> uploadDocumentStream(@RequestParam(value = "filename", defaultValue = "document.pdf") String fileName,
+                                                  HttpServletRequest request) {
+        try {
+            Document saved = documentService.uploadDocument(request.getInputStream(),
+                    request.getContentLengthLong(), fileName, MediaType.APPLICATION_PDF_VALUE);
+            return ResponseEntity.status(HttpStatus.CREATED).body(toResponse(saved));
+        } catch (MaxUploadSizeExceededException ex) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("error", "File exceeds the maximum upload size of " + ex.getMaxUploadSize() + " bytes."));
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
         } catch (IOException e) {
@@ -71,9 +128,21 @@ public class DocumentController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<?> searchDocuments(@RequestParam("query") String query) {
+    public ResponseEntity<?> searchDocuments(@RequestParam("query") String query,
+                                             @RequestParam(value = "page", defaultValue = "0") int page,
+                                             @RequestParam(value = "size", defaultValue = "10") int size) {
         try {
-            return ResponseEntity.ok(documentService.searchDocuments(query));
+            return ResponseEntity.ok(documentService.searchDocuments(query, page, size));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    @GetMapping("/semantic-search")
+    public ResponseEntity<?> semanticSearch(@RequestParam("query") String query,
+                                            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(documentService.semanticSearch(query, limit));
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
         }
@@ -82,26 +151,78 @@ public class DocumentController {
     @PostMapping("/{id}/extract-text")
     public ResponseEntity<?> extractText(@PathVariable("id") Long documentId) {
         try {
-            Document updated = documentService.extractText(documentId);
-            int textLength = updated.getRawText() != null ? updated.getRawText().length() : 0;
-            return ResponseEntity.ok(Map.of(
-                    "documentId", updated.getId(),
-                    "status", updated.getStatus().name(),
-                    "textLength", textLength
+            IngestionJob job = ingestionService.submit(documentId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                    "documentId", documentId,
+                    "jobId", job.getId(),
+                    "status", job.getStatus().name(),
+                    "statusUrl", "/api/documents/" + documentId + "/ingestion"
             ));
         } catch (EntityNotFoundException ex) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
         } catch (IllegalStateException ex) {
             return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
-        } catch (IOException ex) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Unable to extract text from the document."));
+        } catch (TaskRejectedException ex) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Ingestion queue is full. Please try again later."));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteDocument(@PathVariable("id") Long documentId) {
+        try {
+            documentService.deleteDocument(documentId);
+            return ResponseEntity.noContent().build();
+        } catch (EntityNotFoundException ex) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/ingestion")
+    public ResponseEntity<?> getIngestionStatus(@PathVariable("id") Long documentId) {
+        try {
+            Optional<IngestionJob> job = ingestionService.getJob(documentId);
+            if (job.isEmpty()) {
+                Document document = documentService.getDocumentById(documentId);
+                return ResponseEntity.ok(Map.of(
+                        "documentId", documentId,
+                        "status", document.getStatus().name(),
+                        "chunksDone", 0,
+                        "chunksTotal", 0
+                ));
+            }
+
+            IngestionJob current = job.get();
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("documentId", documentId);
+            body.put("jobId", current.getId());
+            body.put("status", current.getStatus().name());
+            body.put("chunksDone", current.getChunksDone());
+            body.put("chunksTotal", current.getChunksTotal());
+            body.put("attempts", current.getAttempts());
+            body.put("updatedAt", current.getUpdatedAt());
+            if (current.getLastError() != null) {
+                body.put("error", current.getLastError());
+            }
+            return ResponseEntity.ok(body);
+        } catch (EntityNotFoundException ex) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
         }
     }
 
     @GetMapping("/{id}/text")
-    public ResponseEntity<?> getDocumentText(@PathVariable("id") Long documentId) {
+    public ResponseEntity<?> getDocumentText(@PathVariable("id") Long documentId,
+                                             @RequestParam(value = "page", required = false) Integer page) {
         try {
+            if (page != null) {
+                return ResponseEntity.ok(Map.of(
+                        "documentId", documentId,
+                        "page", page,
+                        "rawText", documentService.getDocumentPage(documentId, page)
+                ));
+            }
             String text = documentService.getDocumentText(documentId);
             return ResponseEntity.ok(Map.of(
                     "documentId", documentId,
@@ -109,7 +230,7 @@ public class DocumentController {
             ));
         } catch (EntityNotFoundException ex) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
-        } catch (IllegalStateException ex) {
+        } catch (IllegalStateException | IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
         }
     }
@@ -131,6 +252,24 @@ public class DocumentController {
         }
     }
 
+    /**
+     * Streams the summary as server-sent events: {@code token} events carry text as it is
+     * generated, then one {@code done} event carries the same body as {@code /summarize}.
+     * Failures arrive as an {@code error} event.
+     */
+    @PostMapping(value = "/{id}/summarize/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSummary(@PathVariable("id") Long documentId) {
+        return stream(onToken -> {
+            DocumentSummary summary = documentSummaryService.streamSummary(documentId, onToken);
+            return Map.of(
+                    "documentId", documentId,
+                    "summaryId", summary.getId(),
+                    "summaryText", summary.getSummaryText(),
+                    "createdAt", summary.getCreatedAt()
+            );
+        });
+    }
+
     @GetMapping("/{id}/summary")
     public ResponseEntity<?> getLatestSummary(@PathVariable("id") Long documentId) {
         try {
@@ -164,6 +303,20 @@ public class DocumentController {
         }
     }
 
+    @PostMapping(value = "/{id}/qa/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAnswer(@PathVariable("id") Long documentId,
+                                   @Valid @RequestBody DocumentQaRequest request) {
+        return stream(onToken -> {
+            DocumentQaResponse response = documentQaService.streamAnswer(documentId, request.getQuestion(), onToken);
+            return Map.of(
+                    "documentId", response.getDocumentId(),
+                    "question", response.getQuestion(),
+                    "answer", response.getAnswer(),
+                    "sourceSnippet", response.getSourceSnippet()
+            );
+        });
+    }
+
     @PostMapping("/qa/multi")
     public ResponseEntity<?> answerQuestionMulti(@Valid @RequestBody MultiDocumentQaRequest request) {
         try {
@@ -185,6 +338,24 @@ public class DocumentController {
         }
     }
 
+    @PostMapping(value = "/qa/multi/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAnswerMulti(@Valid @RequestBody MultiDocumentQaRequest request) {
+        return stream(onToken -> {
+            MultiDocumentQaResponse response = documentQaService.streamAnswerMulti(
+                    request.getDocumentIds(),
+                    request.getQuestion(),
+                    onToken
+            );
+            return Map.of(
+                    "documentIds", response.getDocumentIds(),
+                    "documentNames", response.getDocumentNames(),
+                    "question", response.getQuestion(),
+                    "answer", response.getAnswer(),
+                    "sourceSnippet", response.getSourceSnippet()
+            );
+        });
+    }
+
     @PostMapping("/{id}/embeddings")
     public ResponseEntity<?> createEmbeddings(@PathVariable("id") Long documentId) {
         try {
@@ -216,31 +387,88 @@ public class DocumentController {
     }
 
     @GetMapping("/{id}/download")
-    public ResponseEntity<Resource> downloadDocument(@PathVariable("id") Long documentId) {
+    public void downloadDocument(@PathVariable("id") Long documentId,
+                                 HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        Document document;
+        BlobStore.LocalFile file;
         try {
-            Path filePath = documentService.getDocumentFile(documentId);
-            Document document = documentService.getDocumentById(documentId);
+            document = documentService.getDocumentById(documentId);
+            file = documentService.getDocumentFile(document);
+        } catch (EntityNotFoundException | IllegalStateException ex) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
 
-            Resource resource = new UrlResource(filePath.toUri());
+        String contentType = document.getMimeType() != null ? document.getMimeType() : "application/pdf";
+        String filename = document.getOriginalFileName() != null ? document.getOriginalFileName() : "document.pdf";
+        // Files are stored by content hash, so the hash is a strong validator for every byte range
+        String etag = document.getContentHash() != null ? "\"" + document.getContentHash() + "\"" : null;
 
-            if (!resource.exists() || !resource.isReadable()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-            }
+        // A cached copy of a remote blob may be evicted once closed, so it is streamed from here
+        // rather than left for the container's sendfile to open later
+        try (file) {
+            fileResponder.respond(request, response, file.getPath(), !file.isCached(), contentType,
+                    "inline; filename=\"" + filename + "\"", etag, document.getUploadedAt());
+        }
+    }
 
-            String contentType = document.getMimeType() != null ? document.getMimeType() : "application/pdf";
-            String filename = document.getOriginalFileName() != null ? document.getOriginalFileName() : "document.pdf";
+    /**
+     * Run {@code work} on the streaming pool, relaying its tokens as {@code token} events and
+     * its result as the {@code done} event. If the client disconnects, the next send fails and
+     * the exception aborts the upstream AI request.
+     */
+    private SseEmitter stream(Function<Consumer<String>, Map<String, Object>> work) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        try {
+            streamingExecutor.execute(() -> {
+                try {
+                    Map<String, Object> result = work.apply(token -> send(emitter, "token", Map.of("text", token)));
+                    send(emitter, "done", result);
+                    emitter.complete();
+                } catch (UncheckedIOException ex) {
+                    log.debug("Streaming client went away: {}", ex.getMessage());
+                } catch (EntityNotFoundException ex) {
+                    sendError(emitter, HttpStatus.NOT_FOUND, ex.getMessage());
+                } catch (IllegalArgumentException | IllegalStateException ex) {
+                    sendError(emitter, HttpStatus.BAD_REQUEST, ex.getMessage());
+                } catch (RuntimeException ex) {
+                    log.error("Streaming response failed", ex);
+                    sendError(emitter, HttpStatus.INTERNAL_SERVER_ERROR, "Unable to complete the response.");
+                }
+            });
+        } catch (TaskRejectedException ex) {
+            sendError(emitter, HttpStatus.SERVICE_UNAVAILABLE, "Too many streaming requests. Please try again later.");
+        }
+        return emitter;
+    }
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
-                    .body(resource);
-        } catch (EntityNotFoundException ex) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } catch (Exception ex) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    private static void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void sendError(SseEmitter emitter, HttpStatus status, String message) {
+        try {
+            send(emitter, "error", Map.of("status", status.value(), "error", message));
+            emitter.complete();
+        } catch (UncheckedIOException ex) {
+            log.debug("Streaming client went away before the error was sent: {}", ex.getMessage());
         }
     }
 
+    private DocumentResponse toResponse(DocumentRepository.DocumentListItem document) {
+        return new DocumentResponse(
+                document.getId(),
+                document.getOriginalFileName(),
+                document.getUploadedAt(),
+                document.getStatus().name()
+        );
+    }
+
     private DocumentResponse toResponse(Document document) {
         return new DocumentResponse(
                 document.getId(),
@@ -0,0 +1,235 @@
+package com.chitnis.document_management_app.controller;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes a stored file to the response with byte-range, conditional request and ETag support.
+ *
+ * Large bodies are handed to the container's sendfile support when it offers it, so the
+ * bytes go from the page cache to the socket without passing through the JVM. Otherwise
+ * they are copied with {@link FileChannel#transferTo}.
+ */
+final class FileRangeResponder {
+
+    // Tomcat's sendfile request attributes (org.apache.coyote.Constants)
+    static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final long sendfileMinBytes;
+
+    FileRangeResponder(long sendfileMinBytes) {
+        this.sendfileMinBytes = sendfileMinBytes;
+    }
+
+    /**
+     * @param sendfile Whether the container may open the file after this returns; false for
+     *                 files that can be deleted once the caller is done with them
+     * @param etag Strong entity tag of the file content, quoted; {@code null} if unknown
+     * @param lastModified When the content was stored; {@code null} if unknown
+     */
+    void respond(HttpServletRequest request, HttpServletResponse response, Path file, boolean sendfile,
+                 String contentType, String contentDisposition, String etag, Instant lastModified) throws IOException {
+        long length = Files.size(file);
+        long lastModifiedMillis = lastModified != null ? lastModified.toEpochMilli() : -1;
+
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+        }
+        if (lastModifiedMillis >= 0) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModifiedMillis);
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // Sets 304 or 412 itself
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModifiedMillis)) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        List<long[]> ranges;
+        try {
+            ranges = requestedRanges(request, length, etag, lastModifiedMillis);
+        } catch (IllegalArgumentException ex) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return;
+        }
+
+        boolean head = "HEAD".equals(request.getMethod());
+        if (ranges.isEmpty()) {
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            if (!head) {
+                send(request, response, file, sendfile, 0, length);
+            }
+        } else if (ranges.size() == 1) {
+            long start = ranges.get(0)[0];
+            long end = ranges.get(0)[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            response.setContentLengthLong(end - start + 1);
+            if (!head) {
+                send(request, response, file, sendfile, start, end - start + 1);
+            }
+        } else {
+            sendMultipart(response, file, contentType, ranges, length, head);
+        }
+    }
+
+    /**
+     * Inclusive {start, end} pairs for the request's {@code Range} header, sorted and with
+     * overlapping or adjacent ranges merged; empty when the whole file should be sent.
+     *
+     * Like Spring's {@code HttpRange.toResourceRegions}, ranges that add up to more than the
+     * file are refused, so {@code bytes=0-,0-,...} cannot make one request stream the file
+     * many times over. The whole file is sent instead, which RFC 9110 allows for any range.
+     *
+     * @throws IllegalArgumentException if the header is malformed or no range fits the file
+     */
+    private static List<long[]> requestedRanges(HttpServletRequest request, long length,
+                                                String etag, long lastModifiedMillis) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())
+                || !ifRangeMatches(request, etag, lastModifiedMillis)) {
+            return List.of();
+        }
+
+        List<long[]> ranges = new ArrayList<>();
+        long requested = 0;
+        for (HttpRange range : HttpRange.parseRanges(header)) {
+            // Unsatisfiable ranges are skipped; the request fails only if none is left
+            try {
+                long start = range.getRangeStart(length);
+                long end = range.getRangeEnd(length);
+                if (start < length && start <= end) {
+                    ranges.add(new long[]{start, end});
+                    requested += end - start + 1;
+                }
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        if (ranges.isEmpty()) {
+            throw new IllegalArgumentException("No satisfiable range in " + header);
+        }
+        if (requested > length) {
+            return List.of();
+        }
+
+        ranges.sort(Comparator.comparingLong(range -> range[0]));
+        List<long[]> merged = new ArrayList<>(ranges.size());
+        long[] current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            long[] next = ranges.get(i);
+            if (next[0] <= current[1] + 1) {
+                current = new long[]{current[0], Math.max(current[1], next[1])};
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    /**
+     * {@code If-Range} only honours the range when the client's copy is current; weak tags
+     * never match.
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModifiedMillis) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return etag != null && ifRange.equals(etag);
+        }
+        try {
+            long since = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return lastModifiedMillis >= 0 && lastModifiedMillis / 1000 == since / 1000;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    private void send(HttpServletRequest request, HttpServletResponse response, Path file, boolean sendfile,
+                      long start, long count) throws IOException {
+        if (sendfile && count >= sendfileMinBytes && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(channel, start, count, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    private static void sendMultipart(HttpServletResponse response, Path file, String contentType,
+                                      List<long[]> ranges, long length, boolean head) throws IOException {
+        String boundary = UUID.randomUUID().toString();
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long total = 0;
+        for (long[] range : ranges) {
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + range[0] + "-" + range[1] + "/" + length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            total += partHeader.length + range[1] - range[0] + 1;
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        total += closing.length;
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(total);
+        if (head) {
+            return;
+        }
+
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                transfer(channel, ranges.get(i)[0], ranges.get(i)[1] - ranges.get(i)[0] + 1, target);
+            }
+        }
+        out.write(closing);
+    }
+
+    private static void transfer(FileChannel channel, long start, long count, WritableByteChannel target) throws IOException {
+        long position = start;
+        long end = start + count;
+        while (position < end) {
+            long sent = channel.transferTo(position, end - position, target);
+            if (sent <= 0) {
+                throw new IOException("File ended early at byte " + position);
+            }
+            position += sent;
+        }
+    }
+}
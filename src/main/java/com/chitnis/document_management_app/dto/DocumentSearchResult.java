@@ -5,11 +5,13 @@ public class DocumentSearchResult {
     private final Long documentId;
     private final String originalFileName;
     private final String snippet;
+    private final double score;
 
-    public DocumentSearchResult(Long documentId, String originalFileName, String snippet) {
+    public DocumentSearchResult(Long documentId, String originalFileName, String snippet, double score) {
         this.documentId = documentId;
         this.originalFileName = originalFileName;
         this.snippet = snippet;
+        this.score = score;
     }
 
     public Long getDocumentId() {
@@ -23,4 +25,8 @@ public class DocumentSearchResult {
     public String getSnippet() {
         return snippet;
     }
+
+    public double getScore() {
+        return score;
+    }
 }
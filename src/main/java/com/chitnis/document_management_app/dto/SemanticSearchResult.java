@@ -0,0 +1,39 @@
+package com.chitnis.document_management_app.dto;
+
+public class SemanticSearchResult {
+
+    private final Long documentId;
+    private final String originalFileName;
+    private final Integer chunkIndex;
+    private final double score;
+    private final String snippet;
+
+    public SemanticSearchResult(Long documentId, String originalFileName, Integer chunkIndex,
+                                double score, String snippet) {
+        this.documentId = documentId;
+        this.originalFileName = originalFileName;
+        this.chunkIndex = chunkIndex;
+        this.score = score;
+        this.snippet = snippet;
+    }
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    public String getOriginalFileName() {
+        return originalFileName;
+    }
+
+    public Integer getChunkIndex() {
+        return chunkIndex;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+}
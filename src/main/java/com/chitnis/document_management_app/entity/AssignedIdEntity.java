@@ -0,0 +1,37 @@
+package com.chitnis.document_management_app.entity;
+
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Base for entities whose keys are assigned by the application rather than generated.
+ *
+ * Spring Data treats an entity with a non-null id as existing and merges it, which costs a
+ * SELECT before every insert. Subclass constructors that create new rows call
+ * {@link #markNew()}, so {@code save} persists them directly; loaded and persisted entities
+ * are merged as usual.
+ */
+@MappedSuperclass
+public abstract class AssignedIdEntity<ID> implements Persistable<ID> {
+
+    @Transient
+    private boolean isNew;
+
+    protected void markNew() {
+        this.isNew = true;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
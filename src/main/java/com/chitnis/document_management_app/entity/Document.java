@@ -5,7 +5,9 @@ import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+    @Index(name = "idx_documents_content_hash", columnList = "content_hash")
+})
 public class Document {
 
     @Id
@@ -16,6 +18,13 @@ public class Document {
 
     private String storedFilePath;
 
+    /**
+     * SHA-256 of the file, hex encoded; the key of the shared {@link FileBlob}.
+     * Null for documents uploaded before content addressing.
+     */
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     private String mimeType;
 
     private Long sizeInBytes;
@@ -25,9 +34,6 @@ public class Document {
     @Enumerated(EnumType.STRING)
     private DocumentStatus status;
 
-    @Column(columnDefinition = "TEXT")
-    private String rawText;
-
     @Column(name = "workspace_id")
     private Long workspaceId;
 
@@ -58,6 +64,14 @@ public class Document {
         this.storedFilePath = storedFilePath;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public String getMimeType() {
         return mimeType;
     }
@@ -90,14 +104,6 @@ public class Document {
         this.status = status;
     }
 
-    public String getRawText() {
-        return rawText;
-    }
-
-    public void setRawText(String rawText) {
-        this.rawText = rawText;
-    }
-
     public Long getWorkspaceId() {
         return workspaceId;
     }
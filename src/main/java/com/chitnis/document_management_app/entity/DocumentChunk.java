@@ -22,8 +22,11 @@ public class DocumentChunk {
     @Column(columnDefinition = "TEXT", nullable = false)
     private String text;
 
-    @Column(columnDefinition = "JSONB", nullable = false)
-    private String embedding;
+    /**
+     * Little-endian float32 vector encoded with {@code VectorCodec}.
+     */
+    @Column(name = "embedding_vector", columnDefinition = "bytea")
+    private byte[] embedding;
 
     @Column(name = "created_at")
     private Instant createdAt;
@@ -31,7 +34,7 @@ public class DocumentChunk {
     public DocumentChunk() {
     }
 
-    public DocumentChunk(Long documentId, Integer chunkIndex, String text, String embedding) {
+    public DocumentChunk(Long documentId, Integer chunkIndex, String text, byte[] embedding) {
         this.documentId = documentId;
         this.chunkIndex = chunkIndex;
         this.text = text;
@@ -71,11 +74,11 @@ public class DocumentChunk {
         this.text = text;
     }
 
-    public String getEmbedding() {
+    public byte[] getEmbedding() {
         return embedding;
     }
 
-    public void setEmbedding(String embedding) {
+    public void setEmbedding(byte[] embedding) {
         this.embedding = embedding;
     }
 
@@ -3,5 +3,12 @@ package com.chitnis.document_management_app.entity;
 public enum DocumentStatus {
     UPLOADED,
     TEXT_EXTRACTED,
-    ANALYZED
+    ANALYZED,
+    // Ingestion pipeline stages
+    QUEUED,
+    EXTRACTING,
+    CHUNKING,
+    EMBEDDING,
+    READY,
+    FAILED
 }
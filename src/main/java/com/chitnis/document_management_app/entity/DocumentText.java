@@ -0,0 +1,75 @@
+package com.chitnis.document_management_app.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Index of a document's extracted text, which is stored compressed in
+ * {@link DocumentTextBlock}s. Kept apart from {@link Document}, so loading a document does not
+ * load its text.
+ */
+@Entity
+@Table(name = "document_text")
+public class DocumentText extends AssignedIdEntity<Long> {
+
+    @Id
+    @Column(name = "document_id")
+    private Long documentId;
+
+    @Column(name = "char_length", nullable = false)
+    private Integer charLength;
+
+    /**
+     * Little-endian int32 character offsets at which every block starts.
+     */
+    @Column(name = "block_offsets", nullable = false, columnDefinition = "bytea")
+    private byte[] blockOffsets;
+
+    /**
+     * Little-endian int32 character offsets at which every page starts; empty when the source
+     * has no pages.
+     */
+    @Column(name = "page_offsets", nullable = false, columnDefinition = "bytea")
+    private byte[] pageOffsets;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public DocumentText() {
+    }
+
+    public DocumentText(Long documentId, int charLength, byte[] blockOffsets, byte[] pageOffsets) {
+        this.documentId = documentId;
+        this.charLength = charLength;
+        this.blockOffsets = blockOffsets;
+        this.pageOffsets = pageOffsets;
+        this.createdAt = Instant.now();
+        markNew();
+    }
+
+    @Override
+    public Long getId() {
+        return documentId;
+    }
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    public Integer getCharLength() {
+        return charLength;
+    }
+
+    public byte[] getBlockOffsets() {
+        return blockOffsets;
+    }
+
+    public byte[] getPageOffsets() {
+        return pageOffsets;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,82 @@
+package com.chitnis.document_management_app.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One deflated UTF-8 block of a document's text, see {@link DocumentText}.
+ */
+@Entity
+@Table(name = "document_text_block")
+@IdClass(DocumentTextBlock.Key.class)
+public class DocumentTextBlock extends AssignedIdEntity<DocumentTextBlock.Key> {
+
+    @Id
+    @Column(name = "document_id")
+    private Long documentId;
+
+    @Id
+    @Column(name = "block_index")
+    private Integer blockIndex;
+
+    @Column(name = "data", nullable = false, columnDefinition = "bytea")
+    private byte[] data;
+
+    public DocumentTextBlock() {
+    }
+
+    public DocumentTextBlock(Long documentId, int blockIndex, byte[] data) {
+        this.documentId = documentId;
+        this.blockIndex = blockIndex;
+        this.data = data;
+        markNew();
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(documentId, blockIndex);
+    }
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    public Integer getBlockIndex() {
+        return blockIndex;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public static class Key implements Serializable {
+        private Long documentId;
+        private Integer blockIndex;
+
+        public Key() {
+        }
+
+        public Key(Long documentId, Integer blockIndex) {
+            this.documentId = documentId;
+            this.blockIndex = blockIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(documentId, key.documentId) && Objects.equals(blockIndex, key.blockIndex);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(documentId, blockIndex);
+        }
+    }
+}
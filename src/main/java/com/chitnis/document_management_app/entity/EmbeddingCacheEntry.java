@@ -0,0 +1,72 @@
+package com.chitnis.document_management_app.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A stored embedding, keyed by model name and the SHA-256 of the normalized input text.
+ */
+@Entity
+@Table(name = "embedding_cache")
+public class EmbeddingCacheEntry extends AssignedIdEntity<String> {
+
+    /**
+     * {@code <model>:<text hash>}
+     */
+    @Id
+    @Column(name = "cache_key", length = 200)
+    private String cacheKey;
+
+    @Column(nullable = false, length = 128)
+    private String model;
+
+    @Column(name = "text_hash", nullable = false, length = 64)
+    private String textHash;
+
+    /**
+     * Little-endian float32 vector encoded with {@code VectorCodec}, as returned by the model.
+     */
+    @Column(name = "embedding_vector", columnDefinition = "bytea", nullable = false)
+    private byte[] embedding;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public EmbeddingCacheEntry() {
+    }
+
+    public EmbeddingCacheEntry(String cacheKey, String model, String textHash, byte[] embedding) {
+        this.cacheKey = cacheKey;
+        this.model = model;
+        this.textHash = textHash;
+        this.embedding = embedding;
+        this.createdAt = Instant.now();
+        markNew();
+    }
+
+    @Override
+    public String getId() {
+        return cacheKey;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public String getTextHash() {
+        return textHash;
+    }
+
+    public byte[] getEmbedding() {
+        return embedding;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,90 @@
+package com.chitnis.document_management_app.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A stored upload, addressed by the SHA-256 of its bytes. Documents with the same content
+ * share one blob; {@code refCount} is the number of documents pointing at it.
+ */
+@Entity
+@Table(name = "file_blobs")
+public class FileBlob extends AssignedIdEntity<String> {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "stored_file_path", nullable = false)
+    private String storedFilePath;
+
+    @Column(name = "size_in_bytes", nullable = false)
+    private long sizeInBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public FileBlob() {
+    }
+
+    /**
+     * A new blob with its first reference.
+     */
+    public FileBlob(String contentHash, String storedFilePath, long sizeInBytes) {
+        this.contentHash = contentHash;
+        this.storedFilePath = storedFilePath;
+        this.sizeInBytes = sizeInBytes;
+        this.refCount = 1;
+        this.createdAt = Instant.now();
+        markNew();
+    }
+
+    @Override
+    public String getId() {
+        return contentHash;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getStoredFilePath() {
+        return storedFilePath;
+    }
+
+    public void setStoredFilePath(String storedFilePath) {
+        this.storedFilePath = storedFilePath;
+    }
+
+    public long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public void setSizeInBytes(long sizeInBytes) {
+        this.sizeInBytes = sizeInBytes;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(int refCount) {
+        this.refCount = refCount;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,120 @@
+package com.chitnis.document_management_app.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Persisted progress of the background ingestion pipeline for one document.
+ */
+@Entity
+@Table(name = "ingestion_jobs", indexes = {
+    @Index(name = "idx_ingestion_job_status", columnList = "status")
+})
+public class IngestionJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "document_id", nullable = false, unique = true)
+    private Long documentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private DocumentStatus status;
+
+    @Column(name = "chunks_total", nullable = false)
+    private int chunksTotal;
+
+    @Column(name = "chunks_done", nullable = false)
+    private int chunksDone;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        updatedAt = Instant.now();
+        if (createdAt == null) {
+            createdAt = updatedAt;
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(Long documentId) {
+        this.documentId = documentId;
+    }
+
+    public DocumentStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(DocumentStatus status) {
+        this.status = status;
+    }
+
+    public int getChunksTotal() {
+        return chunksTotal;
+    }
+
+    public void setChunksTotal(int chunksTotal) {
+        this.chunksTotal = chunksTotal;
+    }
+
+    public int getChunksDone() {
+        return chunksDone;
+    }
+
+    public void setChunksDone(int chunksDone) {
+        this.chunksDone = chunksDone;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public boolean isActive() {
+        return status == DocumentStatus.QUEUED
+                || status == DocumentStatus.EXTRACTING
+                || status == DocumentStatus.CHUNKING
+                || status == DocumentStatus.EMBEDDING;
+    }
+}
@@ -0,0 +1,54 @@
+package com.chitnis.document_management_app.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A stored intermediate summary from map-reduce summarization, keyed by step, model and the
+ * SHA-256 of the step's input.
+ */
+@Entity
+@Table(name = "summary_cache")
+public class SummaryCacheEntry extends AssignedIdEntity<String> {
+
+    /**
+     * {@code <step>:<model>:<input hash>}
+     */
+    @Id
+    @Column(name = "cache_key", length = 220)
+    private String cacheKey;
+
+    @Column(name = "summary_text", nullable = false, columnDefinition = "TEXT")
+    private String summaryText;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public SummaryCacheEntry() {
+    }
+
+    public SummaryCacheEntry(String cacheKey, String summaryText) {
+        this.cacheKey = cacheKey;
+        this.summaryText = summaryText;
+        this.createdAt = Instant.now();
+        markNew();
+    }
+
+    @Override
+    public String getId() {
+        return cacheKey;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public String getSummaryText() {
+        return summaryText;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
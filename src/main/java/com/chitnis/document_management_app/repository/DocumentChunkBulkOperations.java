@@ -0,0 +1,26 @@
+package com.chitnis.document_management_app.repository;
+import com.chitnis.document_management_app.entity.DocumentChunk;
+
+import java.util.List;
+
+/**
+ * Set-based chunk writes that bypass per-entity inserts. {@code IDENTITY} ids keep Hibernate
+ * from batching, so these go through JDBC directly.
+ */
+public interface DocumentChunkBulkOperations {
+
+    /**
+     * Insert chunks in one JDBC batch and set their generated ids.
+     *
+     * @return The same chunks, with ids
+     */
+    List<DocumentChunk> insertChunks(List<DocumentChunk> chunks);
+
+    /**
+     * Delete a document's chunks and insert {@code chunks} in one transaction, so readers see
+     * either the old chunks or the new ones.
+     *
+     * @return The inserted chunks, with ids
+     */
+    List<DocumentChunk> replaceChunks(Long documentId, List<DocumentChunk> chunks);
+}
@@ -0,0 +1,82 @@
+package com.chitnis.document_management_app.repository;
+import com.chitnis.document_management_app.entity.DocumentChunk;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC implementation of {@link DocumentChunkBulkOperations}, picked up by Spring Data as a
+ * fragment of {@link DocumentChunkRepository}.
+ */
+public class DocumentChunkBulkOperationsImpl implements DocumentChunkBulkOperations {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO document_chunk (document_id, chunk_index, text, embedding_vector, created_at)
+            VALUES (?, ?, ?, ?, ?)""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DocumentChunkBulkOperationsImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public List<DocumentChunk> insertChunks(List<DocumentChunk> chunks) {
+        if (chunks.isEmpty()) {
+            return chunks;
+        }
+
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        DocumentChunk chunk = chunks.get(i);
+                        if (chunk.getCreatedAt() == null) {
+                            chunk.setCreatedAt(Instant.now());
+                        }
+                        statement.setLong(1, chunk.getDocumentId());
+                        statement.setInt(2, chunk.getChunkIndex());
+                        statement.setString(3, chunk.getText());
+                        statement.setBytes(4, chunk.getEmbedding());
+                        statement.setTimestamp(5, Timestamp.from(chunk.getCreatedAt()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return chunks.size();
+                    }
+                },
+                keys
+        );
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        if (generated.size() != chunks.size()) {
+            throw new IllegalStateException("Expected " + chunks.size() + " generated chunk ids, got " + generated.size());
+        }
+        for (int i = 0; i < chunks.size(); i++) {
+            // Drivers differ in the case of the key column, so take the only value
+            chunks.get(i).setId(((Number) generated.get(i).values().iterator().next()).longValue());
+        }
+        return chunks;
+    }
+
+    @Override
+    @Transactional
+    public List<DocumentChunk> replaceChunks(Long documentId, List<DocumentChunk> chunks) {
+        jdbcTemplate.update("DELETE FROM document_chunk WHERE document_id = ?", documentId);
+        return insertChunks(chunks);
+    }
+}
@@ -5,16 +5,76 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
-public interface DocumentChunkRepository extends JpaRepository<DocumentChunk, Long> {
+public interface DocumentChunkRepository extends JpaRepository<DocumentChunk, Long>, DocumentChunkBulkOperations {
 
     List<DocumentChunk> findByDocumentIdOrderByChunkIndexAsc(Long documentId);
 
+    /**
+     * Load only ids and encoded vectors for a document, skipping the chunk text.
+     */
+    @Query("""
+            SELECT dc.id AS id, dc.embedding AS embedding FROM DocumentChunk dc
+            WHERE dc.documentId = :documentId AND dc.embedding IS NOT NULL
+            ORDER BY dc.chunkIndex ASC
+            """)
+    List<EmbeddingRow> findEmbeddingsByDocumentId(@Param("documentId") Long documentId);
+
+    /**
+     * Ids, owning document and encoded vectors of every chunk a user owns, skipping the chunk text.
+     */
+    @Query("""
+            SELECT dc.id AS id, dc.documentId AS documentId, dc.embedding AS embedding
+            FROM DocumentChunk dc, Document d
+            WHERE d.id = dc.documentId AND d.userId = :userId AND dc.embedding IS NOT NULL
+            ORDER BY dc.id ASC
+            """)
+    List<UserEmbeddingRow> findEmbeddingsByUserId(@Param("userId") Long userId);
+
+    @Query("""
+            SELECT COUNT(dc) AS count, MAX(dc.id) AS maxId
+            FROM DocumentChunk dc, Document d
+            WHERE d.id = dc.documentId AND d.userId = :userId AND dc.embedding IS NOT NULL
+            """)
+    ChunkStats findChunkStatsByUserId(@Param("userId") Long userId);
+
     @Modifying
+    @Transactional
     @Query("DELETE FROM DocumentChunk dc WHERE dc.documentId = :documentId")
     void deleteByDocumentId(@Param("documentId") Long documentId);
 
     long countByDocumentId(Long documentId);
+
+    /**
+     * Copy all chunks, text and vectors, of one document to another with the same content.
+     *
+     * @return Number of chunks copied
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO document_chunk (document_id, chunk_index, text, embedding_vector, created_at)
+            SELECT :targetId, dc.chunk_index, dc.text, dc.embedding_vector, CURRENT_TIMESTAMP
+            FROM document_chunk dc WHERE dc.document_id = :sourceId
+            """, nativeQuery = true)
+    int copyChunks(@Param("sourceId") Long sourceId, @Param("targetId") Long targetId);
+
+    interface EmbeddingRow {
+        Long getId();
+
+        byte[] getEmbedding();
+    }
+
+    interface UserEmbeddingRow extends EmbeddingRow {
+        Long getDocumentId();
+    }
+
+    interface ChunkStats {
+        Long getCount();
+
+        Long getMaxId();
+    }
 }
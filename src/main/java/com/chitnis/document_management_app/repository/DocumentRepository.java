@@ -1,21 +1,98 @@
 package com.chitnis.document_management_app.repository;
 import com.chitnis.document_management_app.entity.Document;
+import com.chitnis.document_management_app.entity.DocumentStatus;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface DocumentRepository extends JpaRepository<Document, Long> {
-    List<Document> findByUserId(Long userId);
-
-    @Query(value = """
-            SELECT * FROM documents d
-            WHERE d.user_id = :userId
-            AND LOWER(d.raw_text) LIKE LOWER(CONCAT('%', :query, '%'))
-            ORDER BY d.uploaded_at DESC
-            LIMIT 10
-            """, nativeQuery = true)
-    List<Document> searchByRawText(@Param("userId") Long userId, @Param("query") String query);
+
+    /**
+     * Listing columns of a user's documents, in upload order.
+     */
+    @Query("""
+            SELECT d.id AS id, d.originalFileName AS originalFileName, d.uploadedAt AS uploadedAt, d.status AS status
+            FROM Document d WHERE d.userId = :userId ORDER BY d.id
+            """)
+    List<DocumentListItem> findListItemsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Ids and file names of a user's documents, without loading their text.
+     */
+    @Query("SELECT d.id AS id, d.originalFileName AS originalFileName FROM Document d WHERE d.userId = :userId AND d.id IN :ids")
+    List<DocumentTitle> findTitlesByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Names and text status of several documents in one query, without loading their text.
+     */
+    @Query("""
+            SELECT d.id AS id, d.originalFileName AS originalFileName,
+                   CASE WHEN t.documentId IS NULL THEN false ELSE true END AS hasText
+            FROM Document d LEFT JOIN DocumentText t ON t.documentId = d.id
+            WHERE d.id IN :ids
+            """)
+    List<DocumentQaMetadata> findQaMetadataByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT t.documentId FROM DocumentText t ORDER BY t.documentId")
+    List<Long> findIdsWithRawText();
+
+    @Query("SELECT d.id FROM Document d WHERE d.contentHash IS NULL ORDER BY d.id")
+    List<Long> findIdsWithoutContentHash();
+
+    /**
+     * An already ingested document with the same file content, whose text and chunks can be reused.
+     */
+    Optional<Document> findFirstByContentHashAndStatusAndIdNotOrderByIdAsc(String contentHash,
+                                                                            DocumentStatus status,
+                                                                            Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Document d SET d.status = :status WHERE d.id = :documentId")
+    int updateStatus(@Param("documentId") Long documentId, @Param("status") DocumentStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Document d SET d.contentHash = :contentHash, d.storedFilePath = :storedFilePath WHERE d.id = :documentId")
+    int updateStoredFile(@Param("documentId") Long documentId,
+                         @Param("contentHash") String contentHash,
+                         @Param("storedFilePath") String storedFilePath);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Document d SET d.storedFilePath = :storedFilePath WHERE d.contentHash = :contentHash")
+    int updateStoredFileByContentHash(@Param("contentHash") String contentHash,
+                                      @Param("storedFilePath") String storedFilePath);
+
+    interface DocumentListItem {
+        Long getId();
+
+        String getOriginalFileName();
+
+        Instant getUploadedAt();
+
+        DocumentStatus getStatus();
+    }
+
+    interface DocumentTitle {
+        Long getId();
+
+        String getOriginalFileName();
+    }
+
+    interface DocumentQaMetadata {
+        Long getId();
+
+        String getOriginalFileName();
+
+        Boolean getHasText();
+    }
 }
@@ -3,9 +3,18 @@ import com.chitnis.document_management_app.entity.Document;
 import com.chitnis.document_management_app.entity.DocumentSummary;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface DocumentSummaryRepository extends JpaRepository<DocumentSummary, Long> {
     Optional<DocumentSummary> findTopByDocumentOrderByCreatedAtDesc(Document document);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DocumentSummary s WHERE s.document.id = :documentId")
+    void deleteByDocumentId(@Param("documentId") Long documentId);
 }
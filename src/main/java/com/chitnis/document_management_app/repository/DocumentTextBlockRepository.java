@@ -0,0 +1,36 @@
+package com.chitnis.document_management_app.repository;
+import com.chitnis.document_management_app.entity.DocumentTextBlock;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface DocumentTextBlockRepository extends JpaRepository<DocumentTextBlock, DocumentTextBlock.Key> {
+
+    @Query("""
+            SELECT b FROM DocumentTextBlock b
+            WHERE b.documentId = :documentId AND b.blockIndex BETWEEN :first AND :last
+            ORDER BY b.blockIndex ASC
+            """)
+    List<DocumentTextBlock> findBlocks(@Param("documentId") Long documentId,
+                                       @Param("first") int first,
+                                       @Param("last") int last);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DocumentTextBlock b WHERE b.documentId = :documentId")
+    int deleteByDocumentId(@Param("documentId") Long documentId);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO document_text_block (document_id, block_index, data)
+            SELECT :targetId, b.block_index, b.data
+            FROM document_text_block b WHERE b.document_id = :sourceId
+            """, nativeQuery = true)
+    int copyBlocks(@Param("sourceId") Long sourceId, @Param("targetId") Long targetId);
+}
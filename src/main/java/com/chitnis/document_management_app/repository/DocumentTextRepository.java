@@ -0,0 +1,25 @@
+package com.chitnis.document_management_app.repository;
+import com.chitnis.document_management_app.entity.DocumentText;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface DocumentTextRepository extends JpaRepository<DocumentText, Long> {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DocumentText t WHERE t.documentId = :documentId")
+    int deleteByDocumentId(@Param("documentId") Long documentId);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO document_text (document_id, char_length, block_offsets, page_offsets, created_at)
+            SELECT :targetId, t.char_length, t.block_offsets, t.page_offsets, CURRENT_TIMESTAMP
+            FROM document_text t WHERE t.document_id = :sourceId
+            """, nativeQuery = true)
+    int copyText(@Param("sourceId") Long sourceId, @Param("targetId") Long targetId);
+}
@@ -0,0 +1,7 @@
+package com.chitnis.document_management_app.repository;
+
+import com.chitnis.document_management_app.entity.EmbeddingCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface EmbeddingCacheRepository extends JpaRepository<EmbeddingCacheEntry, String> {
+}
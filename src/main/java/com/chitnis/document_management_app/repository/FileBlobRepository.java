@@ -0,0 +1,54 @@
+package com.chitnis.document_management_app.repository;
+
+import com.chitnis.document_management_app.entity.FileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Reference counts are only changed through the single-statement updates below, so nodes
+ * sharing one database and blob store cannot overwrite each other's changes.
+ */
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+
+    List<FileBlob> findByStoredFilePathContaining(String fragment);
+
+    /**
+     * @return 1 if the blob exists and gained a reference, 0 if it does not exist
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount + 1 WHERE b.contentHash = :hash")
+    int incrementRefCount(@Param("hash") String hash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount - 1 WHERE b.contentHash = :hash AND b.refCount > 0")
+    int decrementRefCount(@Param("hash") String hash);
+
+    /**
+     * @return 1 if this call deleted the row, 0 if it is gone or still referenced
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FileBlob b WHERE b.contentHash = :hash AND b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+
+    /**
+     * Point a blob whose file went missing at a freshly stored copy and add a reference.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileBlob b SET b.storedFilePath = :path, b.sizeInBytes = :size, b.refCount = b.refCount + 1 "
+            + "WHERE b.contentHash = :hash")
+    int repointAndReference(@Param("hash") String hash, @Param("path") String path, @Param("size") long size);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileBlob b SET b.storedFilePath = :path WHERE b.contentHash = :hash")
+    int updateStoredFilePath(@Param("hash") String hash, @Param("path") String path);
+}
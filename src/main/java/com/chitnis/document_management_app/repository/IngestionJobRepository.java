@@ -0,0 +1,39 @@
+package com.chitnis.document_management_app.repository;
+import com.chitnis.document_management_app.entity.DocumentStatus;
+import com.chitnis.document_management_app.entity.IngestionJob;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface IngestionJobRepository extends JpaRepository<IngestionJob, Long> {
+    Optional<IngestionJob> findByDocumentId(Long documentId);
+
+    List<IngestionJob> findByStatusIn(Collection<DocumentStatus> statuses);
+
+    /**
+     * Reset a finished job to {@code QUEUED}, unless it is already in one of {@code activeStages}.
+     *
+     * @return 1 if this call re-queued the job, 0 if another request got there first
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IngestionJob j SET j.status = com.chitnis.document_management_app.entity.DocumentStatus.QUEUED, "
+            + "j.chunksDone = 0, j.chunksTotal = 0, j.attempts = 0, j.lastError = NULL, j.updatedAt = :now "
+            + "WHERE j.documentId = :documentId AND j.status NOT IN :activeStages")
+    int requeue(@Param("documentId") Long documentId,
+                @Param("activeStages") Collection<DocumentStatus> activeStages,
+                @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IngestionJob j WHERE j.documentId = :documentId")
+    void deleteByDocumentId(@Param("documentId") Long documentId);
+}
@@ -0,0 +1,7 @@
+package com.chitnis.document_management_app.repository;
+
+import com.chitnis.document_management_app.entity.SummaryCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SummaryCacheRepository extends JpaRepository<SummaryCacheEntry, String> {
+}
@@ -0,0 +1,127 @@
+package com.chitnis.document_management_app.security;
+
+import com.chitnis.document_management_app.service.JwtService;
+import com.chitnis.document_management_app.service.UserService;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns a bearer token into the user it was issued to.
+ *
+ * A token seen for the first time is verified once and its user loaded from the database;
+ * the result is cached under the token for {@code app.auth.principal-cache.ttl}, but never
+ * past the token's own expiry. Polling clients that send the same token every few seconds
+ * therefore cost neither an HMAC check nor a {@code users} query per request. Account
+ * changes reach cached principals within the TTL.
+ *
+ * Time spent is recorded in {@code auth.jwt.duration}, tagged {@code cached},
+ * {@code verified} or {@code rejected}.
+ */
+@Component
+public class JwtAuthenticator {
+
+    private final JwtService jwtService;
+    private final UserService userService;
+    private final Cache<String, CachedPrincipal> cache;
+    private final boolean enabled;
+    private final Timer cachedTimer;
+    private final Timer verifiedTimer;
+    private final Timer rejectedTimer;
+
+    public JwtAuthenticator(JwtService jwtService,
+                            UserService userService,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.auth.principal-cache.enabled:true}") boolean enabled,
+                            @Value("${app.auth.principal-cache.max-entries:10000}") long maxEntries,
+                            @Value("${app.auth.principal-cache.ttl:PT60S}") Duration ttl) {
+        this.jwtService = jwtService;
+        this.userService = userService;
+        this.enabled = enabled;
+        long ttlNanos = ttl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, CachedPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String token, CachedPrincipal principal, long currentTime) {
+                        long untilExpiry = Duration.ofMillis(principal.expiresAtMillis - System.currentTimeMillis()).toNanos();
+                        return Math.max(0, Math.min(ttlNanos, untilExpiry));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, CachedPrincipal principal, long currentTime, long currentDuration) {
+                        return expireAfterCreate(token, principal, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, CachedPrincipal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.principals");
+        this.cachedTimer = timer(meterRegistry, "cached");
+        this.verifiedTimer = timer(meterRegistry, "verified");
+        this.rejectedTimer = timer(meterRegistry, "rejected");
+    }
+
+    /**
+     * @return The token's user, or {@code null} if the token is invalid, expired, or names
+     *         an unknown user
+     */
+    public UserDetails authenticate(String token) {
+        long start = System.nanoTime();
+        if (enabled) {
+            CachedPrincipal cached = cache.getIfPresent(token);
+            // The cache may hold an entry a little past its expiry until it is cleaned up
+            if (cached != null && cached.expiresAtMillis > System.currentTimeMillis()) {
+                cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return cached.user;
+            }
+        }
+
+        try {
+            Claims claims = jwtService.parse(token);
+            UserDetails user = userService.loadUserByUsername(claims.getSubject());
+            if (enabled && claims.getExpiration() != null) {
+                cache.put(token, new CachedPrincipal(user, claims.getExpiration().getTime()));
+            }
+            verifiedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return user;
+        } catch (JwtException | IllegalArgumentException | UsernameNotFoundException ex) {
+            rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return null;
+        }
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("auth.jwt.duration")
+                .description("Time to authenticate a bearer token")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class CachedPrincipal {
+        private final UserDetails user;
+        private final long expiresAtMillis;
+
+        CachedPrincipal(UserDetails user, long expiresAtMillis) {
+            this.user = user;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.entity.FileBlob;
+import com.chitnis.document_management_app.repository.DocumentRepository;
+import com.chitnis.document_management_app.repository.FileBlobRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves blobs stored flat in {@code app.upload-dir} before the {@link BlobStore} existed into
+ * the store, and points their rows and documents at the new key.
+ *
+ * Runs once at startup and is a no-op once every blob row holds a key. Documents that were
+ * never hashed are left to {@link ContentHashBackfill}, which moves their files when it
+ * adopts them.
+ */
+@Component
+public class BlobLayoutMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobLayoutMigration.class);
+
+    private final FileBlobRepository fileBlobRepository;
+    private final DocumentRepository documentRepository;
+    private final BlobService blobService;
+
+    @Value("${app.storage.layout-migration.enabled:true}")
+    private boolean enabled;
+
+    public BlobLayoutMigration(FileBlobRepository fileBlobRepository,
+                               DocumentRepository documentRepository,
+                               BlobService blobService) {
+        this.fileBlobRepository = fileBlobRepository;
+        this.documentRepository = documentRepository;
+        this.blobService = blobService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        List<FileBlob> legacy = new ArrayList<>(fileBlobRepository.findByStoredFilePathContaining("/"));
+        legacy.addAll(fileBlobRepository.findByStoredFilePathContaining("\\"));
+        if (legacy.isEmpty()) {
+            return;
+        }
+
+        log.info("Moving {} stored files into the blob store", legacy.size());
+        int moved = 0;
+        for (FileBlob blob : legacy) {
+            try {
+                String key = blobService.migrate(blob);
+                if (key == null) {
+                    log.warn("Stored file {} of blob {} is missing; leaving it", blob.getStoredFilePath(), blob.getContentHash());
+                    continue;
+                }
+                documentRepository.updateStoredFileByContentHash(blob.getContentHash(), key);
+                moved++;
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Could not move blob {}: {}", blob.getContentHash(), ex.toString());
+            }
+        }
+        log.info("Moved {} stored files into the blob store", moved);
+    }
+}
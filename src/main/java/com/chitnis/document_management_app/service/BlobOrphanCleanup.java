@@ -0,0 +1,49 @@
+package com.chitnis.document_management_app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Deletes stored blobs that no {@code file_blobs} row refers to, once at startup. They are
+ * left behind when a node stops between writing a blob and saving its row.
+ */
+@Component
+public class BlobOrphanCleanup {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobOrphanCleanup.class);
+
+    private final BlobService blobService;
+
+    @Value("${app.storage.orphan-cleanup.enabled:true}")
+    private boolean enabled;
+
+    // Uploads on other nodes sharing the store may be between writing a blob and saving its row
+    @Value("${app.storage.orphan-cleanup.min-age:PT24H}")
+    private Duration minAge;
+
+    public BlobOrphanCleanup(BlobService blobService) {
+        this.blobService = blobService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cleanUp() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = blobService.deleteOrphans(minAge);
+            if (deleted > 0) {
+                log.info("Deleted {} orphaned blobs", deleted);
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Orphaned blob cleanup failed: {}", ex.toString());
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.entity.FileBlob;
+import com.chitnis.document_management_app.repository.FileBlobRepository;
+import com.chitnis.document_management_app.util.Sha256;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed storage for uploaded files.
+ *
+ * Uploads are hashed with SHA-256 while they are written to a temporary file in the store's
+ * staging directory. Content that is already stored is discarded and the existing blob gains
+ * a reference; new content is put into the {@link BlobStore} under the key
+ * {@code <hash><extension>}, which is what {@code stored_file_path} holds. A blob is deleted
+ * when its last reference is released.
+ *
+ * Documents stored before the blob store have an OS path in {@code stored_file_path} instead
+ * of a key; they are still read from that path until {@link BlobLayoutMigration} or
+ * {@link ContentHashBackfill} moves them into the store.
+ *
+ * Several nodes may share the database and the store, so reference counts only change
+ * through atomic updates in {@link FileBlobRepository}; no JVM-local lock is relied on.
+ */
+@Service
+public class BlobService {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobService.class);
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    private final FileBlobRepository fileBlobRepository;
+    private final BlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+
+    public BlobService(FileBlobRepository fileBlobRepository, BlobStore blobStore,
+                       PlatformTransactionManager transactionManager) {
+        this.fileBlobRepository = fileBlobRepository;
+        this.blobStore = blobStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Store an upload, or add a reference to the blob that already holds the same bytes.
+     *
+     * @param content Upload stream; read to the end but not closed
+     * @param extension File extension including the dot, or empty
+     * @return The blob now referenced by the caller
+     */
+    public FileBlob store(InputStream content, String extension) throws IOException {
+        return store(content, extension, Long.MAX_VALUE, new byte[0]);
+    }
+
+    /**
+     * Like {@link #store(InputStream, String)}, checking the upload in the same pass that
+     * hashes and writes it: reading stops as soon as it outgrows {@code maxBytes} or its
+     * first bytes differ from {@code magic}, and nothing rejected reaches the store.
+     *
+     * @throws MaxUploadSizeExceededException if the upload is larger than {@code maxBytes}
+     * @throws IllegalArgumentException if the upload does not start with {@code magic}
+     */
+    public FileBlob store(InputStream content, String extension, long maxBytes, byte[] magic) throws IOException {
+        MessageDigest digest = Sha256.newDigest();
+        Path temp = Files.createTempFile(blobStore.stagingDirectory(), ".upload-", ".tmp");
+        try {
+            long size = write(content, temp, digest, maxBytes, magic);
+            String hash = Sha256.hex(digest);
+            return reference(hash, hash + normalizeExtension(extension), size, temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Register a file stored before content addressing. If the same bytes are already a blob,
+     * that blob gains a reference; otherwise the file is moved into the store. Either way the
+     * caller should repoint its document at the returned blob and delete {@code file} if it
+     * is still there.
+     */
+    public FileBlob adopt(Path file) throws IOException {
+        MessageDigest digest = Sha256.newDigest();
+        long size;
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            size = in.transferTo(OutputStream.nullOutputStream());
+        }
+        String hash = Sha256.hex(digest);
+        String fileName = file.getFileName().toString();
+        String key = hash + normalizeExtension(fileName.contains(".") ? fileName.substring(fileName.lastIndexOf('.')) : "");
+        return reference(hash, key, size, file);
+    }
+
+    /**
+     * Move a blob still stored at a legacy OS path into the store.
+     *
+     * @return The blob's key, or {@code null} if its file is missing
+     */
+    public String migrate(FileBlob blob) throws IOException {
+        Path file = Paths.get(blob.getStoredFilePath());
+        if (!Files.exists(file)) {
+            return null;
+        }
+        String fileName = file.getFileName().toString();
+        String key = blob.getContentHash()
+                + normalizeExtension(fileName.contains(".") ? fileName.substring(fileName.lastIndexOf('.')) : "");
+        blobStore.put(key, file);
+        // Only the path changes; the reference count may be moving on another node
+        fileBlobRepository.updateStoredFilePath(blob.getContentHash(), key);
+        return key;
+    }
+
+    /**
+     * Drop one reference to a blob, deleting it once nothing refers to it.
+     */
+    public void release(String contentHash) {
+        transactionTemplate.executeWithoutResult(status -> {
+            fileBlobRepository.decrementRefCount(contentHash);
+            FileBlob blob = fileBlobRepository.findById(contentHash).orElse(null);
+            if (blob == null || blob.getRefCount() > 0 || fileBlobRepository.deleteIfUnreferenced(contentHash) == 0) {
+                return;
+            }
+            // Deleted while this transaction still locks the row: a concurrent reference() on
+            // another node waits for it, finds no row and puts its own copy afterwards
+            try {
+                delete(blob.getStoredFilePath());
+            } catch (IOException ex) {
+                log.warn("Could not delete blob {}: {}", blob.getStoredFilePath(), ex.toString());
+            }
+        });
+    }
+
+    /**
+     * Whether the file behind a {@code stored_file_path} value exists.
+     */
+    public boolean exists(String storedFilePath) throws IOException {
+        return isKey(storedFilePath) ? blobStore.exists(storedFilePath) : Files.exists(Paths.get(storedFilePath));
+    }
+
+    /**
+     * A local file with the contents behind a {@code stored_file_path} value, to be closed
+     * once it has been read.
+     *
+     * @throws java.nio.file.NoSuchFileException if it is missing
+     */
+    public BlobStore.LocalFile localFile(String storedFilePath) throws IOException {
+        if (isKey(storedFilePath)) {
+            return blobStore.localFile(storedFilePath);
+        }
+        Path file = Paths.get(storedFilePath);
+        if (!Files.exists(file)) {
+            throw new NoSuchFileException(storedFilePath);
+        }
+        return new BlobStore.LocalFile(file, false, () -> { });
+    }
+
+    /**
+     * Delete the file behind a {@code stored_file_path} value that no blob row tracks.
+     */
+    public void delete(String storedFilePath) throws IOException {
+        if (isKey(storedFilePath)) {
+            blobStore.delete(storedFilePath);
+        } else {
+            Files.deleteIfExists(Paths.get(storedFilePath));
+        }
+    }
+
+    /**
+     * Delete stored blobs that no row refers to, such as files left by a node that died
+     * between writing a blob and saving its row. Blobs younger than {@code minAge} are left
+     * alone so uploads in flight are not touched; so are staging files.
+     *
+     * @return Number of blobs deleted
+     */
+    public int deleteOrphans(Duration minAge) throws IOException {
+        Instant cutoff = Instant.now().minus(minAge);
+        List<String> candidates = new ArrayList<>();
+        blobStore.forEach(stored -> {
+            if (stored.getLastModified().isBefore(cutoff)) {
+                candidates.add(stored.getKey());
+            }
+        });
+
+        int deleted = 0;
+        for (String key : candidates) {
+            String hash = key.length() >= 64 ? key.substring(0, 64) : key;
+            boolean referenced = fileBlobRepository.findById(hash)
+                    .map(blob -> key.equals(blob.getStoredFilePath()))
+                    .orElse(false);
+            if (!referenced) {
+                blobStore.delete(key);
+                deleted++;
+            }
+        }
+
+        try (Stream<Path> staged = Files.list(blobStore.stagingDirectory())) {
+            for (Path file : (Iterable<Path>) staged::iterator) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Keys are flat names; anything with a directory separator is a legacy OS path.
+     */
+    static boolean isKey(String storedFilePath) {
+        return storedFilePath.indexOf('/') < 0 && storedFilePath.indexOf('\\') < 0;
+    }
+
+    /**
+     * Add a reference to the blob holding {@code hash}, putting {@code source} into the store
+     * under {@code key} if no stored copy exists. Loops because another node may create or
+     * delete the row between any two statements; each pass re-reads it.
+     */
+    private FileBlob reference(String hash, String key, long size, Path source) throws IOException {
+        boolean put = false;
+        while (true) {
+            Optional<FileBlob> existing = fileBlobRepository.findById(hash);
+            if (existing.isPresent() && exists(existing.get().getStoredFilePath())) {
+                if (fileBlobRepository.incrementRefCount(hash) == 1) {
+                    log.info("Content matches stored blob {}; reusing it", hash);
+                    return fileBlobRepository.findById(hash).orElse(existing.get());
+                }
+                // Released and deleted since it was read
+                continue;
+            }
+
+            if (!put) {
+                blobStore.put(key, source);
+                put = true;
+            }
+            if (existing.isPresent()) {
+                // A row whose file went missing is repointed instead of recreated
+                if (fileBlobRepository.repointAndReference(hash, key, size) == 1) {
+                    return fileBlobRepository.findById(hash).orElseThrow();
+                }
+            } else {
+                try {
+                    return fileBlobRepository.saveAndFlush(new FileBlob(hash, key, size));
+                } catch (DataIntegrityViolationException ex) {
+                    // Another node stored the same content first
+                }
+            }
+        }
+    }
+
+    // Extensions come from client file names and end up in keys
+    private static String normalizeExtension(String extension) {
+        return extension != null && extension.matches("\\.[A-Za-z0-9]{1,10}") ? extension.toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * Copy {@code content} into {@code target}, feeding {@code digest} and checking the
+     * size and leading bytes as it goes.
+     *
+     * @return Number of bytes written
+     */
+    private static long write(InputStream content, Path target, MessageDigest digest,
+                              long maxBytes, byte[] magic) throws IOException {
+        byte[] chunk = new byte[COPY_BUFFER_BYTES];
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        long size = 0;
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int read;
+            while ((read = content.read(chunk)) != -1) {
+                if (size < magic.length && !startsWith(chunk, read, size, magic)) {
+                    throw new IllegalArgumentException("File content does not match its declared type.");
+                }
+                size += read;
+                if (size > maxBytes) {
+                    throw new MaxUploadSizeExceededException(maxBytes);
+                }
+                digest.update(chunk, 0, read);
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+        }
+        if (size < magic.length) {
+            throw new IllegalArgumentException("File content does not match its declared type.");
+        }
+        return size;
+    }
+
+    /**
+     * Whether {@code chunk}, holding the upload from byte {@code offset}, agrees with the
+     * part of {@code magic} it covers.
+     */
+    private static boolean startsWith(byte[] chunk, int read, long offset, byte[] magic) {
+        int from = (int) offset;
+        int count = Math.min(read, magic.length - from);
+        return Arrays.equals(chunk, 0, count, magic, from, from + count);
+    }
+}
@@ -0,0 +1,107 @@
+package com.chitnis.document_management_app.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Where uploaded files are kept, addressed by key.
+ *
+ * Keys are flat names such as {@code <sha256>.pdf}; each store decides how to lay them out.
+ * Writes are all or nothing: a reader sees either no blob or the complete one.
+ */
+public interface BlobStore {
+
+    /**
+     * Directory for files that are about to be {@link #put}. It is on the same file system as
+     * the store where there is one, so {@code put} can rename instead of copying.
+     */
+    Path stagingDirectory() throws IOException;
+
+    /**
+     * Store the contents of {@code source} under {@code key}, replacing any blob already
+     * there. {@code source} is consumed: it is moved into the store or deleted afterwards.
+     */
+    void put(String key, Path source) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    /**
+     * A local file holding the blob, for readers that need random access or a file handle.
+     * Remote stores download a copy on first use and reuse it afterwards, which is safe
+     * because blob contents never change under a key. Close the result once the file has been
+     * opened or read; a cached copy may be evicted after that.
+     *
+     * @throws java.nio.file.NoSuchFileException if there is no such blob
+     */
+    LocalFile localFile(String key) throws IOException;
+
+    /**
+     * Delete a blob; unknown keys are ignored.
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Visit every stored blob, for orphan cleanup.
+     */
+    void forEach(Consumer<StoredBlob> action) throws IOException;
+
+    /**
+     * A file returned by {@link #localFile}, kept in place until it is closed.
+     */
+    class LocalFile implements Closeable {
+        private final Path path;
+        private final boolean cached;
+        private final Runnable release;
+        private boolean closed;
+
+        public LocalFile(Path path, boolean cached, Runnable release) {
+            this.path = path;
+            this.cached = cached;
+            this.release = release;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * Whether this is a cached copy that may be deleted once closed, so anything that
+         * opens it after {@link #close} (such as container sendfile) could find it gone.
+         */
+        public boolean isCached() {
+            return cached;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release.run();
+            }
+        }
+    }
+
+    class StoredBlob {
+        private final String key;
+        private final Instant lastModified;
+
+        public StoredBlob(String key, Instant lastModified) {
+            this.key = key;
+            this.lastModified = lastModified;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Instant getLastModified() {
+            return lastModified;
+        }
+    }
+}
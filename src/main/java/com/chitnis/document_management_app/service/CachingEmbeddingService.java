@@ -0,0 +1,239 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.entity.EmbeddingCacheEntry;
+import com.chitnis.document_management_app.repository.EmbeddingCacheRepository;
+import com.chitnis.document_management_app.util.Sha256;
+import com.chitnis.document_management_app.util.VectorCodec;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Two-tier cache in front of the embedding provider.
+ *
+ * Embeddings are keyed by model name and the SHA-256 of the whitespace-normalized text. The
+ * first tier is an in-process Caffeine cache, the second the {@code embedding_cache} table,
+ * so repeated chunks and questions survive restarts without another provider call. Identical
+ * texts within one batch are sent to the provider once. Stand-in vectors returned while the
+ * provider is unavailable are passed through but never cached. New entries are written in their
+ * own transaction, so a key stored concurrently by another request cannot fail the caller's.
+ *
+ * Hits and misses are counted in {@code embedding.cache.requests}, tagged by tier.
+ */
+@Service
+@Primary
+public class CachingEmbeddingService implements EmbeddingService {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingEmbeddingService.class);
+
+    private final EmbeddingService delegate;
+    private final EmbeddingCacheRepository embeddingCacheRepository;
+    private final TransactionTemplate storeTransaction;
+    private final Cache<String, float[]> memory;
+    private final boolean persistent;
+    private final Counter memoryHits;
+    private final Counter storeHits;
+    private final Counter misses;
+
+    public CachingEmbeddingService(@Qualifier("jinaEmbeddingService") EmbeddingService delegate,
+                                   EmbeddingCacheRepository embeddingCacheRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.embedding-cache.max-entries:20000}") long maxEntries,
+                                   @Value("${app.embedding-cache.persistent:true}") boolean persistent) {
+        this.delegate = delegate;
+        this.embeddingCacheRepository = embeddingCacheRepository;
+        this.storeTransaction = new TransactionTemplate(transactionManager);
+        this.storeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.persistent = persistent;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "embedding.memory");
+        this.memoryHits = counter(meterRegistry, "memory");
+        this.storeHits = counter(meterRegistry, "store");
+        this.misses = counter(meterRegistry, "miss");
+    }
+
+    @Override
+    public List<Double> embed(String text) {
+        return embedAll(List.of(text == null ? "" : text)).get(0);
+    }
+
+    @Override
+    public List<List<Double>> embedAll(List<String> texts) {
+        List<List<Double>> embeddings = new ArrayList<>(Collections.nCopies(texts.size(), null));
+        String model = delegate.getModelName();
+
+        // 1. In-memory tier; remaining positions are grouped by key so duplicates embed once
+        Map<String, List<Integer>> pending = new LinkedHashMap<>();
+        Map<String, String> pendingText = new LinkedHashMap<>();
+        List<Integer> blank = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            if (text == null || text.isBlank()) {
+                blank.add(i);
+                continue;
+            }
+            String key = model + ":" + Sha256.hex(normalize(text));
+            float[] cached = memory.getIfPresent(key);
+            if (cached != null) {
+                embeddings.set(i, toList(cached));
+                memoryHits.increment();
+                continue;
+            }
+            pending.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            pendingText.putIfAbsent(key, text);
+        }
+
+        // 2. Database tier
+        if (persistent && !pending.isEmpty()) {
+            for (EmbeddingCacheEntry entry : findStored(pending.keySet())) {
+                List<Integer> positions = pending.remove(entry.getCacheKey());
+                if (positions == null) {
+                    continue;
+                }
+                float[] vector = VectorCodec.decode(entry.getEmbedding());
+                memory.put(entry.getCacheKey(), vector);
+                for (int position : positions) {
+                    embeddings.set(position, toList(vector));
+                }
+                storeHits.increment(positions.size());
+            }
+        }
+        if (pending.isEmpty() && blank.isEmpty()) {
+            return embeddings;
+        }
+
+        // 3. Provider, for each distinct missing text plus blanks (which it answers locally)
+        List<String> keys = new ArrayList<>(pending.keySet());
+        List<String> inputs = new ArrayList<>(keys.size() + blank.size());
+        keys.forEach(key -> inputs.add(pendingText.get(key)));
+        blank.forEach(position -> inputs.add(texts.get(position) == null ? "" : texts.get(position)));
+        List<List<Double>> computed = delegate.embedAll(inputs);
+
+        List<EmbeddingCacheEntry> toStore = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            List<Double> embedding = computed.get(i);
+            List<Integer> positions = pending.get(key);
+            for (int position : positions) {
+                embeddings.set(position, embedding);
+            }
+            misses.increment(positions.size());
+            if (delegate.isModelOutput(embedding)) {
+                float[] vector = VectorCodec.toFloatArray(embedding);
+                memory.put(key, vector);
+                toStore.add(new EmbeddingCacheEntry(key, model, key.substring(model.length() + 1),
+                        VectorCodec.encode(vector)));
+            }
+        }
+        for (int i = 0; i < blank.size(); i++) {
+            embeddings.set(blank.get(i), computed.get(keys.size() + i));
+        }
+
+        if (persistent && !toStore.isEmpty()) {
+            store(toStore);
+        }
+        return embeddings;
+    }
+
+    @Override
+    public int getDimension() {
+        return delegate.getDimension();
+    }
+
+    @Override
+    public String getModelName() {
+        return delegate.getModelName();
+    }
+
+    @Override
+    public boolean isModelOutput(List<Double> embedding) {
+        return delegate.isModelOutput(embedding);
+    }
+
+    @Override
+    public boolean isModelConfigured() {
+        return delegate.isModelConfigured();
+    }
+
+    private List<EmbeddingCacheEntry> findStored(Iterable<String> keys) {
+        try {
+            return embeddingCacheRepository.findAllById(keys);
+        } catch (DataAccessException ex) {
+            log.warn("Embedding cache lookup failed, embedding without it: {}", ex.toString());
+            return List.of();
+        }
+    }
+
+    private void store(List<EmbeddingCacheEntry> entries) {
+        try {
+            // Flushed here so a duplicate key fails this transaction, not the caller's at commit
+            storeTransaction.executeWithoutResult(status -> {
+                embeddingCacheRepository.saveAll(entries);
+                embeddingCacheRepository.flush();
+            });
+        } catch (DataAccessException | TransactionException ex) {
+            // Usually a concurrent request stored the same text first; the cache is best-effort
+            log.debug("Could not store {} embeddings in the cache: {}", entries.size(), ex.toString());
+        }
+    }
+
+    /**
+     * Collapse whitespace runs and trim, so layout differences in extracted text share an entry.
+     */
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = !normalized.isEmpty();
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            normalized.append(c);
+        }
+        return normalized.toString();
+    }
+
+    private static List<Double> toList(float[] vector) {
+        List<Double> list = new ArrayList<>(vector.length);
+        for (float value : vector) {
+            list.add((double) value);
+        }
+        return list;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("embedding.cache.requests")
+                .description("Embedding lookups by the tier that answered them")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
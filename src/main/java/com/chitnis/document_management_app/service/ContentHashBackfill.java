@@ -0,0 +1,77 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.entity.Document;
+import com.chitnis.document_management_app.entity.FileBlob;
+import com.chitnis.document_management_app.repository.DocumentRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Hashes files uploaded before content addressing and moves them into the blob store, so
+ * existing copies of the same PDF collapse into one blob and later re-uploads can reuse their
+ * text.
+ */
+@Component
+public class ContentHashBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentHashBackfill.class);
+
+    private final DocumentRepository documentRepository;
+    private final BlobService blobService;
+
+    @Value("${app.storage.hash-backfill.enabled:true}")
+    private boolean enabled;
+
+    public ContentHashBackfill(DocumentRepository documentRepository, BlobService blobService) {
+        this.documentRepository = documentRepository;
+        this.blobService = blobService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> ids = documentRepository.findIdsWithoutContentHash();
+        if (ids.isEmpty()) {
+            return;
+        }
+        log.info("Hashing {} stored files for content deduplication", ids.size());
+        int merged = 0;
+        for (Long id : ids) {
+            Document document = documentRepository.findById(id).orElse(null);
+            if (document == null || document.getStoredFilePath() == null) {
+                continue;
+            }
+            Path file = Paths.get(document.getStoredFilePath());
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try {
+                FileBlob blob = blobService.adopt(file);
+                // Only these columns change, so a concurrent ingestion of the document is not overwritten
+                documentRepository.updateStoredFile(id, blob.getContentHash(), blob.getStoredFilePath());
+                // Same bytes as a file that is already a blob: this copy is no longer referenced
+                if (Files.deleteIfExists(file)) {
+                    merged++;
+                }
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Could not hash file of document {}: {}", id, ex.toString());
+            }
+        }
+        if (merged > 0) {
+            log.info("Removed {} duplicate stored files", merged);
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package com.chitnis.document_management_app.service;
 import com.chitnis.document_management_app.ai.AiClient;
-import com.chitnis.document_management_app.util.VectorUtils;
+import com.chitnis.document_management_app.util.ContextPacker;
+import com.chitnis.document_management_app.util.SimilarityKernels;
+import com.chitnis.document_management_app.util.VectorCodec;
 import com.chitnis.document_management_app.dto.DocumentQaResponse;
 import com.chitnis.document_management_app.dto.MultiDocumentQaResponse;
 import com.chitnis.document_management_app.repository.DocumentChunkRepository;
 import com.chitnis.document_management_app.repository.DocumentRepository;
 import com.chitnis.document_management_app.entity.DocumentChunk;
-import com.chitnis.document_management_app.entity.Document;
 
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,72 +31,160 @@ public class DocumentQaService {
     private final DocumentChunkRepository documentChunkRepository;
     private final EmbeddingService embeddingService;
     private final AiClient aiClient;
+    private final DocumentVectorIndexCache vectorIndexCache;
+    private final QaAnswerCache answerCache;
+    private final DocumentTextStore textStore;
+
+    @Value("${app.qa.top-k:10}")
+    private int topK;
+
+    @Value("${app.qa.context-tokens:2000}")
+    private int contextTokens;
+
+    @Value("${app.qa.multi.top-k:12}")
+    private int multiTopK;
+
+    @Value("${app.qa.multi.max-chunks-per-document:4}")
+    private int maxChunksPerDocument;
+
+    @Value("${app.qa.multi.context-tokens:2500}")
+    private int multiContextTokens;
 
     public DocumentQaService(DocumentRepository documentRepository,
                              DocumentChunkRepository documentChunkRepository,
                              EmbeddingService embeddingService,
-                             AiClient aiClient) {
+                             AiClient aiClient,
+                             DocumentVectorIndexCache vectorIndexCache,
+                             QaAnswerCache answerCache,
+                             DocumentTextStore textStore) {
         this.documentRepository = documentRepository;
         this.documentChunkRepository = documentChunkRepository;
         this.embeddingService = embeddingService;
         this.aiClient = aiClient;
+        this.vectorIndexCache = vectorIndexCache;
+        this.answerCache = answerCache;
+        this.textStore = textStore;
     }
 
     public DocumentQaResponse answerQuestion(Long documentId, String question) {
+        return answer(documentId, question, null);
+    }
+
+    /**
+     * Like {@link #answerQuestion}, but hands the answer to {@code onToken} as the model
+     * produces it. A cached answer is handed over in one piece.
+     */
+    public DocumentQaResponse streamAnswer(Long documentId, String question, Consumer<String> onToken) {
+        return answer(documentId, question, onToken);
+    }
+
+    /**
+     * @param onToken Receives the answer as it streams, or {@code null} to wait for the whole answer
+     */
+    private DocumentQaResponse answer(Long documentId, String question, Consumer<String> onToken) {
         if (question == null || question.isBlank()) {
             throw new IllegalArgumentException("Question must not be empty.");
         }
 
-        Document document = documentRepository.findById(documentId)
-                .orElseThrow(() -> new EntityNotFoundException("Document not found: " + documentId));
+        if (!documentRepository.existsById(documentId)) {
+            throw new EntityNotFoundException("Document not found: " + documentId);
+        }
 
-        if (document.getRawText() == null || document.getRawText().isBlank()) {
+        if (!textStore.hasText(documentId)) {
             throw new IllegalStateException("Text has not been extracted for document " + documentId);
         }
 
-        // Use vector search to find relevant chunks
-        List<DocumentChunk> chunks = documentChunkRepository.findByDocumentIdOrderByChunkIndexAsc(documentId);
+        // Use the cached vector index to find relevant chunks
+        DocumentVectorIndex index = vectorIndexCache.get(documentId);
 
-        if (chunks.isEmpty()) {
-            // Fallback to full text if no chunks available
-            String answer = aiClient.answerQuestion(document.getRawText(), question);
-            String snippet = buildSnippet(document.getRawText(), question);
-            return new DocumentQaResponse(documentId, question, answer, snippet);
+        // The same question about the same chunks was answered before
+        QaAnswerCache.CachedAnswer cached = answerCache.get(documentId, index.getVersion(), question);
+        if (cached != null) {
+            return fromCache(documentId, question, cached, onToken);
+        }
+
+        // 1. Embed the question. Chunks embedded by a model with another dimension cannot be
+        // scored against it, so they are treated like no chunks until the document is re-embedded
+        float[] questionVector = index.isEmpty() ? null : VectorCodec.toFloatArray(embeddingService.embed(question));
+        if (questionVector != null && questionVector.length != index.getDimension()) {
+            questionVector = null;
         }
 
-        // 1. Embed the question
-        List<Double> questionVector = embeddingService.embed(question);
+        ContextPacker packer = new ContextPacker(aiClient.getTokenEstimator(), contextTokens);
+        if (questionVector == null) {
+            // Fallback to the opening of the full text if no usable chunks are available
+            answerCache.recordMiss();
+            String window = Objects.requireNonNullElse(
+                    textStore.readWindow(documentId, 0, aiClient.getTokenEstimator().maxCharsFor(contextTokens)), "");
+            String opening = Objects.requireNonNullElse(packer.addPrefix(window), "");
+            String answer = onToken == null
+                    ? aiClient.answerQuestion(opening, question)
+                    : aiClient.streamAnswer(opening, question, onToken);
+            String snippet = buildSnippet(window, question);
+            answerCache.put(documentId, index.getVersion(), question, null, answer, snippet);
+            return new DocumentQaResponse(documentId, question, answer, snippet);
+        }
 
-        // 2. Compute similarity for each chunk
-        List<ScoredChunk> scoredChunks = new java.util.ArrayList<>();
-        for (DocumentChunk chunk : chunks) {
-            List<Double> chunkVector = VectorUtils.parseJsonToVector(chunk.getEmbedding());
-            double score = VectorUtils.cosineSimilarity(questionVector, chunkVector);
-            scoredChunks.add(new ScoredChunk(chunk, score));
+        // A close enough earlier question can reuse its answer
+        float[] normalizedQuestion = SimilarityKernels.normalize(questionVector.clone());
+        cached = answerCache.findSimilar(documentId, index.getVersion(), normalizedQuestion);
+        if (cached != null) {
+            return fromCache(documentId, question, cached, onToken);
         }
 
-        // 3. Sort by similarity score (highest first)
-        scoredChunks.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+        // 2. Score every chunk against the question and keep the best topK as candidates
+        List<DocumentVectorIndex.Match> matches = index.search(questionVector, topK);
 
-        // 4. Take top 5 chunks
-        List<DocumentChunk> topChunks = scoredChunks.stream()
-                .limit(5)
-                .map(ScoredChunk::getChunk)
-                .toList();
+        // 3. Fetch text only for the candidates, preserving score order
+        List<DocumentChunk> candidates = loadChunksInOrder(matches);
 
-        // 5. Build context from top chunks
-        StringBuilder context = new StringBuilder();
-        for (DocumentChunk chunk : topChunks) {
-            context.append(chunk.getText()).append("\n\n");
+        // 4. Pack candidates best first until the token budget is used, skipping repeated sentences
+        List<DocumentChunk> topChunks = new ArrayList<>(candidates.size());
+        List<String> passages = new ArrayList<>(candidates.size());
+        for (DocumentChunk chunk : candidates) {
+            String passage = packer.tryAdd(chunk.getText());
+            if (passage != null) {
+                topChunks.add(chunk);
+                passages.add(passage);
+            }
+        }
+        StringBuilder context = new StringBuilder(packer.usedChars() + passages.size() * 2);
+        for (String passage : passages) {
+            context.append(passage).append("\n\n");
         }
 
-        // 6. Call AI with context + question
-        String answer = aiClient.answerQuestion(context.toString(), question);
+        // 5. Call AI with context + question
+        String answer = onToken == null
+                ? aiClient.answerQuestion(context, question)
+                : aiClient.streamAnswer(context, question, onToken);
         String snippet = buildSnippetFromChunks(topChunks);
+        answerCache.put(documentId, index.getVersion(), question, normalizedQuestion, answer, snippet);
 
         return new DocumentQaResponse(documentId, question, answer, snippet);
     }
 
+    private static DocumentQaResponse fromCache(Long documentId, String question, QaAnswerCache.CachedAnswer cached,
+                                                Consumer<String> onToken) {
+        if (onToken != null) {
+            onToken.accept(cached.getAnswer());
+        }
+        return new DocumentQaResponse(documentId, question, cached.getAnswer(), cached.getSourceSnippet());
+    }
+
+    private List<DocumentChunk> loadChunksInOrder(List<DocumentVectorIndex.Match> matches) {
+        List<Long> ids = matches.stream().map(DocumentVectorIndex.Match::getChunkId).toList();
+        Map<Long, DocumentChunk> byId = documentChunkRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(DocumentChunk::getId, Function.identity()));
+        List<DocumentChunk> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            DocumentChunk chunk = byId.get(id);
+            if (chunk != null) {
+                ordered.add(chunk);
+            }
+        }
+        return ordered;
+    }
+
     private String buildSnippetFromChunks(List<DocumentChunk> chunks) {
         if (chunks.isEmpty()) {
             return "";
@@ -100,25 +197,6 @@ public class DocumentQaService {
         return text;
     }
 
-    // Helper class to pair chunks with their similarity scores
-    private static class ScoredChunk {
-        private final DocumentChunk chunk;
-        private final double score;
-
-        public ScoredChunk(DocumentChunk chunk, double score) {
-            this.chunk = chunk;
-            this.score = score;
-        }
-
-        public DocumentChunk getChunk() {
-            return chunk;
-        }
-
-        public double getScore() {
-            return score;
-        }
-    }
-
     private String buildSnippet(String rawText, String question) {
         if (rawText == null || rawText.isBlank()) {
             return "";
@@ -155,6 +233,18 @@ public class DocumentQaService {
     }
 
     public MultiDocumentQaResponse answerQuestionMulti(List<Long> documentIds, String question) {
+        return answerMulti(documentIds, question, null);
+    }
+
+    /**
+     * Like {@link #answerQuestionMulti}, but hands the answer to {@code onToken} as the model
+     * produces it.
+     */
+    public MultiDocumentQaResponse streamAnswerMulti(List<Long> documentIds, String question, Consumer<String> onToken) {
+        return answerMulti(documentIds, question, onToken);
+    }
+
+    private MultiDocumentQaResponse answerMulti(List<Long> documentIds, String question, Consumer<String> onToken) {
         if (question == null || question.isBlank()) {
             throw new IllegalArgumentException("Question must not be empty.");
         }
@@ -163,33 +253,127 @@ public class DocumentQaService {
             throw new IllegalArgumentException("At least one document ID must be provided.");
         }
 
-        // Fetch all documents
-        List<Document> documents = new ArrayList<>();
-        for (Long docId : documentIds) {
-            Document doc = documentRepository.findById(docId)
-                    .orElseThrow(() -> new EntityNotFoundException("Document not found: " + docId));
-
-            if (doc.getRawText() == null || doc.getRawText().isBlank()) {
+        // 1. Load names and text status of all documents in one query, without their text
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(documentIds));
+        Map<Long, DocumentRepository.DocumentQaMetadata> metadata = documentRepository.findQaMetadataByIdIn(ids).stream()
+                .collect(Collectors.toMap(DocumentRepository.DocumentQaMetadata::getId, Function.identity()));
+        for (Long docId : ids) {
+            DocumentRepository.DocumentQaMetadata doc = metadata.get(docId);
+            if (doc == null) {
+                throw new EntityNotFoundException("Document not found: " + docId);
+            }
+            if (!Boolean.TRUE.equals(doc.getHasText())) {
                 throw new IllegalStateException("Text has not been extracted for document " + docId);
             }
-            documents.add(doc);
         }
 
-        // Collect document texts and names
-        List<String> documentTexts = documents.stream()
-                .map(Document::getRawText)
-                .collect(Collectors.toList());
+        // 2. Rank chunks of all documents against the question in one merged list
+        float[] questionVector = VectorCodec.toFloatArray(embeddingService.embed(question));
+        List<RankedChunk> ranked = new ArrayList<>();
+        List<Long> withoutChunks = new ArrayList<>();
+        for (Long docId : ids) {
+            DocumentVectorIndex index = vectorIndexCache.get(docId);
+            if (index.isEmpty() || index.getDimension() != questionVector.length) {
+                withoutChunks.add(docId);
+                continue;
+            }
+            for (DocumentVectorIndex.Match match : index.search(questionVector, maxChunksPerDocument)) {
+                ranked.add(new RankedChunk(docId, match));
+            }
+        }
+        ranked.sort((a, b) -> Double.compare(b.match.getScore(), a.match.getScore()));
+
+        // 3. Pick chunks within the quota and token budget, and load their text in one query
+        List<DocumentChunk> selected = selectChunks(ranked);
+        ContextPacker packer = new ContextPacker(aiClient.getTokenEstimator(), multiContextTokens);
+        Map<Long, List<String>> passages = new LinkedHashMap<>();
+        for (DocumentChunk chunk : selected) {
+            String passage = packer.tryAdd(chunk.getText());
+            if (passage != null) {
+                passages.computeIfAbsent(chunk.getDocumentId(), id -> new ArrayList<>()).add(passage);
+            }
+        }
+
+        // Documents that were never chunked contribute their opening text, within an equal share of what is left
+        if (!withoutChunks.isEmpty() && packer.remainingTokens() > 0) {
+            int share = packer.remainingTokens() / withoutChunks.size();
+            for (Long docId : withoutChunks) {
+                String window = textStore.readWindow(docId, 0, aiClient.getTokenEstimator().maxCharsFor(share));
+                String opening = window == null ? null : packer.addPrefix(window, share);
+                if (opening != null) {
+                    passages.put(docId, List.of(opening));
+                }
+            }
+        }
+
+        // 4. Group passages by document, in the order the documents were requested
+        StringBuilder context = new StringBuilder(packer.usedChars() + 256);
+        for (Long docId : ids) {
+            List<String> texts = passages.get(docId);
+            if (texts == null) {
+                continue;
+            }
+            if (!context.isEmpty()) {
+                context.append("\n\n---DOCUMENT SEPARATOR---\n\n");
+            }
+            context.append("[").append(displayName(metadata.get(docId))).append("]\n");
+            for (String text : texts) {
+                context.append(text).append("\n\n");
+            }
+        }
 
-        List<String> documentNames = documents.stream()
-                .map(doc -> doc.getOriginalFileName() != null ? doc.getOriginalFileName() : "Document #" + doc.getId())
+        List<String> documentNames = ids.stream()
+                .map(docId -> displayName(metadata.get(docId)))
                 .collect(Collectors.toList());
 
-        // Call AI with all document texts
-        String answer = aiClient.answerQuestionMulti(documentTexts, question);
+        // 5. Call AI with the packed context
+        String answer = onToken == null
+                ? aiClient.answerQuestionMulti(context, question)
+                : aiClient.streamAnswerMulti(context, question, onToken);
+        String snippet = buildSnippetFromChunks(selected);
 
-        // Build a combined snippet from the first document (or could be enhanced to show snippets from all)
-        String snippet = buildSnippet(documents.get(0).getRawText(), question);
+        return new MultiDocumentQaResponse(ids, documentNames, question, answer, snippet);
+    }
 
-        return new MultiDocumentQaResponse(documentIds, documentNames, question, answer, snippet);
+    /**
+     * Take the best chunk of every document first so each one is represented, then fill up by
+     * score, at most {@code maxChunksPerDocument} per document and {@code multiTopK} overall.
+     * Returns chunks ordered by score.
+     */
+    private List<DocumentChunk> selectChunks(List<RankedChunk> ranked) {
+        List<RankedChunk> picked = new ArrayList<>();
+        Map<Long, Integer> perDocument = new HashMap<>();
+        for (RankedChunk chunk : ranked) {
+            if (picked.size() < multiTopK && !perDocument.containsKey(chunk.documentId)) {
+                perDocument.put(chunk.documentId, 1);
+                picked.add(chunk);
+            }
+        }
+        for (RankedChunk chunk : ranked) {
+            if (picked.size() >= multiTopK) {
+                break;
+            }
+            int count = perDocument.getOrDefault(chunk.documentId, 0);
+            if (count < maxChunksPerDocument && !picked.contains(chunk)) {
+                perDocument.put(chunk.documentId, count + 1);
+                picked.add(chunk);
+            }
+        }
+        picked.sort((a, b) -> Double.compare(b.match.getScore(), a.match.getScore()));
+        return loadChunksInOrder(picked.stream().map(chunk -> chunk.match).toList());
+    }
+
+    private static String displayName(DocumentRepository.DocumentQaMetadata doc) {
+        return doc.getOriginalFileName() != null ? doc.getOriginalFileName() : "Document #" + doc.getId();
+    }
+
+    private static class RankedChunk {
+        final Long documentId;
+        final DocumentVectorIndex.Match match;
+
+        RankedChunk(Long documentId, DocumentVectorIndex.Match match) {
+            this.documentId = documentId;
+            this.match = match;
+        }
     }
 }
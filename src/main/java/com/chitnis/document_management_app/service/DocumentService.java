@@ -1,139 +1,293 @@
 package com.chitnis.document_management_app.service;
-import com.chitnis.document_management_app.util.VectorUtils;
+import com.chitnis.document_management_app.util.CompressedText;
+import com.chitnis.document_management_app.util.SnippetBuilder;
+import com.chitnis.document_management_app.util.TextChunker;
+import com.chitnis.document_management_app.util.VectorCodec;
 import com.chitnis.document_management_app.dto.DocumentSearchResult;
+import com.chitnis.document_management_app.dto.SemanticSearchResult;
 import com.chitnis.document_management_app.repository.DocumentChunkRepository;
 import com.chitnis.document_management_app.repository.DocumentRepository;
+import com.chitnis.document_management_app.repository.DocumentSummaryRepository;
+import com.chitnis.document_management_app.repository.IngestionJobRepository;
+import com.chitnis.document_management_app.entity.FileBlob;
 import com.chitnis.document_management_app.entity.User;
 import com.chitnis.document_management_app.entity.DocumentChunk;
 import com.chitnis.document_management_app.entity.DocumentStatus;
 import com.chitnis.document_management_app.entity.Document;
 
 import jakarta.persistence.EntityNotFoundException;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.UUID;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
 public class DocumentService {
 
+    private static final Logger log = LoggerFactory.getLogger(DocumentService.class);
+    private static final int MAX_SEARCH_PAGE = 1000;
+    private static final int MAX_SEARCH_PAGE_SIZE = 50;
+    private static final byte[] PDF_MAGIC = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+
     private final DocumentRepository documentRepository;
     private final DocumentChunkRepository documentChunkRepository;
     private final EmbeddingService embeddingService;
+    private final DocumentVectorIndexCache vectorIndexCache;
+    private final PdfTextExtractor pdfTextExtractor;
+    private final FullTextSearchIndex searchIndex;
+    private final SemanticSearchService semanticSearchService;
+    private final BlobService blobService;
+    private final DocumentSummaryRepository documentSummaryRepository;
+    private final IngestionJobRepository ingestionJobRepository;
+    private final QaAnswerCache answerCache;
+    private final DocumentTextStore textStore;
 
     // value from application.properties
-    @Value("${app.upload-dir}")
-    private String uploadDir;
-
     @Value("${app.chunk-size:800}")
     private int chunkSize;
 
+    @Value("${app.ingestion.embedding-batch-size:64}")
+    private int embeddingBatchSize;
+
+    @Value("${app.upload.max-size:20MB}")
+    private DataSize maxUploadSize;
+
     public DocumentService(DocumentRepository documentRepository,
                            DocumentChunkRepository documentChunkRepository,
-                           EmbeddingService embeddingService) {
+                           EmbeddingService embeddingService,
+                           DocumentVectorIndexCache vectorIndexCache,
+                           PdfTextExtractor pdfTextExtractor,
+                           FullTextSearchIndex searchIndex,
+                           SemanticSearchService semanticSearchService,
+                           BlobService blobService,
+                           DocumentSummaryRepository documentSummaryRepository,
+                           IngestionJobRepository ingestionJobRepository,
+                           QaAnswerCache answerCache,
+                           DocumentTextStore textStore) {
         this.documentRepository = documentRepository;
         this.documentChunkRepository = documentChunkRepository;
         this.embeddingService = embeddingService;
+        this.vectorIndexCache = vectorIndexCache;
+        this.pdfTextExtractor = pdfTextExtractor;
+        this.searchIndex = searchIndex;
+        this.semanticSearchService = semanticSearchService;
+        this.blobService = blobService;
+        this.documentSummaryRepository = documentSummaryRepository;
+        this.ingestionJobRepository = ingestionJobRepository;
+        this.answerCache = answerCache;
+        this.textStore = textStore;
     }
 
     public Document uploadDocument(MultipartFile file) throws IOException {
         validateFile(file);
+        try (InputStream content = file.getInputStream()) {
+            return saveUpload(content, file.getOriginalFilename(), file.getContentType());
+        }
+    }
 
-        // 1. Ensure upload directory exists
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+    /**
+     * Store a PDF sent as the raw request body. The body is read once: hashed, checked and
+     * written to disk in the same pass, without multipart buffering.
+     *
+     * @param declaredLength Content length announced by the client, or -1 if unknown
+     * @throws MaxUploadSizeExceededException if the body is larger than {@code app.upload.max-size}
+     */
+    public Document uploadDocument(InputStream content, long declaredLength,
+                                   String originalFileName, String contentType) throws IOException {
+        if (originalFileName == null || !originalFileName.toLowerCase(Locale.ENGLISH).endsWith(".pdf")) {
+            throw new IllegalArgumentException("Only PDF files are supported.");
+        }
+        if (declaredLength > maxUploadSize.toBytes()) {
+            throw new MaxUploadSizeExceededException(maxUploadSize.toBytes());
         }
+        return saveUpload(content, originalFileName, contentType);
+    }
 
-        // 2. Generate unique file name
-        String originalFileName = file.getOriginalFilename();
+    private Document saveUpload(InputStream content, String originalFileName, String contentType) throws IOException {
+        // 1. Work out the extension for the stored file
         String extension = "";
 
         if (originalFileName != null && originalFileName.contains(".")) {
             extension = originalFileName.substring(originalFileName.lastIndexOf("."));
         }
 
-        String storedFileName = UUID.randomUUID() + extension;
-        Path targetPath = uploadPath.resolve(storedFileName);
-
-        // 3. Save file to disk
-        Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+        // 2. Hash, check and write in one pass; identical content shares the blob already stored
+        FileBlob blob = blobService.store(content, extension, maxUploadSize.toBytes(), PDF_MAGIC);
 
-        // 4. Save metadata in DB
+        // 3. Save metadata in DB
         Document doc = new Document();
         doc.setOriginalFileName(originalFileName);
-        doc.setStoredFilePath(targetPath.toString());
-        doc.setMimeType(file.getContentType());
-        doc.setSizeInBytes(file.getSize());
+        doc.setStoredFilePath(blob.getStoredFilePath());
+        doc.setContentHash(blob.getContentHash());
+        doc.setMimeType(contentType != null ? contentType : "application/pdf");
+        doc.setSizeInBytes(blob.getSizeInBytes());
         doc.setUploadedAt(Instant.now());
         doc.setStatus(DocumentStatus.UPLOADED);
         doc.setWorkspaceId(1L); // Default workspace
         doc.setUserId(getCurrentUserId()); // Associate with current user
 
-        return documentRepository.save(doc);
+        try {
+            return documentRepository.save(doc);
+        } catch (RuntimeException ex) {
+            blobService.release(blob.getContentHash());
+            throw ex;
+        }
+    }
+
+    /**
+     * Delete a document with its chunks, summaries and index entries. The stored file is
+     * removed once no other document shares its content.
+     */
+    public void deleteDocument(Long documentId) {
+        Document document = findDocument(documentId);
+        ingestionJobRepository.findByDocumentId(documentId).ifPresent(job -> {
+            if (job.isActive()) {
+                throw new IllegalStateException("Document " + documentId + " is still being ingested");
+            }
+        });
+
+        documentChunkRepository.deleteByDocumentId(documentId);
+        textStore.delete(documentId);
+        vectorIndexCache.invalidate(documentId);
+        answerCache.invalidate(documentId);
+        semanticSearchService.removeDocument(document.getUserId(), documentId);
+        semanticSearchService.flush(document.getUserId());
+        searchIndex.removeDocument(documentId);
+        documentSummaryRepository.deleteByDocumentId(documentId);
+        ingestionJobRepository.deleteByDocumentId(documentId);
+        documentRepository.delete(document);
+
+        if (document.getContentHash() != null) {
+            blobService.release(document.getContentHash());
+        } else {
+            try {
+                blobService.delete(document.getStoredFilePath());
+            } catch (IOException ex) {
+                log.warn("Could not delete file {} of document {}: {}",
+                        document.getStoredFilePath(), documentId, ex.toString());
+            }
+        }
     }
 
-    public List<Document> getAllDocuments() {
+    public List<DocumentRepository.DocumentListItem> getAllDocuments() {
         Long userId = getCurrentUserId();
-        return documentRepository.findByUserId(userId);
+        return documentRepository.findListItemsByUserId(userId);
     }
 
-    public List<DocumentSearchResult> searchDocuments(String query) {
+    public List<DocumentSearchResult> searchDocuments(String query, int page, int size) {
         if (query == null || query.isBlank()) {
             throw new IllegalArgumentException("Search query must not be empty.");
         }
+        if (page < 0 || page > MAX_SEARCH_PAGE) {
+            throw new IllegalArgumentException("Page must be between 0 and " + MAX_SEARCH_PAGE + ".");
+        }
+        if (size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_SEARCH_PAGE_SIZE + ".");
+        }
 
         Long userId = getCurrentUserId();
-        List<Document> matches = documentRepository.searchByRawText(userId, query);
-        return matches.stream()
-                .map(doc -> new DocumentSearchResult(
-                        doc.getId(),
-                        doc.getOriginalFileName(),
-                        buildSnippet(doc.getRawText(), query)
+        List<FullTextSearchIndex.Hit> hits = searchIndex.search(userId, query, page, size);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, String> fileNames = new HashMap<>();
+        List<Long> ids = hits.stream().map(FullTextSearchIndex.Hit::getDocumentId).toList();
+        documentRepository.findTitlesByUserIdAndIdIn(userId, ids)
+                .forEach(title -> fileNames.put(title.getId(), title.getOriginalFileName()));
+
+        return hits.stream()
+                .filter(hit -> fileNames.containsKey(hit.getDocumentId()))
+                .map(hit -> new DocumentSearchResult(
+                        hit.getDocumentId(),
+                        fileNames.get(hit.getDocumentId()),
+                        buildSnippet(hit),
+                        hit.getScore()
                 ))
                 .toList();
     }
 
-    public Document extractText(Long documentId) throws IOException {
-        Document document = findDocument(documentId);
-
-        Path filePath = Paths.get(document.getStoredFilePath());
-        if (!Files.exists(filePath)) {
-            throw new IllegalStateException("Stored file is missing on disk for document " + documentId);
-        }
-
-        try (PDDocument pdfDocument = Loader.loadPDF(filePath.toFile())) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(pdfDocument);
-            document.setRawText(text);
-            document.setStatus(DocumentStatus.TEXT_EXTRACTED);
-            Document saved = documentRepository.save(document);
+    /**
+     * Extract a document's PDF text page by page, chunking and embedding it while it streams.
+     * The text is compressed on the way and stored in the {@link DocumentTextStore}, indexed
+     * by page. Does not check ownership, so it can run on ingestion worker threads.
+     */
+    public void extractAndEmbed(Document document, IngestionProgress progress) throws IOException {
+        // Held until extraction ends, so a cached copy of a remote blob is not evicted meanwhile
+        try (BlobStore.LocalFile file = getDocumentFile(document)) {
+            // Existing chunks are replaced by the first new batch; cached vectors for this document are now stale.
+            // Its semantic search entries are swapped when that batch lands, so a failed run leaves them in place
+            progress.update(DocumentStatus.EXTRACTING, 0, 0);
+            vectorIndexCache.invalidate(document.getId());
+            answerCache.invalidate(document.getId());
+
+            if (copyFromDuplicate(document, progress)) {
+                return;
+            }
 
-            // Try to create embeddings, but don't fail if it errors
-            try {
-                createEmbeddings(saved.getId());
-            } catch (Exception e) {
-                // Log error but don't fail the extraction
-                System.err.println("Warning: Failed to create embeddings: " + e.getMessage());
+            // Pages flow into the chunker, and full chunk batches are embedded as soon as they fill up
+            ChunkBatchWriter chunkWriter = new ChunkBatchWriter(document, DocumentStatus.EXTRACTING, progress);
+            CompressedText.Builder text = textStore.newBuilder();
+            try (TextChunker chunker = new TextChunker(chunkSize, chunkWriter)) {
+                pdfTextExtractor.extract(file.getPath(), new TeeWriter(text, chunker));
             }
+            chunkWriter.finish(DocumentStatus.EMBEDDING);
+            textStore.save(document.getId(), text.build());
+
+            // Readers may have cached a partial index while batches were being written
+            vectorIndexCache.invalidate(document.getId());
+            semanticSearchService.flush(document.getUserId());
+        }
+    }
 
-            return saved;
+    /**
+     * Reuse the text and chunk vectors of an ingested document with the same file content,
+     * so re-uploads cost neither extraction nor embedding calls.
+     *
+     * @return Whether a duplicate was found and copied
+     */
+    private boolean copyFromDuplicate(Document document, IngestionProgress progress) {
+        if (document.getContentHash() == null) {
+            return false;
         }
+        Document source = documentRepository.findFirstByContentHashAndStatusAndIdNotOrderByIdAsc(
+                document.getContentHash(), DocumentStatus.READY, document.getId()).orElse(null);
+        if (source == null || !textStore.copy(source.getId(), document.getId())) {
+            return false;
+        }
+
+        documentChunkRepository.deleteByDocumentId(document.getId());
+        int copied = documentChunkRepository.copyChunks(source.getId(), document.getId());
+        semanticSearchService.removeDocument(document.getUserId(), document.getId());
+        semanticSearchService.addChunks(document.getUserId(),
+                documentChunkRepository.findByDocumentIdOrderByChunkIndexAsc(document.getId()));
+        vectorIndexCache.invalidate(document.getId());
+        semanticSearchService.flush(document.getUserId());
+        progress.update(DocumentStatus.EMBEDDING, copied, copied);
+        log.info("Document {} has the same content as document {}; reused its text and {} chunks",
+                document.getId(), source.getId(), copied);
+        return true;
     }
 
     /**
@@ -142,46 +296,40 @@ public class DocumentService {
     @Transactional
     public void createEmbeddings(Long documentId) {
         Document document = findDocument(documentId);
-        if (document.getRawText() == null || document.getRawText().isBlank()) {
+        if (!textStore.hasText(documentId)) {
             throw new IllegalStateException("Text has not been extracted for document " + documentId);
         }
-        createEmbeddingsInternal(document);
+        writeEmbeddings(document, IngestionProgress.NONE);
     }
 
-    private void createEmbeddingsInternal(Document document) {
-        String text = document.getRawText();
-        if (text == null || text.isBlank()) {
+    /**
+     * Replace a document's chunks with freshly embedded ones built from its stored text,
+     * reporting progress per batch. Does not check ownership.
+     */
+    public void writeEmbeddings(Document document, IngestionProgress progress) {
+        Reader text = textStore.openReader(document.getId());
+        if (text == null) {
             return;
         }
 
-        // Delete existing chunks if any
-        documentChunkRepository.deleteByDocumentId(document.getId());
-
-        // Split text into chunks
-        List<String> chunks = VectorUtils.splitIntoChunks(text, chunkSize);
-
-        // Create embeddings for each chunk
-        int index = 0;
-        for (String chunkText : chunks) {
-            if (chunkText.isBlank()) {
-                continue;
-            }
-
-            // Get embedding vector
-            List<Double> embedding = embeddingService.embed(chunkText);
-
-            // Convert to JSON
-            String embeddingJson = VectorUtils.vectorToJson(embedding);
-
-            // Save chunk
-            DocumentChunk chunk = new DocumentChunk(
-                    document.getId(),
-                    index++,
-                    chunkText,
-                    embeddingJson
-            );
-            documentChunkRepository.save(chunk);
+        // Existing chunks are replaced by the first new batch; cached vectors for this document are now stale.
+        // Its semantic search entries are swapped when that batch lands, so a failed run leaves them in place
+        progress.update(DocumentStatus.CHUNKING, 0, 0);
+        vectorIndexCache.invalidate(document.getId());
+        answerCache.invalidate(document.getId());
+
+        ChunkBatchWriter chunkWriter = new ChunkBatchWriter(document, DocumentStatus.EMBEDDING, progress);
+        // Stream the stored text into the chunker instead of inflating all of it at once
+        try (text; TextChunker chunker = new TextChunker(chunkSize, chunkWriter)) {
+            text.transferTo(chunker);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
+        chunkWriter.finish(DocumentStatus.EMBEDDING);
+
+        // Readers may have cached a partial index while batches were being written
+        vectorIndexCache.invalidate(document.getId());
+        semanticSearchService.flush(document.getUserId());
     }
 
     public long getChunkCount(Long documentId) {
@@ -189,20 +337,52 @@ public class DocumentService {
     }
 
     public String getDocumentText(Long documentId) {
-        Document document = findDocument(documentId);
-        if (document.getRawText() == null) {
+        findDocument(documentId);
+        String text = textStore.load(documentId);
+        if (text == null) {
             throw new IllegalStateException("Text has not been extracted for document " + documentId);
         }
-        return document.getRawText();
+        return text;
     }
 
-    public Path getDocumentFile(Long documentId) {
-        Document document = findDocument(documentId);
-        Path filePath = Paths.get(document.getStoredFilePath());
-        if (!Files.exists(filePath)) {
-            throw new IllegalStateException("Stored file is missing on disk for document " + documentId);
+    /**
+     * Text of one page of a document, read without inflating the rest.
+     *
+     * @param page 1-based page number
+     */
+    public String getDocumentPage(Long documentId, int page) {
+        findDocument(documentId);
+        String text = textStore.readPage(documentId, page);
+        if (text == null) {
+            throw new IllegalStateException("Text has not been extracted for document " + documentId);
+        }
+        return text;
+    }
+
+    public BlobStore.LocalFile getDocumentFile(Long documentId) {
+        return getDocumentFile(findDocument(documentId));
+    }
+
+    /**
+     * Stored file of a document already loaded through {@link #getDocumentById}; close it
+     * once the file has been read.
+     */
+    public BlobStore.LocalFile getDocumentFile(Document document) {
+        try {
+            return blobService.localFile(document.getStoredFilePath());
+        } catch (NoSuchFileException ex) {
+            throw new IllegalStateException("Stored file is missing for document " + document.getId());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public boolean hasStoredFile(Document document) {
+        try {
+            return blobService.exists(document.getStoredFilePath());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
-        return filePath;
     }
 
     public Document getDocumentById(Long documentId) {
@@ -248,29 +428,150 @@ public class DocumentService {
         }
     }
 
-    private String buildSnippet(String rawText, String query) {
-        if (rawText == null || rawText.isBlank()) {
+
+    public List<SemanticSearchResult> semanticSearch(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be empty.");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SEARCH_PAGE_SIZE + ".");
+        }
+        return semanticSearchService.search(getCurrentUserId(), query, limit);
+    }
+
+    /**
+     * Cut a snippet around the hit's first matching term, reading only that part of the text.
+     */
+    private String buildSnippet(FullTextSearchIndex.Hit hit) {
+        int radius = SnippetBuilder.DEFAULT_RADIUS;
+        if (hit.getMatchOffset() < 0) {
+            String window = textStore.readWindow(hit.getDocumentId(), 0, radius * 4);
+            return window == null ? "" : SnippetBuilder.leading(window, radius * 2);
+        }
+
+        // Read extra context so collapsed whitespace still leaves a full radius on each side
+        int windowStart = Math.max(0, hit.getMatchOffset() - radius * 2);
+        int windowLength = hit.getMatchOffset() - windowStart + hit.getMatchLength() + radius * 2;
+        String window = textStore.readWindow(hit.getDocumentId(), windowStart, windowLength);
+        if (window == null) {
             return "";
         }
-        String normalizedText = rawText.replaceAll("\\s+", " ");
-        String lowerText = normalizedText.toLowerCase();
-        String lowerQuery = query.toLowerCase();
-        int matchIndex = lowerText.indexOf(lowerQuery);
+        return SnippetBuilder.around(window, hit.getMatchOffset() - windowStart, hit.getMatchLength(), radius,
+                windowStart > 0, window.length() == windowLength);
+    }
 
-        if (matchIndex == -1) {
-            return normalizedText.substring(0, Math.min(200, normalizedText.length()));
+    /**
+     * Collects chunks into batches, embeds each full batch with one provider call and stores it
+     * with one JDBC batch. The first batch replaces the document's previous chunks in the same
+     * transaction, so readers never see the document without chunks. A batch the provider
+     * could not embed fails ingestion rather than being stored with stand-in vectors.
+     */
+    private class ChunkBatchWriter implements Consumer<String> {
+        private final Long documentId;
+        private final Long userId;
+        private final DocumentStatus stage;
+        private final IngestionProgress progress;
+        private final List<String> pending = new ArrayList<>();
+        private int produced;
+        private int written;
+        private boolean replaced;
+
+        ChunkBatchWriter(Document document, DocumentStatus stage, IngestionProgress progress) {
+            this.documentId = document.getId();
+            this.userId = document.getUserId();
+            this.stage = stage;
+            this.progress = progress;
         }
 
-        int start = Math.max(0, matchIndex - 100);
-        int end = Math.min(normalizedText.length(), matchIndex + lowerQuery.length() + 100);
-        String snippet = normalizedText.substring(start, end);
+        @Override
+        public void accept(String chunkText) {
+            if (chunkText.isBlank()) {
+                return;
+            }
+            pending.add(chunkText);
+            produced++;
+            if (pending.size() >= embeddingBatchSize) {
+                flush(stage);
+            }
+        }
+
+        void finish(DocumentStatus finalStage) {
+            flush(finalStage);
+            if (!replaced) {
+                // The text produced no chunks; the old ones are stale all the same
+                documentChunkRepository.deleteByDocumentId(documentId);
+                semanticSearchService.removeDocument(userId, documentId);
+                replaced = true;
+            }
+        }
 
-        if (start > 0) {
-            snippet = "…" + snippet;
+        private void flush(DocumentStatus currentStage) {
+            if (!pending.isEmpty()) {
+                List<List<Double>> embeddings = embeddingService.embedAll(pending);
+                if (embeddingService.isModelConfigured()
+                        && !embeddings.stream().allMatch(embeddingService::isModelOutput)) {
+                    // Stand-in vectors would be stored as real ones; fail so the job is retried
+                    throw new IllegalStateException("Embedding provider did not embed chunks "
+                            + written + "-" + (written + pending.size() - 1) + " of document " + documentId);
+                }
+                List<DocumentChunk> rows = new ArrayList<>(pending.size());
+                for (int i = 0; i < pending.size(); i++) {
+                    // Save chunk with the binary float32 encoding, pre-normalized for dot-product scoring
+                    rows.add(new DocumentChunk(
+                            documentId,
+                            written + i,
+                            pending.get(i),
+                            VectorCodec.encodeNormalized(embeddings.get(i))
+                    ));
+                }
+                List<DocumentChunk> stored;
+                if (replaced) {
+                    stored = documentChunkRepository.insertChunks(rows);
+                } else {
+                    stored = documentChunkRepository.replaceChunks(documentId, rows);
+                    // The old chunks are gone from the database now; drop them from semantic search too
+                    semanticSearchService.removeDocument(userId, documentId);
+                    replaced = true;
+                }
+                semanticSearchService.addChunks(userId, stored);
+                written += rows.size();
+                pending.clear();
+            }
+            progress.update(currentStage, written, produced);
         }
-        if (end < normalizedText.length()) {
-            snippet = snippet + "…";
+    }
+
+    /**
+     * Compresses the extracted text, with its page boundaries, while forwarding it to the chunker.
+     */
+    private static class TeeWriter extends Writer implements PdfTextExtractor.PageSink {
+        private final CompressedText.Builder text;
+        private final Writer chunker;
+
+        TeeWriter(CompressedText.Builder text, Writer chunker) {
+            this.text = text;
+            this.chunker = chunker;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            text.write(cbuf, off, len);
+            chunker.write(cbuf, off, len);
+        }
+
+        @Override
+        public void endPage() {
+            text.endPage();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            chunker.flush();
+        }
+
+        @Override
+        public void close() {
+            // The chunker is closed by its owner once extraction has finished
         }
-        return snippet;
     }
 }
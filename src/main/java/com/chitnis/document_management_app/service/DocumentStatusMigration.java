@@ -0,0 +1,41 @@
+package com.chitnis.document_management_app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate creates a CHECK constraint listing the enum values when it first creates
+ * {@code documents.status}, and {@code ddl-auto=update} never widens it. Databases created
+ * before the ingestion stages existed would reject QUEUED, READY, etc., so the constraint
+ * is dropped; the column is written only through {@code DocumentStatus}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DocumentStatusMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentStatusMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DocumentStatusMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(product)) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE documents DROP CONSTRAINT IF EXISTS documents_status_check");
+        log.debug("Ensured documents.status accepts all DocumentStatus values");
+    }
+}
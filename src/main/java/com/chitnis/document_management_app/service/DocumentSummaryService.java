@@ -1,5 +1,4 @@
 package com.chitnis.document_management_app.service;
-import com.chitnis.document_management_app.ai.AiClient;
 import com.chitnis.document_management_app.repository.DocumentSummaryRepository;
 import com.chitnis.document_management_app.repository.DocumentRepository;
 import com.chitnis.document_management_app.entity.DocumentSummary;
@@ -7,36 +6,61 @@ import com.chitnis.document_management_app.entity.Document;
 
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.function.Consumer;
 
 @Service
 public class DocumentSummaryService {
 
     private final DocumentRepository documentRepository;
     private final DocumentSummaryRepository documentSummaryRepository;
-    private final AiClient aiClient;
+    private final HierarchicalSummarizer summarizer;
+    private final DocumentTextStore textStore;
 
     public DocumentSummaryService(DocumentRepository documentRepository,
                                   DocumentSummaryRepository documentSummaryRepository,
-                                  AiClient aiClient) {
+                                  HierarchicalSummarizer summarizer,
+                                  DocumentTextStore textStore) {
         this.documentRepository = documentRepository;
         this.documentSummaryRepository = documentSummaryRepository;
-        this.aiClient = aiClient;
+        this.summarizer = summarizer;
+        this.textStore = textStore;
     }
 
-    @Transactional
+    /**
+     * Summarize the whole document with map-reduce summarization. Several model calls may be
+     * made, so no transaction is held meanwhile.
+     */
     public DocumentSummary summarizeDocument(Long documentId) {
-        Document document = documentRepository.findById(documentId)
+        Document document = loadDocument(documentId);
+        return saveSummary(document, summarizer.summarize(loadText(documentId)));
+    }
+
+    /**
+     * Like {@link #summarizeDocument}, but hands every token to {@code onToken} as the model
+     * produces it. Section summaries are computed first and only the final step streams. The
+     * summary is saved once generation finishes; if {@code onToken} throws, nothing is saved.
+     */
+    public DocumentSummary streamSummary(Long documentId, Consumer<String> onToken) {
+        Document document = loadDocument(documentId);
+        return saveSummary(document, summarizer.summarize(loadText(documentId), onToken));
+    }
+
+    private Document loadDocument(Long documentId) {
+        return documentRepository.findById(documentId)
                 .orElseThrow(() -> new EntityNotFoundException("Document not found: " + documentId));
+    }
 
-        if (document.getRawText() == null || document.getRawText().isBlank()) {
+    private String loadText(Long documentId) {
+        String text = textStore.load(documentId);
+        if (text == null || text.isBlank()) {
             throw new IllegalStateException("Text has not been extracted for document " + documentId);
         }
+        return text;
+    }
 
-        String summaryText = aiClient.summarize(document.getRawText());
-
+    private DocumentSummary saveSummary(Document document, String summaryText) {
         DocumentSummary summary = new DocumentSummary();
         summary.setDocument(document);
         summary.setSummaryText(summaryText);
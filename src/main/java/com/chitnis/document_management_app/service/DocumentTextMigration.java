@@ -0,0 +1,98 @@
+package com.chitnis.document_management_app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Moves text extracted before the {@link DocumentTextStore} existed out of the legacy
+ * {@code documents.raw_text} column into compressed storage.
+ *
+ * Runs once at startup and is a no-op when the legacy column does not exist (fresh
+ * databases) or every row has already been moved. Rows are read a batch at a time, so large
+ * texts are never all in memory together.
+ */
+@Component
+public class DocumentTextMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentTextMigration.class);
+    private static final String TABLE = "documents";
+    private static final String LEGACY_COLUMN = "raw_text";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DocumentTextStore textStore;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public DocumentTextMigration(JdbcTemplate jdbcTemplate,
+                                 DocumentTextStore textStore,
+                                 @Value("${app.text-migration.enabled:true}") boolean enabled,
+                                 @Value("${app.text-migration.batch-size:20}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.textStore = textStore;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled || !legacyColumnExists()) {
+            return;
+        }
+
+        long moved = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(
+                    "SELECT id, " + LEGACY_COLUMN + " FROM " + TABLE
+                            + " WHERE " + LEGACY_COLUMN + " IS NOT NULL ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2)},
+                    batchSize
+            );
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            for (Object[] row : rows) {
+                Long documentId = (Long) row[0];
+                // Text re-extracted since keeps its newer copy
+                if (!textStore.hasText(documentId)) {
+                    textStore.save(documentId, (String) row[1]);
+                }
+                // Clearing the legacy copy releases its storage and marks the row as done
+                jdbcTemplate.update("UPDATE " + TABLE + " SET " + LEGACY_COLUMN + " = NULL WHERE id = ?", documentId);
+                moved++;
+            }
+        }
+
+        if (moved > 0) {
+            log.info("Moved the extracted text of {} documents to compressed text storage", moved);
+        }
+    }
+
+    private boolean legacyColumnExists() {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String table : new String[]{TABLE, TABLE.toUpperCase(Locale.ROOT)}) {
+                try (ResultSet columns = metaData.getColumns(null, null, table, null)) {
+                    while (columns.next()) {
+                        if (LEGACY_COLUMN.equalsIgnoreCase(columns.getString("COLUMN_NAME"))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
@@ -0,0 +1,229 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.entity.DocumentText;
+import com.chitnis.document_management_app.entity.DocumentTextBlock;
+import com.chitnis.document_management_app.repository.DocumentTextBlockRepository;
+import com.chitnis.document_management_app.repository.DocumentTextRepository;
+import com.chitnis.document_management_app.util.CompressedText;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Extracted document text, stored outside the {@code documents} row as deflated blocks of
+ * {@code app.text-store.block-chars} characters.
+ *
+ * Reading a window or a page inflates only the blocks it spans, and {@link #openReader}
+ * streams the text a few blocks at a time, so callers that do not need the whole text never
+ * hold it.
+ */
+@Service
+public class DocumentTextStore {
+
+    // Blocks fetched per query when streaming
+    private static final int READ_AHEAD_BLOCKS = 4;
+
+    private final DocumentTextRepository textRepository;
+    private final DocumentTextBlockRepository blockRepository;
+    private final int blockChars;
+
+    public DocumentTextStore(DocumentTextRepository textRepository,
+                             DocumentTextBlockRepository blockRepository,
+                             @Value("${app.text-store.block-chars:65536}") int blockChars) {
+        this.textRepository = textRepository;
+        this.blockRepository = blockRepository;
+        this.blockChars = blockChars;
+    }
+
+    /**
+     * A writer that compresses text as it is written, for {@link #save(Long, CompressedText)}.
+     */
+    public CompressedText.Builder newBuilder() {
+        return CompressedText.builder(blockChars);
+    }
+
+    /**
+     * Replace a document's text.
+     */
+    @Transactional
+    public void save(Long documentId, CompressedText text) {
+        blockRepository.deleteByDocumentId(documentId);
+        textRepository.deleteByDocumentId(documentId);
+
+        List<DocumentTextBlock> blocks = new ArrayList<>(text.getBlocks().size());
+        for (int i = 0; i < text.getBlocks().size(); i++) {
+            blocks.add(new DocumentTextBlock(documentId, i, text.getBlocks().get(i)));
+        }
+        blockRepository.saveAll(blocks);
+        textRepository.save(new DocumentText(documentId, text.length(),
+                CompressedText.encodeOffsets(text.getBlockOffsets()),
+                CompressedText.encodeOffsets(text.getPageOffsets())));
+    }
+
+    @Transactional
+    public void save(Long documentId, CharSequence text) {
+        save(documentId, CompressedText.of(text, blockChars));
+    }
+
+    /**
+     * Give {@code targetId} the same text as {@code sourceId}, without inflating it.
+     *
+     * @return Whether the source had text
+     */
+    @Transactional
+    public boolean copy(Long sourceId, Long targetId) {
+        delete(targetId);
+        if (textRepository.copyText(sourceId, targetId) == 0) {
+            return false;
+        }
+        blockRepository.copyBlocks(sourceId, targetId);
+        return true;
+    }
+
+    @Transactional
+    public void delete(Long documentId) {
+        blockRepository.deleteByDocumentId(documentId);
+        textRepository.deleteByDocumentId(documentId);
+    }
+
+    public boolean hasText(Long documentId) {
+        return textRepository.existsById(documentId);
+    }
+
+    /**
+     * @return The whole text, or {@code null} if none was stored
+     */
+    @Transactional(readOnly = true)
+    public String load(Long documentId) {
+        DocumentText index = textRepository.findById(documentId).orElse(null);
+        if (index == null) {
+            return null;
+        }
+        return read(index, 0, index.getCharLength());
+    }
+
+    /**
+     * A slice of the text; {@code start} is 0-based and the slice is clipped to the text.
+     *
+     * @return The slice, or {@code null} if no text was stored
+     */
+    @Transactional(readOnly = true)
+    public String readWindow(Long documentId, int start, int length) {
+        DocumentText index = textRepository.findById(documentId).orElse(null);
+        if (index == null) {
+            return null;
+        }
+        int from = Math.max(0, Math.min(start, index.getCharLength()));
+        int to = (int) Math.min(index.getCharLength(), (long) from + Math.max(0, length));
+        return read(index, from, to);
+    }
+
+    /**
+     * Text of one page, for documents extracted page by page.
+     *
+     * @param page 1-based page number
+     * @return The page text, or {@code null} if no text was stored
+     * @throws IllegalArgumentException if the document has no such page
+     */
+    @Transactional(readOnly = true)
+    public String readPage(Long documentId, int page) {
+        DocumentText index = textRepository.findById(documentId).orElse(null);
+        if (index == null) {
+            return null;
+        }
+        int[] pages = CompressedText.decodeOffsets(index.getPageOffsets());
+        if (page < 1 || page > pages.length) {
+            throw new IllegalArgumentException("Document " + documentId + " has no page " + page);
+        }
+        int end = page < pages.length ? pages[page] : index.getCharLength();
+        return read(index, pages[page - 1], end);
+    }
+
+    /**
+     * Number of pages the text was indexed by; 0 if it has no page index.
+     */
+    public int pageCount(Long documentId) {
+        return textRepository.findById(documentId)
+                .map(index -> CompressedText.decodeOffsets(index.getPageOffsets()).length)
+                .orElse(0);
+    }
+
+    /**
+     * Stream the text, holding a few inflated blocks at a time.
+     *
+     * @return A reader over the text, or {@code null} if no text was stored
+     */
+    public Reader openReader(Long documentId) {
+        DocumentText index = textRepository.findById(documentId).orElse(null);
+        if (index == null) {
+            return null;
+        }
+        return new BlockReader(documentId, CompressedText.decodeOffsets(index.getBlockOffsets()).length);
+    }
+
+    private String read(DocumentText index, int from, int to) {
+        if (from >= to) {
+            return "";
+        }
+        int[] offsets = CompressedText.decodeOffsets(index.getBlockOffsets());
+        int first = CompressedText.blockAt(offsets, from);
+        int last = CompressedText.blockAt(offsets, to - 1);
+        StringBuilder text = new StringBuilder(to - offsets[first] + blockChars);
+        for (DocumentTextBlock block : blockRepository.findBlocks(index.getDocumentId(), first, last)) {
+            text.append(CompressedText.inflate(block.getData()));
+        }
+        int base = offsets[first];
+        return text.substring(from - base, to - base);
+    }
+
+    /**
+     * Inflates blocks in order, fetching {@link #READ_AHEAD_BLOCKS} per query.
+     */
+    private class BlockReader extends Reader {
+        private final Long documentId;
+        private final int blockCount;
+        private int nextBlock;
+        private Iterator<DocumentTextBlock> fetched = List.<DocumentTextBlock>of().iterator();
+        private String current = "";
+        private int position;
+
+        BlockReader(Long documentId, int blockCount) {
+            this.documentId = documentId;
+            this.blockCount = blockCount;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            while (position == current.length()) {
+                if (!fetched.hasNext()) {
+                    if (nextBlock >= blockCount) {
+                        return -1;
+                    }
+                    int last = Math.min(blockCount, nextBlock + READ_AHEAD_BLOCKS) - 1;
+                    fetched = blockRepository.findBlocks(documentId, nextBlock, last).iterator();
+                    nextBlock = last + 1;
+                    continue;
+                }
+                current = CompressedText.inflate(fetched.next().getData());
+                position = 0;
+            }
+            int count = Math.min(len, current.length() - position);
+            current.getChars(position, position + count, cbuf, off);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            current = "";
+            fetched = List.<DocumentTextBlock>of().iterator();
+            nextBlock = blockCount;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.util.SimilarityKernel;
+import com.chitnis.document_management_app.util.SimilarityKernels;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable in-memory view of one document's chunk vectors.
+ *
+ * Rows are L2-normalized when the index is built, so cosine similarity against a
+ * normalized query is a plain dot product over one contiguous {@code float[]}.
+ */
+public class DocumentVectorIndex {
+
+    /** Rows scored per batched kernel call; small enough that the score buffer stays in L1. */
+    private static final int SCORE_BLOCK = 256;
+
+    private static final DocumentVectorIndex EMPTY = new DocumentVectorIndex(new long[0], new float[0], 0);
+
+    private final long[] chunkIds;
+    private final float[] matrix;
+    private final int dimension;
+    private final long version;
+
+    /**
+     * @param chunkIds Chunk id for each row
+     * @param matrix Row-major vectors, {@code chunkIds.length * dimension} values, already normalized
+     * @param dimension Vector dimension
+     */
+    public DocumentVectorIndex(long[] chunkIds, float[] matrix, int dimension) {
+        if (matrix.length != chunkIds.length * dimension) {
+            throw new IllegalArgumentException("Matrix size does not match " + chunkIds.length + " x " + dimension);
+        }
+        this.chunkIds = chunkIds;
+        this.matrix = matrix;
+        this.dimension = dimension;
+        long maxChunkId = 0;
+        for (long chunkId : chunkIds) {
+            maxChunkId = Math.max(maxChunkId, chunkId);
+        }
+        this.version = maxChunkId;
+    }
+
+    public static DocumentVectorIndex empty() {
+        return EMPTY;
+    }
+
+    public boolean isEmpty() {
+        return chunkIds.length == 0;
+    }
+
+    public int size() {
+        return chunkIds.length;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Identifies this set of chunks. Re-embedding replaces every chunk row and chunk ids only
+     * grow, so the highest id changes whenever the chunks do; 0 when there are none.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Approximate heap footprint, used as the cache weight.
+     */
+    public long sizeInBytes() {
+        return 64L + (long) chunkIds.length * Long.BYTES + (long) matrix.length * Float.BYTES;
+    }
+
+    /**
+     * Return the {@code k} rows most similar to the query, best first.
+     *
+     * @param query Query vector; it is normalized here so callers can pass raw embeddings
+     * @param k Maximum number of matches
+     * @return Matches ordered by descending score
+     */
+    public List<Match> search(float[] query, int k) {
+        if (isEmpty() || k <= 0) {
+            return Collections.emptyList();
+        }
+        if (query.length != dimension) {
+            throw new IllegalArgumentException(
+                    "Vectors must have same dimension: " + query.length + " vs " + dimension
+            );
+        }
+
+        float[] normalized = normalize(query.clone());
+        SimilarityKernel kernel = SimilarityKernels.get();
+        float[] scores = new float[Math.min(SCORE_BLOCK, chunkIds.length)];
+
+        // Min-heap of the current best k, so each row costs O(log k) instead of sorting everything
+        PriorityQueue<Match> best = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(a.score, b.score));
+        for (int start = 0; start < chunkIds.length; start += scores.length) {
+            int rows = Math.min(scores.length, chunkIds.length - start);
+            kernel.dotBatch(normalized, matrix, start, rows, dimension, scores);
+            for (int i = 0; i < rows; i++) {
+                double score = scores[i];
+                if (best.size() < k) {
+                    best.add(new Match(chunkIds[start + i], score));
+                } else if (score > best.peek().score) {
+                    best.poll();
+                    best.add(new Match(chunkIds[start + i], score));
+                }
+            }
+        }
+
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort((a, b) -> Double.compare(b.score, a.score));
+        return matches;
+    }
+
+    /**
+     * Scale a vector to unit length in place. Zero vectors are left untouched.
+     *
+     * @param vector The vector to normalize
+     * @return The same array
+     */
+    public static float[] normalize(float[] vector) {
+        normalizeRow(vector, 0, vector.length);
+        return vector;
+    }
+
+    static void normalizeRow(float[] matrix, int offset, int dimension) {
+        SimilarityKernels.normalize(matrix, offset, dimension);
+    }
+
+    /**
+     * A chunk id paired with its cosine similarity to the query.
+     */
+    public static class Match {
+        private final long chunkId;
+        private final double score;
+
+        public Match(long chunkId, double score) {
+            this.chunkId = chunkId;
+            this.score = score;
+        }
+
+        public long getChunkId() {
+            return chunkId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
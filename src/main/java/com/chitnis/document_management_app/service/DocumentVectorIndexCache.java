@@ -0,0 +1,109 @@
+package com.chitnis.document_management_app.service;
+import com.chitnis.document_management_app.repository.DocumentChunkRepository;
+import com.chitnis.document_management_app.util.SingleFlight;
+import com.chitnis.document_management_app.util.VectorCodec;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of {@link DocumentVectorIndex} entries keyed by document id.
+ *
+ * Entries are weighed by their matrix size, so the bound is in bytes rather than
+ * documents. Writers must call {@link #invalidate(Long)} whenever a document's chunks change.
+ */
+@Component
+public class DocumentVectorIndexCache {
+
+    private final DocumentChunkRepository documentChunkRepository;
+    private final Cache<Long, DocumentVectorIndex> cache;
+    private final SingleFlight<Long, DocumentVectorIndex> loads = new SingleFlight<>();
+    // Bumped on every invalidation; a load that overlapped one is returned but not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public DocumentVectorIndexCache(DocumentChunkRepository documentChunkRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.qa.vector-cache.max-bytes:67108864}") long maxBytes) {
+        this.documentChunkRepository = documentChunkRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long documentId, DocumentVectorIndex index) ->
+                        (int) Math.min(Integer.MAX_VALUE, index.sizeInBytes()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "qa.vector-index");
+    }
+
+    /**
+     * Return the vector index for a document, loading it from the database on a miss.
+     * Concurrent misses for one document share a single load, which runs outside the cache's
+     * locks so it cannot pin a virtual thread or block other documents.
+     */
+    public DocumentVectorIndex get(Long documentId) {
+        DocumentVectorIndex index = cache.getIfPresent(documentId);
+        if (index != null) {
+            return index;
+        }
+        return loads.load(documentId, id -> {
+            long generation = invalidations.get();
+            DocumentVectorIndex loaded = load(id);
+            if (invalidations.get() == generation) {
+                cache.put(id, loaded);
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * Drop the cached index for a document. When called inside a transaction the entry is
+     * dropped again after commit, so a reader that loaded the old rows in between cannot
+     * leave a stale entry behind.
+     */
+    public void invalidate(Long documentId) {
+        invalidations.incrementAndGet();
+        cache.invalidate(documentId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidations.incrementAndGet();
+                    cache.invalidate(documentId);
+                }
+            });
+        }
+    }
+
+    private DocumentVectorIndex load(Long documentId) {
+        List<DocumentChunkRepository.EmbeddingRow> rows =
+                documentChunkRepository.findEmbeddingsByDocumentId(documentId);
+        if (rows.isEmpty()) {
+            return DocumentVectorIndex.empty();
+        }
+
+        int dimension = VectorCodec.dimension(rows.get(0).getEmbedding());
+        long[] chunkIds = new long[rows.size()];
+        float[] matrix = new float[rows.size() * dimension];
+        int row = 0;
+        for (DocumentChunkRepository.EmbeddingRow embeddingRow : rows) {
+            byte[] encoded = embeddingRow.getEmbedding();
+            if (VectorCodec.dimension(encoded) != dimension) {
+                throw new IllegalStateException("Mixed embedding dimensions for document " + documentId);
+            }
+            chunkIds[row] = embeddingRow.getId();
+            VectorCodec.decodeInto(encoded, matrix, row * dimension);
+            // Rows stored before embeddings were pre-normalized still need scaling; the rest are left as is
+            DocumentVectorIndex.normalizeRow(matrix, row * dimension, dimension);
+            row++;
+        }
+        return new DocumentVectorIndex(chunkIds, matrix, dimension);
+    }
+}
@@ -1,5 +1,6 @@
 package com.chitnis.document_management_app.service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -15,10 +16,54 @@ public interface EmbeddingService {
      */
     List<Double> embed(String text);
 
+    /**
+     * Generate embedding vectors for several texts, sending as few provider requests
+     * as the implementation allows.
+     *
+     * @param texts The input texts to embed
+     * @return One embedding per input text, in the same order
+     */
+    default List<List<Double>> embedAll(List<String> texts) {
+        List<List<Double>> embeddings = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            embeddings.add(embed(text));
+        }
+        return embeddings;
+    }
+
     /**
      * Get the dimension of the embedding vectors produced by this service.
      *
      * @return The embedding dimension
      */
     int getDimension();
+
+    /**
+     * Get the name of the model producing the vectors. Vectors from different models are
+     * not comparable, so the name is part of the embedding cache key.
+     *
+     * @return The model name
+     */
+    String getModelName();
+
+    /**
+     * Whether an embedding returned by this service came from the model itself. Stand-in
+     * vectors produced while the provider is unavailable are not cached.
+     *
+     * @param embedding A vector returned by {@link #embed} or {@link #embedAll}
+     * @return {@code true} if the vector is real model output
+     */
+    default boolean isModelOutput(List<Double> embedding) {
+        return true;
+    }
+
+    /**
+     * Whether a model is configured at all. Without one every vector is a stand-in and is
+     * used as such; with one, a stand-in means the provider failed or was busy.
+     *
+     * @return {@code true} if vectors are expected to be model output
+     */
+    default boolean isModelConfigured() {
+        return true;
+    }
 }
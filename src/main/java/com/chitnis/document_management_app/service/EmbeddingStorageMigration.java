@@ -0,0 +1,110 @@
+package com.chitnis.document_management_app.service;
+import com.chitnis.document_management_app.util.VectorCodec;
+import com.chitnis.document_management_app.util.VectorUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Converts chunks written before the binary vector format from the legacy JSONB
+ * {@code embedding} column into {@code embedding_vector}.
+ *
+ * Runs once at startup and is a no-op when the legacy column does not exist
+ * (fresh databases) or every row has already been converted.
+ */
+@Component
+public class EmbeddingStorageMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingStorageMigration.class);
+    private static final String TABLE = "document_chunk";
+    private static final String LEGACY_COLUMN = "embedding";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public EmbeddingStorageMigration(JdbcTemplate jdbcTemplate,
+                                     @Value("${app.embedding-migration.enabled:true}") boolean enabled,
+                                     @Value("${app.embedding-migration.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        Boolean nullable = legacyColumnNullable();
+        if (nullable == null) {
+            return;
+        }
+
+        // New rows only write embedding_vector, so the legacy column must accept NULL
+        if (!nullable) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ALTER COLUMN " + LEGACY_COLUMN + " DROP NOT NULL");
+        }
+
+        long converted = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(
+                    "SELECT id, CAST(" + LEGACY_COLUMN + " AS TEXT) FROM " + TABLE
+                            + " WHERE embedding_vector IS NULL AND " + LEGACY_COLUMN + " IS NOT NULL"
+                            + " ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2)},
+                    batchSize
+            );
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                List<Double> vector = VectorUtils.parseJsonToVector((String) row[1]);
+                updates.add(new Object[]{VectorCodec.encodeNormalized(vector), row[0]});
+            }
+            // Clearing the JSON copy releases its storage and marks the row as done
+            jdbcTemplate.batchUpdate(
+                    "UPDATE " + TABLE + " SET embedding_vector = ?, " + LEGACY_COLUMN + " = NULL WHERE id = ?",
+                    updates
+            );
+            converted += updates.size();
+        }
+
+        if (converted > 0) {
+            log.info("Converted {} chunk embeddings from JSON to binary float32 storage", converted);
+        }
+    }
+
+    /**
+     * @return Whether the legacy column accepts NULL, or {@code null} if it does not exist
+     */
+    private Boolean legacyColumnNullable() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String table : new String[]{TABLE, TABLE.toUpperCase(Locale.ROOT)}) {
+                try (ResultSet columns = metaData.getColumns(null, null, table, null)) {
+                    while (columns.next()) {
+                        if (LEGACY_COLUMN.equalsIgnoreCase(columns.getString("COLUMN_NAME"))) {
+                            return columns.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
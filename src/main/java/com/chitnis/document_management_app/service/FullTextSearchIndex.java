@@ -0,0 +1,77 @@
+package com.chitnis.document_management_app.service;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+/**
+ * Keyword index over extracted document text, partitioned by owner.
+ *
+ * A document matches when it contains every term of the query. Hits carry the offset of the
+ * first matching term in the raw text so snippets can be cut without rescanning the text.
+ */
+public interface FullTextSearchIndex {
+
+    /**
+     * Add or replace the indexed text of a document, tokenizing it as it is read so the whole
+     * text is never held at once.
+     *
+     * @param text The document text, or {@code null} for none; not closed
+     */
+    void indexDocument(Long documentId, Long userId, Reader text);
+
+    default void indexDocument(Long documentId, Long userId, String text) {
+        indexDocument(documentId, userId, text == null ? null : new StringReader(text));
+    }
+
+    /**
+     * Drop a document from the index. Unknown ids are ignored.
+     */
+    void removeDocument(Long documentId);
+
+    /**
+     * One page of a user's documents matching {@code query}, best match first.
+     *
+     * @param page Zero-based page number
+     * @param size Page size
+     */
+    List<Hit> search(Long userId, String query, int page, int size);
+
+    /**
+     * Documents that have extracted text but are not in the index yet.
+     */
+    List<Long> findUnindexedDocumentIds();
+
+    class Hit {
+        private final Long documentId;
+        private final double score;
+        private final int matchOffset;
+        private final int matchLength;
+
+        /**
+         * @param matchOffset Offset of the first matching term in the raw text, or -1 if unknown
+         */
+        public Hit(Long documentId, double score, int matchOffset, int matchLength) {
+            this.documentId = documentId;
+            this.score = score;
+            this.matchOffset = matchOffset;
+            this.matchLength = matchLength;
+        }
+
+        public Long getDocumentId() {
+            return documentId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public int getMatchOffset() {
+            return matchOffset;
+        }
+
+        public int getMatchLength() {
+            return matchLength;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.ai.AiClient;
+import com.chitnis.document_management_app.entity.SummaryCacheEntry;
+import com.chitnis.document_management_app.repository.SummaryCacheRepository;
+import com.chitnis.document_management_app.util.Sha256;
+import com.chitnis.document_management_app.util.VectorUtils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Map-reduce summarization for documents of any length.
+ *
+ * The text is split into sections with {@link VectorUtils#splitIntoChunks} and every section
+ * is summarized in parallel on the summary executor. Consecutive section summaries are then
+ * merged in groups that fit {@code app.summary.reduce-budget-tokens}, level by level, until a
+ * single group is left for the final 10-bullet summary.
+ *
+ * Section and merge results are cached in {@code summary_cache} by the hash of their input.
+ * Sections end at sentence boundaries, so after a small edit the boundaries line up again right
+ * after the changed section, and only that section and the merges above it reach the model.
+ * Hits and misses are counted in {@code summary.cache.requests}.
+ */
+@Service
+public class HierarchicalSummarizer {
+
+    private static final Logger log = LoggerFactory.getLogger(HierarchicalSummarizer.class);
+    // Part of every cache key; bump it when the section or merge prompts change
+    private static final String PROMPT_VERSION = "v1";
+
+    private final AiClient aiClient;
+    private final SummaryCacheRepository summaryCacheRepository;
+    private final TaskExecutor summaryExecutor;
+    private final int sectionChars;
+    private final int reduceBudgetTokens;
+    private final Counter hits;
+    private final Counter misses;
+
+    public HierarchicalSummarizer(AiClient aiClient,
+                                  SummaryCacheRepository summaryCacheRepository,
+                                  @Qualifier("summaryExecutor") TaskExecutor summaryExecutor,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.summary.section-chars:8000}") int sectionChars,
+                                  @Value("${app.summary.reduce-budget-tokens:3000}") int reduceBudgetTokens) {
+        this.aiClient = aiClient;
+        this.summaryCacheRepository = summaryCacheRepository;
+        this.summaryExecutor = summaryExecutor;
+        this.sectionChars = sectionChars;
+        this.reduceBudgetTokens = reduceBudgetTokens;
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+    }
+
+    public String summarize(String text) {
+        return summarize(text, null);
+    }
+
+    /**
+     * @param onToken Receives the final summary as it streams, or {@code null} to wait for it
+     */
+    public String summarize(String text, Consumer<String> onToken) {
+        List<String> sections = VectorUtils.splitIntoChunks(text, sectionChars);
+        if (sections.size() <= 1) {
+            return finalSummary(text, onToken);
+        }
+
+        // Map: one summary per section
+        List<String> summaries = run("section", sections, Function.identity(), aiClient::summarizeSection);
+        int levels = 1;
+
+        // Reduce: merge groups of consecutive summaries until one group fits the budget
+        while (summaries != null) {
+            List<List<String>> groups = group(summaries);
+            if (groups.size() == 1) {
+                log.debug("Summarized {} sections in {} levels", sections.size(), levels);
+                return finalSummary(String.join("\n\n", groups.get(0)), onToken);
+            }
+            summaries = run("merge", groups, group -> String.join("\u0000", group), this::merge);
+            levels++;
+        }
+
+        // The provider is unavailable; summarize the opening so the caller gets its usual fallback
+        return finalSummary(sections.get(0), onToken);
+    }
+
+    private String finalSummary(String text, Consumer<String> onToken) {
+        return onToken == null ? aiClient.summarize(text) : aiClient.streamSummary(text, onToken);
+    }
+
+    private String merge(List<String> group) {
+        // A lone trailing summary is carried up unchanged
+        return group.size() == 1 ? group.get(0) : aiClient.combineSummaries(group);
+    }
+
+    /**
+     * Split summaries into runs of consecutive ones within the reduce budget. Every group but
+     * the last holds at least two summaries, so each level at least halves the count.
+     */
+    private List<List<String>> group(List<String> summaries) {
+        List<List<String>> groups = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int tokens = 0;
+        for (String summary : summaries) {
+            int summaryTokens = aiClient.getTokenEstimator().count(summary);
+            if (current.size() >= 2 && tokens + summaryTokens > reduceBudgetTokens) {
+                groups.add(current);
+                current = new ArrayList<>();
+                tokens = 0;
+            }
+            current.add(summary);
+            tokens += summaryTokens;
+        }
+        groups.add(current);
+        return groups;
+    }
+
+    /**
+     * Run one level of calls in parallel, answering from the cache where possible. Identical
+     * inputs are computed once.
+     *
+     * @return Results in input order, or {@code null} if the provider was unavailable for any
+     */
+    private <I> List<String> run(String step, List<I> inputs, Function<I, String> keyText, Function<I, String> call) {
+        List<String> keys = new ArrayList<>(inputs.size());
+        for (I input : inputs) {
+            keys.add(step + ":" + aiClient.getModel() + ":" + PROMPT_VERSION + ":" + Sha256.hex(keyText.apply(input)));
+        }
+        Map<String, String> cached = findCached(keys);
+
+        Map<String, CompletableFuture<String>> computed = new LinkedHashMap<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            String key = keys.get(i);
+            if (cached.containsKey(key)) {
+                hits.increment();
+                continue;
+            }
+            misses.increment();
+            I input = inputs.get(i);
+            computed.computeIfAbsent(key, k -> CompletableFuture.supplyAsync(() -> call.apply(input), summaryExecutor));
+        }
+
+        List<SummaryCacheEntry> toStore = new ArrayList<>();
+        boolean unavailable = false;
+        for (Map.Entry<String, CompletableFuture<String>> entry : computed.entrySet()) {
+            String result = await(entry.getValue());
+            if (result == null) {
+                unavailable = true;
+                continue;
+            }
+            cached.put(entry.getKey(), result);
+            toStore.add(new SummaryCacheEntry(entry.getKey(), result));
+        }
+        store(toStore);
+        if (unavailable) {
+            return null;
+        }
+
+        List<String> results = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            results.add(cached.get(key));
+        }
+        return results;
+    }
+
+    private Map<String, String> findCached(List<String> keys) {
+        Map<String, String> cached = new LinkedHashMap<>();
+        try {
+            for (SummaryCacheEntry entry : summaryCacheRepository.findAllById(keys)) {
+                cached.put(entry.getCacheKey(), entry.getSummaryText());
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Summary cache lookup failed, summarizing without it: {}", ex.toString());
+        }
+        return cached;
+    }
+
+    private void store(List<SummaryCacheEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            summaryCacheRepository.saveAll(entries);
+        } catch (DataAccessException | TransactionException ex) {
+            // Usually a concurrent summarization stored the same input first; the cache is best-effort
+            log.debug("Could not store {} partial summaries in the cache: {}", entries.size(), ex.toString());
+        }
+    }
+
+    private static String await(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw ex;
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("summary.cache.requests")
+                .description("Section and merge summaries by whether the cache answered them")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,212 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.repository.DocumentRepository;
+import com.chitnis.document_management_app.util.SearchTokenizer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Embedded inverted index with BM25 ranking, used when the database has no full-text search
+ * (H2 in development and tests). Each user has a separate partition, so a query only touches
+ * postings of that user's documents. The index lives in memory and is rebuilt from the
+ * database on startup.
+ */
+public class InMemoryFullTextSearchIndex implements FullTextSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final DocumentRepository documentRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, UserPartition> partitions = new HashMap<>();
+    private final Map<Long, Long> ownerByDocument = new HashMap<>();
+
+    public InMemoryFullTextSearchIndex(DocumentRepository documentRepository) {
+        this.documentRepository = documentRepository;
+    }
+
+    @Override
+    public void indexDocument(Long documentId, Long userId, Reader text) {
+        // Tokenize outside the lock; only the posting updates are serialized
+        Map<String, Posting> terms = new HashMap<>();
+        int[] length = new int[1];
+        try {
+            SearchTokenizer.tokenize(text, (term, offset) -> {
+                length[0]++;
+                Posting posting = terms.get(term);
+                if (posting == null) {
+                    terms.put(term, new Posting(offset));
+                } else {
+                    posting.termFrequency++;
+                }
+            });
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(documentId);
+            partitions.computeIfAbsent(userId, id -> new UserPartition()).add(documentId, length[0], terms);
+            ownerByDocument.put(documentId, userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeDocument(Long documentId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Hit> search(Long userId, String query, int page, int size) {
+        List<String> queryTerms = SearchTokenizer.queryTerms(query);
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            UserPartition partition = partitions.get(userId);
+            return partition == null ? List.of() : partition.search(queryTerms, page, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Long> findUnindexedDocumentIds() {
+        List<Long> withText = documentRepository.findIdsWithRawText();
+        lock.readLock().lock();
+        try {
+            return withText.stream().filter(id -> !ownerByDocument.containsKey(id)).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(Long documentId) {
+        Long owner = ownerByDocument.remove(documentId);
+        if (owner == null) {
+            return;
+        }
+        UserPartition partition = partitions.get(owner);
+        partition.remove(documentId);
+        if (partition.documentCount() == 0) {
+            partitions.remove(owner);
+        }
+    }
+
+    private static class Posting {
+        final int firstOffset;
+        int termFrequency = 1;
+
+        Posting(int firstOffset) {
+            this.firstOffset = firstOffset;
+        }
+    }
+
+    private static class UserPartition {
+        final Map<String, Map<Long, Posting>> postings = new HashMap<>();
+        final Map<Long, Integer> lengths = new HashMap<>();
+        final Map<Long, String[]> termsByDocument = new HashMap<>();
+        long totalLength;
+
+        int documentCount() {
+            return lengths.size();
+        }
+
+        void add(Long documentId, int length, Map<String, Posting> terms) {
+            for (Map.Entry<String, Posting> entry : terms.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(documentId, entry.getValue());
+            }
+            termsByDocument.put(documentId, terms.keySet().toArray(new String[0]));
+            lengths.put(documentId, length);
+            totalLength += length;
+        }
+
+        void remove(Long documentId) {
+            String[] terms = termsByDocument.remove(documentId);
+            if (terms != null) {
+                for (String term : terms) {
+                    Map<Long, Posting> documents = postings.get(term);
+                    documents.remove(documentId);
+                    if (documents.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+            Integer length = lengths.remove(documentId);
+            if (length != null) {
+                totalLength -= length;
+            }
+        }
+
+        List<Hit> search(List<String> queryTerms, int page, int size) {
+            List<Map<Long, Posting>> termPostings = new ArrayList<>(queryTerms.size());
+            for (String term : queryTerms) {
+                Map<Long, Posting> documents = postings.get(term);
+                if (documents == null) {
+                    return List.of();
+                }
+                termPostings.add(documents);
+            }
+
+            // Walk the rarest term's postings and probe the others
+            Map<Long, Posting> rarest = termPostings.stream()
+                    .min(Comparator.comparingInt(Map::size))
+                    .orElseThrow();
+            int documentCount = documentCount();
+            double averageLength = Math.max(1.0, (double) totalLength / documentCount);
+
+            List<Hit> hits = new ArrayList<>();
+            for (Long documentId : rarest.keySet()) {
+                double score = 0;
+                int firstOffset = Integer.MAX_VALUE;
+                int matchLength = 0;
+                double lengthNorm = K1 * (1 - B + B * lengths.get(documentId) / averageLength);
+                boolean all = true;
+                for (int t = 0; t < termPostings.size(); t++) {
+                    Map<Long, Posting> documents = termPostings.get(t);
+                    Posting posting = documents.get(documentId);
+                    if (posting == null) {
+                        all = false;
+                        break;
+                    }
+                    int df = documents.size();
+                    double idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                    double tf = posting.termFrequency;
+                    score += idf * tf * (K1 + 1) / (tf + lengthNorm);
+                    if (posting.firstOffset < firstOffset) {
+                        firstOffset = posting.firstOffset;
+                        matchLength = queryTerms.get(t).length();
+                    }
+                }
+                if (all) {
+                    hits.add(new Hit(documentId, score, firstOffset, matchLength));
+                }
+            }
+
+            hits.sort(Comparator.comparingDouble(Hit::getScore).reversed()
+                    .thenComparing(Hit::getDocumentId, Comparator.reverseOrder()));
+            int from = Math.min(hits.size(), page * size);
+            int to = Math.min(hits.size(), from + size);
+            return new ArrayList<>(hits.subList(from, to));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.chitnis.document_management_app.service;
+import com.chitnis.document_management_app.entity.DocumentStatus;
+
+/**
+ * Callback used by the ingestion steps to report where they are.
+ */
+@FunctionalInterface
+public interface IngestionProgress {
+
+    IngestionProgress NONE = (stage, chunksDone, chunksTotal) -> { };
+
+    /**
+     * @param stage Current pipeline stage
+     * @param chunksDone Chunks embedded and stored so far
+     * @param chunksTotal Chunks produced by the chunker, 0 until known
+     */
+    void update(DocumentStatus stage, int chunksDone, int chunksTotal);
+}
@@ -0,0 +1,217 @@
+package com.chitnis.document_management_app.service;
+import com.chitnis.document_management_app.repository.DocumentRepository;
+import com.chitnis.document_management_app.repository.IngestionJobRepository;
+import com.chitnis.document_management_app.entity.DocumentStatus;
+import com.chitnis.document_management_app.entity.IngestionJob;
+import com.chitnis.document_management_app.entity.Document;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Runs text extraction, chunking and embedding for uploaded documents on a bounded
+ * background pool. Progress is persisted in {@link IngestionJob} so clients can poll it
+ * and interrupted jobs can be resumed after a restart.
+ */
+@Service
+public class IngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionService.class);
+    private static final Set<DocumentStatus> ACTIVE_STAGES = EnumSet.of(
+            DocumentStatus.QUEUED,
+            DocumentStatus.EXTRACTING,
+            DocumentStatus.CHUNKING,
+            DocumentStatus.EMBEDDING
+    );
+
+    private final DocumentService documentService;
+    private final DocumentRepository documentRepository;
+    private final IngestionJobRepository ingestionJobRepository;
+    private final TaskExecutor ingestionExecutor;
+    private final FullTextSearchIndex searchIndex;
+    private final DocumentTextStore documentTextStore;
+
+    @Value("${app.ingestion.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.ingestion.retry-backoff-ms:2000}")
+    private long retryBackoffMs;
+
+    public IngestionService(DocumentService documentService,
+                            DocumentRepository documentRepository,
+                            IngestionJobRepository ingestionJobRepository,
+                            @Qualifier("ingestionExecutor") TaskExecutor ingestionExecutor,
+                            FullTextSearchIndex searchIndex,
+                            DocumentTextStore documentTextStore) {
+        this.documentService = documentService;
+        this.documentRepository = documentRepository;
+        this.ingestionJobRepository = ingestionJobRepository;
+        this.ingestionExecutor = ingestionExecutor;
+        this.searchIndex = searchIndex;
+        this.documentTextStore = documentTextStore;
+    }
+
+    /**
+     * Queue a document for ingestion. If a job for it is already queued or running,
+     * that job is returned instead of starting a second one.
+     *
+     * @throws TaskRejectedException if the ingestion queue is full
+     */
+    public IngestionJob submit(Long documentId) {
+        Document document = documentService.getDocumentById(documentId);
+        if (!documentService.hasStoredFile(document)) {
+            throw new IllegalStateException("Stored file is missing for document " + documentId);
+        }
+
+        // Concurrent submits race on the unique document_id and on the conditional re-queue;
+        // only the winner enqueues, the others get the job it queued
+        IngestionJob job = ingestionJobRepository.findByDocumentId(documentId).orElse(null);
+        if (job == null) {
+            job = new IngestionJob();
+            job.setDocumentId(documentId);
+            job.setStatus(DocumentStatus.QUEUED);
+            try {
+                job = ingestionJobRepository.save(job);
+            } catch (DataIntegrityViolationException ex) {
+                return ingestionJobRepository.findByDocumentId(documentId).orElseThrow(() -> ex);
+            }
+        } else if (job.isActive()) {
+            return job;
+        } else if (ingestionJobRepository.requeue(documentId, ACTIVE_STAGES, Instant.now()) == 0) {
+            return ingestionJobRepository.findByDocumentId(documentId).orElse(job);
+        } else {
+            job = ingestionJobRepository.findByDocumentId(documentId).orElseThrow();
+        }
+        documentRepository.updateStatus(documentId, DocumentStatus.QUEUED);
+
+        enqueue(job);
+        return job;
+    }
+
+    /**
+     * Current ingestion job for a document owned by the current user, if one was ever submitted.
+     */
+    public Optional<IngestionJob> getJob(Long documentId) {
+        documentService.getDocumentById(documentId);
+        return ingestionJobRepository.findByDocumentId(documentId);
+    }
+
+    /**
+     * Re-queue jobs that were in flight when the application last stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        for (IngestionJob job : ingestionJobRepository.findByStatusIn(ACTIVE_STAGES)) {
+            log.info("Resuming interrupted ingestion for document {} (was {})", job.getDocumentId(), job.getStatus());
+            try {
+                enqueue(job);
+            } catch (TaskRejectedException ex) {
+                log.warn("Ingestion queue full; document {} stays {} until resubmitted",
+                        job.getDocumentId(), job.getStatus());
+            }
+        }
+    }
+
+    private void enqueue(IngestionJob job) {
+        Long documentId = job.getDocumentId();
+        try {
+            ingestionExecutor.execute(() -> run(documentId));
+        } catch (TaskRejectedException ex) {
+            job.setStatus(DocumentStatus.FAILED);
+            job.setLastError("Ingestion queue is full");
+            ingestionJobRepository.save(job);
+            documentRepository.updateStatus(documentId, DocumentStatus.FAILED);
+            throw ex;
+        }
+    }
+
+    private void run(Long documentId) {
+        IngestionJob job = ingestionJobRepository.findByDocumentId(documentId).orElse(null);
+        if (job == null) {
+            return;
+        }
+
+        long backoff = retryBackoffMs;
+        while (true) {
+            job.setAttempts(job.getAttempts() + 1);
+            try {
+                process(job);
+                return;
+            } catch (Exception ex) {
+                log.warn("Ingestion attempt {}/{} for document {} failed during {}: {}",
+                        job.getAttempts(), maxAttempts, documentId, job.getStatus(), ex.toString());
+                job.setLastError(ex.getClass().getSimpleName() + ": " + ex.getMessage());
+
+                boolean retryable = !(ex instanceof EntityNotFoundException);
+                if (!retryable || job.getAttempts() >= maxAttempts) {
+                    log.error("Ingestion for document {} failed", documentId, ex);
+                    update(job, DocumentStatus.FAILED, job.getChunksDone(), job.getChunksTotal());
+                    return;
+                }
+                ingestionJobRepository.save(job);
+            }
+
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                update(job, DocumentStatus.FAILED, job.getChunksDone(), job.getChunksTotal());
+                return;
+            }
+            backoff *= 2;
+        }
+    }
+
+    private void process(IngestionJob job) throws Exception {
+        Long documentId = job.getDocumentId();
+        Document document = documentRepository.findById(documentId)
+                .orElseThrow(() -> new EntityNotFoundException("Document not found: " + documentId));
+
+        // 1-3. Stream text out of the PDF page by page, chunking and embedding it on the way
+        documentService.extractAndEmbed(document, (stage, chunksDone, chunksTotal) ->
+                update(job, stage, chunksDone, chunksTotal));
+        index(document);
+
+        // 4. Done
+        update(job, DocumentStatus.READY, job.getChunksTotal(), job.getChunksTotal());
+    }
+
+    /**
+     * Keyword indexing does not fail ingestion: the chunks are in place and the document is
+     * usable. An unindexed document is picked up by {@link SearchIndexBackfill} on next start.
+     */
+    private void index(Document document) {
+        try (Reader text = documentTextStore.openReader(document.getId())) {
+            searchIndex.indexDocument(document.getId(), document.getUserId(), text);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not index document {} for full-text search: {}", document.getId(), ex.toString());
+        }
+    }
+
+    private void update(IngestionJob job, DocumentStatus stage, int chunksDone, int chunksTotal) {
+        boolean stageChanged = job.getStatus() != stage;
+        job.setStatus(stage);
+        job.setChunksDone(chunksDone);
+        job.setChunksTotal(chunksTotal);
+        ingestionJobRepository.save(job);
+        if (stageChanged) {
+            documentRepository.updateStatus(job.getDocumentId(), stage);
+        }
+    }
+}
@@ -1,9 +1,9 @@
 package com.chitnis.document_management_app.service;
-import com.chitnis.document_management_app.util.VectorUtils;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -14,6 +14,7 @@ import org.springframework.web.client.RestTemplate;
 
 import jakarta.annotation.PostConstruct;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -28,12 +29,26 @@ public class JinaEmbeddingService implements EmbeddingService {
     private static final String JINA_API_URL = "https://api.jina.ai/v1/embeddings";
     private static final String MODEL = "jina-embeddings-v2-base-en";
     private static final int DIMENSION = 768;
+    private static final int MAX_TEXT_LENGTH = 8000;
+    // Rough English average; only used to keep batches under the provider's token limit
+    private static final int CHARS_PER_TOKEN = 4;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
     private final String apiKey;
+    private final String apiUrl;
+    private final int maxBatchSize;
+    private final int maxBatchTokens;
 
-    public JinaEmbeddingService(@Value("${jina.api.key:}") String apiKey) {
+    public JinaEmbeddingService(@Qualifier("jinaRestTemplate") RestTemplate restTemplate,
+                                @Value("${jina.api.key:}") String apiKey,
+                                @Value("${jina.api.url:" + JINA_API_URL + "}") String apiUrl,
+                                @Value("${jina.api.max-batch-size:64}") int maxBatchSize,
+                                @Value("${jina.api.max-batch-tokens:16000}") int maxBatchTokens) {
+        this.restTemplate = restTemplate;
         this.apiKey = apiKey;
+        this.apiUrl = apiUrl;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxBatchTokens = Math.max(1, maxBatchTokens);
     }
 
     @PostConstruct
@@ -42,22 +57,62 @@ public class JinaEmbeddingService implements EmbeddingService {
             log.warn("⚠️  Jina API key not configured. Embeddings will use fallback mode.");
             log.warn("   Get a free API key at: https://jina.ai/embeddings/");
         } else {
-            log.info("✅ Jina Embedding Service initialized with model: {}", MODEL);
+            log.info("✅ Jina Embedding Service initialized with model: {} (batch size {}, {} tokens per batch)",
+                    MODEL, maxBatchSize, maxBatchTokens);
         }
     }
 
     @Override
     public List<Double> embed(String text) {
-        if (text == null || text.isBlank()) {
-            return createZeroVector();
+        return embedAll(List.of(text == null ? "" : text)).get(0);
+    }
+
+    @Override
+    public List<List<Double>> embedAll(List<String> texts) {
+        List<List<Double>> embeddings = new ArrayList<>(Collections.nCopies(texts.size(), null));
+
+        // Blank texts never hit the API; everything else is truncated to avoid API limits
+        List<Integer> pending = new ArrayList<>();
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            if (text == null || text.isBlank()) {
+                embeddings.set(i, createZeroVector());
+                continue;
+            }
+            pending.add(i);
+            inputs.add(text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text);
+        }
+
+        // Pack consecutive inputs into requests bounded by count and estimated tokens
+        int start = 0;
+        while (start < inputs.size()) {
+            int end = start;
+            int batchTokens = 0;
+            while (end < inputs.size() && end - start < maxBatchSize) {
+                int tokens = estimateTokens(inputs.get(end));
+                if (end > start && batchTokens + tokens > maxBatchTokens) {
+                    break;
+                }
+                batchTokens += tokens;
+                end++;
+            }
+
+            List<String> batch = inputs.subList(start, end);
+            List<List<Double>> batchEmbeddings = embedBatch(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                embeddings.set(pending.get(start + i), batchEmbeddings.get(i));
+            }
+            start = end;
         }
 
-        // Truncate very long texts to avoid API limits
-        String truncated = text.length() > 8000 ? text.substring(0, 8000) : text;
+        return embeddings;
+    }
 
+    private List<List<Double>> embedBatch(List<String> batch) {
         // If no API key, use simple fallback
         if (apiKey == null || apiKey.isBlank()) {
-            return createSimpleEmbedding(truncated);
+            return fallbackEmbeddings(batch);
         }
 
         try {
@@ -67,43 +122,79 @@ public class JinaEmbeddingService implements EmbeddingService {
 
             Map<String, Object> body = Map.of(
                     "model", MODEL,
-                    "input", List.of(truncated)
+                    "input", batch
             );
 
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
             JinaEmbeddingResponse response = restTemplate.postForObject(
-                    JINA_API_URL,
+                    apiUrl,
                     request,
                     JinaEmbeddingResponse.class
             );
 
-            if (response != null && response.data != null && !response.data.isEmpty()) {
-                List<Double> embedding = response.data.get(0).embedding;
-                if (embedding != null && !embedding.isEmpty()) {
-                    return embedding;
+            if (response != null && response.data != null && response.data.size() == batch.size()) {
+                // The API reports each embedding's input position; don't rely on response order
+                List<List<Double>> embeddings = new ArrayList<>(Collections.nCopies(batch.size(), null));
+                for (EmbeddingData data : response.data) {
+                    if (data.index < 0 || data.index >= batch.size()
+                            || data.embedding == null || data.embedding.isEmpty()) {
+                        log.warn("Malformed entry in Jina API response, using fallback");
+                        return fallbackEmbeddings(batch);
+                    }
+                    embeddings.set(data.index, data.embedding);
+                }
+                if (!embeddings.contains(null)) {
+                    return embeddings;
                 }
             }
 
-            log.warn("Empty response from Jina API, using fallback");
-            return createSimpleEmbedding(truncated);
+            log.warn("Empty or incomplete response from Jina API for {} inputs, using fallback", batch.size());
+            return fallbackEmbeddings(batch);
 
         } catch (RestClientException ex) {
             log.error("Failed to get embeddings from Jina API: {}", ex.getMessage());
-            return createSimpleEmbedding(truncated);
+            return fallbackEmbeddings(batch);
         }
     }
 
+    private List<List<Double>> fallbackEmbeddings(List<String> batch) {
+        List<List<Double>> embeddings = new ArrayList<>(batch.size());
+        for (String text : batch) {
+            embeddings.add(createSimpleEmbedding(text));
+        }
+        return embeddings;
+    }
+
+    private static int estimateTokens(String text) {
+        return text.length() / CHARS_PER_TOKEN + 1;
+    }
+
     @Override
     public int getDimension() {
         return DIMENSION;
     }
 
+    @Override
+    public String getModelName() {
+        return MODEL;
+    }
+
+    @Override
+    public boolean isModelOutput(List<Double> embedding) {
+        return !(embedding instanceof FallbackEmbedding);
+    }
+
+    @Override
+    public boolean isModelConfigured() {
+        return apiKey != null && !apiKey.isBlank();
+    }
+
     /**
      * Simple fallback embedding based on text statistics.
      * This is NOT a real embedding but allows the system to work without an API key.
      */
     private List<Double> createSimpleEmbedding(String text) {
-        List<Double> embedding = new ArrayList<>(DIMENSION);
+        List<Double> embedding = new FallbackEmbedding();
         String lower = text.toLowerCase();
 
         // Simple hash-based features spread across the vector
@@ -129,13 +220,22 @@ public class JinaEmbeddingService implements EmbeddingService {
     }
 
     private List<Double> createZeroVector() {
-        List<Double> embedding = new ArrayList<>(DIMENSION);
+        List<Double> embedding = new FallbackEmbedding();
         for (int i = 0; i < DIMENSION; i++) {
             embedding.add(0.0);
         }
         return embedding;
     }
 
+    /**
+     * Marks vectors that were not produced by the model, see {@link #isModelOutput(List)}.
+     */
+    private static class FallbackEmbedding extends ArrayList<Double> {
+        FallbackEmbedding() {
+            super(DIMENSION);
+        }
+    }
+
     @JsonIgnoreProperties(ignoreUnknown = true)
     private static class JinaEmbeddingResponse {
         private List<EmbeddingData> data;
@@ -151,8 +251,17 @@ public class JinaEmbeddingService implements EmbeddingService {
 
     @JsonIgnoreProperties(ignoreUnknown = true)
     private static class EmbeddingData {
+        private int index;
         private List<Double> embedding;
 
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
         public List<Double> getEmbedding() {
             return embedding;
         }
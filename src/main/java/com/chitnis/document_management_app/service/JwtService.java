@@ -1,7 +1,7 @@
 package com.chitnis.document_management_app.service;
-import com.chitnis.document_management_app.entity.User;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -15,15 +15,20 @@ import org.springframework.stereotype.Service;
 @Service
 public class JwtService {
 
-    private final String secret;
     private final long expirationMs;
+    // Both are immutable and thread-safe, so they are built once rather than per token
+    private final Key signingKey;
+    private final JwtParser parser;
 
     public JwtService(
             @Value("${jwt.secret:change-this-secret-change-this-secret}") String secret,
             @Value("${jwt.expiration:86400000}") long expirationMs
     ) {
-        this.secret = secret;
         this.expirationMs = expirationMs;
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -33,33 +38,25 @@ public class JwtService {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(now)
                 .setExpiration(expiry)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String extractUsername(String token) {
-        return extractAllClaims(token).getSubject();
-    }
-
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isExpired(token);
+    /**
+     * Verify a token's signature and expiry once and return its claims.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, forged or expired
+     */
+    public Claims parse(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private boolean isExpired(String token) {
-        return extractAllClaims(token).getExpiration().before(new Date());
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public String extractUsername(String token) {
+        return parse(token).getSubject();
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public boolean isTokenValid(String token, UserDetails userDetails) {
+        // parse() already rejects expired tokens
+        return parse(token).getSubject().equals(userDetails.getUsername());
     }
 }
@@ -0,0 +1,137 @@
+package com.chitnis.document_management_app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Blobs on the local file system, sharded by the first two byte pairs of the key:
+ * {@code <root>/ab/cd/abcd....pdf}. With hash keys that spreads files evenly over 65536
+ * directories, so no directory grows large enough to slow down lookups.
+ *
+ * Files are staged in {@code <root>/.staging}, flushed to disk, and renamed into place; the
+ * shard directory is flushed too, so a blob that was reported stored survives a crash.
+ */
+public class LocalBlobStore implements BlobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalBlobStore.class);
+    static final String STAGING_DIR = ".staging";
+
+    private final Path root;
+
+    public LocalBlobStore(Path root) {
+        this.root = root;
+    }
+
+    public LocalBlobStore(String root) {
+        this(Paths.get(root));
+    }
+
+    @Override
+    public Path stagingDirectory() throws IOException {
+        return Files.createDirectories(root.resolve(STAGING_DIR));
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        Path target = path(key);
+        Files.createDirectories(target.getParent());
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            // Source on another file system: copy next to the target first, then rename
+            Path temp = Files.createTempFile(stagingDirectory(), ".put-", ".tmp");
+            try {
+                Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            Files.delete(source);
+        }
+        syncDirectory(target.getParent());
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(path(key));
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(path(key));
+    }
+
+    @Override
+    public LocalFile localFile(String key) throws IOException {
+        Path file = path(key);
+        if (!Files.exists(file)) {
+            throw new NoSuchFileException(file.toString());
+        }
+        return new LocalFile(file, false, () -> { });
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(path(key));
+    }
+
+    @Override
+    public void forEach(Consumer<StoredBlob> action) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> files = Files.find(root, 3, (file, attributes) -> attributes.isRegularFile()
+                && root.relativize(file).getNameCount() == 3)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                try {
+                    action.accept(new StoredBlob(file.getFileName().toString(),
+                            Files.getLastModifiedTime(file).toInstant()));
+                } catch (NoSuchFileException ignored) {
+                    // Deleted while listing
+                }
+            }
+        }
+    }
+
+    Path path(String key) {
+        return root.resolve(shardedName(key));
+    }
+
+    /**
+     * {@code ab/cd/abcd...}: where a key lives relative to the root of a sharded store.
+     */
+    static String shardedName(String key) {
+        if (key.length() < 4 || key.contains("/") || key.contains("\\") || key.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return key.substring(0, 2) + "/" + key.substring(2, 4) + "/" + key;
+    }
+
+    private static void syncDirectory(Path directory) {
+        // Makes the rename durable; not every platform can open a directory for this
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            log.debug("Could not flush directory {}: {}", directory, ex.toString());
+        }
+    }
+}
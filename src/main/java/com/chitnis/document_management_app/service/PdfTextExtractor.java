@@ -0,0 +1,257 @@
+package com.chitnis.document_management_app.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessStreamCache;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Extracts PDF text one page at a time into a {@link Writer}.
+ *
+ * Decoded streams are cached in temp files (or a bounded amount of heap, see
+ * {@code app.extraction.max-main-memory-bytes}) instead of main memory, and the text is
+ * never materialized as one string, so the consumer decides how much of it to keep.
+ *
+ * Large documents are split into page ranges that are stripped concurrently on the
+ * extraction pool. PDFBox documents are not thread-safe, so every range opens its own
+ * {@link PDDocument} over a private cursor into one shared read-only mapping of the file,
+ * and the ranges are written to the output in page order. The mapping is released by the
+ * garbage collector rather than unmapped explicitly, so a range still running after a
+ * failure can never touch unmapped memory.
+ *
+ * Outputs that implement {@link PageSink} are told where every page ends.
+ */
+@Component
+public class PdfTextExtractor {
+
+    // Aim for a few ranges per worker so uneven pages still balance across the pool
+    private static final int RANGES_PER_WORKER = 4;
+    private static final int MIN_PAGES_PER_RANGE = 8;
+
+    private final long maxMainMemoryBytes;
+    private final int parallelism;
+    private final int parallelMinPages;
+    private final Executor extractionExecutor;
+
+    public PdfTextExtractor(@Value("${app.extraction.max-main-memory-bytes:0}") long maxMainMemoryBytes,
+                            @Value("${app.extraction.parallelism:0}") int parallelism,
+                            @Value("${app.extraction.parallel-min-pages:64}") int parallelMinPages,
+                            @Qualifier("extractionExecutor") Executor extractionExecutor) {
+        this.maxMainMemoryBytes = maxMainMemoryBytes;
+        this.parallelism = resolveParallelism(parallelism);
+        this.parallelMinPages = parallelMinPages;
+        this.extractionExecutor = extractionExecutor;
+    }
+
+    /**
+     * Implemented by outputs that track page boundaries, e.g. to index the text by page.
+     */
+    public interface PageSink {
+        /**
+         * Called after the last character of every page, including empty ones.
+         */
+        void endPage() throws IOException;
+    }
+
+    /**
+     * @param parallelism Configured extraction parallelism; 0 or less means one thread per core
+     * @return The number of extraction threads to use
+     */
+    public static int resolveParallelism(int parallelism) {
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Write the text of every page of a PDF to {@code out}, in page order.
+     *
+     * @param file The PDF to read
+     * @param out Receives the text; flushed after every page or page range
+     * @return The number of pages processed
+     */
+    public int extract(Path file, Writer out) throws IOException {
+        // A single mapping is limited to 2 GB; anything larger is read sequentially
+        if (parallelism < 2 || Files.size(file) > Integer.MAX_VALUE) {
+            try (PDDocument document = Loader.loadPDF(file.toFile(), streamCache())) {
+                return extractPages(document, 1, document.getNumberOfPages(), out);
+            }
+        }
+
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try (PDDocument document = Loader.loadPDF(new RandomAccessReadBuffer(mapped.duplicate()), streamCache())) {
+            int pages = document.getNumberOfPages();
+            if (pages < parallelMinPages) {
+                return extractPages(document, 1, pages, out);
+            }
+            extractParallel(mapped, document, pages, out);
+            return pages;
+        }
+    }
+
+    /**
+     * Write the text of the pages {@code firstPage..lastPage} (1-based, inclusive) to {@code out}.
+     */
+    int extractPages(PDDocument document, int firstPage, int lastPage, Writer out) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        for (int page = firstPage; page <= lastPage; page++) {
+            stripper.setStartPage(page);
+            stripper.setEndPage(page);
+            stripper.writeText(document, out);
+            out.flush();
+            if (out instanceof PageSink sink) {
+                sink.endPage();
+            }
+        }
+        return Math.max(0, lastPage - firstPage + 1);
+    }
+
+    /**
+     * Strip the first range on the calling thread with the already loaded document while the
+     * remaining ranges run on the pool. At most two ranges per worker are in flight, which
+     * bounds the text held in memory while waiting for an earlier range to finish.
+     */
+    private void extractParallel(ByteBuffer mapped, PDDocument first, int pages, Writer out) throws IOException {
+        int rangeSize = Math.max(MIN_PAGES_PER_RANGE,
+                (pages + parallelism * RANGES_PER_WORKER - 1) / (parallelism * RANGES_PER_WORKER));
+        int window = parallelism * 2;
+
+        AtomicBoolean aborted = new AtomicBoolean();
+        Deque<CompletableFuture<PageBuffer>> inFlight = new ArrayDeque<>();
+        int nextPage = 1 + rangeSize;
+        boolean completed = false;
+        try {
+            while (nextPage <= pages && inFlight.size() < window) {
+                inFlight.add(submitRange(mapped, nextPage, Math.min(pages, nextPage + rangeSize - 1), aborted));
+                nextPage += rangeSize;
+            }
+
+            extractPages(first, 1, Math.min(pages, rangeSize), out);
+
+            while (!inFlight.isEmpty()) {
+                await(inFlight.poll()).writeTo(out);
+                if (nextPage <= pages) {
+                    inFlight.add(submitRange(mapped, nextPage, Math.min(pages, nextPage + rangeSize - 1), aborted));
+                    nextPage += rangeSize;
+                }
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                // Queued ranges skip themselves; wait for running ones so a retry does not compete with them
+                aborted.set(true);
+                awaitQuietly(inFlight);
+            }
+        }
+    }
+
+    private CompletableFuture<PageBuffer> submitRange(ByteBuffer mapped, int firstPage, int lastPage,
+                                                  AtomicBoolean aborted) {
+        return CompletableFuture.supplyAsync(() -> {
+            PageBuffer text = new PageBuffer();
+            if (aborted.get()) {
+                return text;
+            }
+            try (PDDocument document = Loader.loadPDF(new RandomAccessReadBuffer(mapped.duplicate()), streamCache())) {
+                extractPages(document, firstPage, lastPage, text);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return text;
+        }, extractionExecutor);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting PDF text", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("PDF page range extraction failed", cause);
+        }
+    }
+
+    private static void awaitQuietly(Deque<CompletableFuture<PageBuffer>> futures) {
+        boolean interrupted = Thread.interrupted();
+        for (CompletableFuture<PageBuffer> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                } catch (ExecutionException ex) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    RandomAccessStreamCache.StreamCacheCreateFunction streamCache() {
+        MemoryUsageSetting setting = maxMainMemoryBytes > 0
+                ? MemoryUsageSetting.setupMixed(maxMainMemoryBytes)
+                : MemoryUsageSetting.setupTempFileOnly();
+        return setting.streamCache;
+    }
+
+    /**
+     * Text of a page range stripped on the pool, with the offsets at which its pages end.
+     */
+    private static class PageBuffer extends StringWriter implements PageSink {
+        private final List<Integer> pageEnds = new ArrayList<>();
+
+        @Override
+        public void endPage() {
+            pageEnds.add(getBuffer().length());
+        }
+
+        void writeTo(Writer out) throws IOException {
+            String text = toString();
+            int start = 0;
+            for (int end : pageEnds) {
+                out.write(text, start, end - start);
+                if (out instanceof PageSink sink) {
+                    sink.endPage();
+                }
+                start = end;
+            }
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.util.SearchTokenizer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full-text index backed by a PostgreSQL {@code tsvector} column with a GIN index.
+ *
+ * The vector holds the distinct terms {@link SearchTokenizer} produces, using the
+ * {@code simple} configuration, so matching behaves like the embedded index. It is only used
+ * to find matches: each term's frequency and first offset are stored next to it, and matches
+ * are ranked with BM25 over the owner's documents, as {@link InMemoryFullTextSearchIndex}
+ * does. The offsets let snippets be cut without reading the whole text.
+ *
+ * PostgreSQL rejects a {@code tsvector} over 1 MB, so a document's distinct terms are capped
+ * at {@link #MAX_VECTOR_BYTES}; terms first seen after that are not searchable.
+ */
+public class PostgresFullTextSearchIndex implements FullTextSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresFullTextSearchIndex.class);
+    static final int MAX_VECTOR_BYTES = 768 * 1024;
+    // Per-lexeme overhead of a tsvector entry with one position
+    private static final int LEXEME_OVERHEAD_BYTES = 8;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public PostgresFullTextSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Create the index tables if they do not exist yet.
+     */
+    public void createSchema() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS document_search (
+                    document_id BIGINT PRIMARY KEY,
+                    user_id BIGINT NOT NULL,
+                    tsv TSVECTOR NOT NULL
+                )""");
+        // Rows indexed before BM25 ranking have no length and are picked up again by the backfill
+        jdbcTemplate.execute("ALTER TABLE document_search ADD COLUMN IF NOT EXISTS term_count INTEGER");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS document_search_tsv_idx ON document_search USING GIN (tsv)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS document_search_user_idx ON document_search (user_id)");
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS document_search_terms (
+                    document_id BIGINT NOT NULL,
+                    term VARCHAR(64) NOT NULL,
+                    first_offset INTEGER NOT NULL,
+                    PRIMARY KEY (document_id, term)
+                )""");
+        jdbcTemplate.execute(
+                "ALTER TABLE document_search_terms ADD COLUMN IF NOT EXISTS term_frequency INTEGER NOT NULL DEFAULT 1");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS document_search_terms_term_idx ON document_search_terms (term)");
+    }
+
+    @Override
+    @Transactional
+    public void indexDocument(Long documentId, Long userId, Reader text) {
+        // {first offset, frequency} per distinct term; the text itself is never held
+        Map<String, int[]> terms = new LinkedHashMap<>();
+        int[] length = new int[1];
+        int[] vectorBytes = new int[1];
+        int[] dropped = new int[1];
+        try {
+            SearchTokenizer.tokenize(text, (term, offset) -> {
+                length[0]++;
+                int[] stats = terms.get(term);
+                if (stats != null) {
+                    stats[1]++;
+                    return;
+                }
+                int bytes = term.getBytes(StandardCharsets.UTF_8).length + LEXEME_OVERHEAD_BYTES;
+                if (vectorBytes[0] + bytes > MAX_VECTOR_BYTES) {
+                    dropped[0]++;
+                    return;
+                }
+                vectorBytes[0] += bytes;
+                terms.put(term, new int[]{offset, 1});
+            });
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (dropped[0] > 0) {
+            log.warn("Document {} has more distinct terms than fit a tsvector; {} term occurrences are not searchable",
+                    documentId, dropped[0]);
+        }
+
+        // Positions are stripped: ranking uses the stored frequencies, and matching needs none
+        jdbcTemplate.update("""
+                INSERT INTO document_search (document_id, user_id, term_count, tsv)
+                VALUES (?, ?, ?, strip(to_tsvector('simple', ?)))
+                ON CONFLICT (document_id) DO UPDATE
+                SET user_id = EXCLUDED.user_id, term_count = EXCLUDED.term_count, tsv = EXCLUDED.tsv
+                """, documentId, userId, length[0], String.join(" ", terms.keySet()));
+
+        jdbcTemplate.update("DELETE FROM document_search_terms WHERE document_id = ?", documentId);
+        List<Object[]> rows = new ArrayList<>(terms.size());
+        terms.forEach((term, stats) -> rows.add(new Object[]{documentId, term, stats[0], stats[1]}));
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO document_search_terms (document_id, term, first_offset, term_frequency)
+                VALUES (?, ?, ?, ?)""", rows);
+    }
+
+    @Override
+    @Transactional
+    public void removeDocument(Long documentId) {
+        jdbcTemplate.update("DELETE FROM document_search_terms WHERE document_id = ?", documentId);
+        jdbcTemplate.update("DELETE FROM document_search WHERE document_id = ?", documentId);
+    }
+
+    @Override
+    public List<Hit> search(Long userId, String query, int page, int size) {
+        List<String> queryTerms = SearchTokenizer.queryTerms(query);
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        // Terms only contain letters and digits, so they are safe to join into tsquery syntax
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("query", String.join(" & ", queryTerms))
+                .addValue("limit", size)
+                .addValue("offset", (long) page * size);
+        // BM25 with k1 = 1.2 and b = 0.75 over the user's documents, as in the embedded index
+        return namedJdbcTemplate.query("""
+                WITH stats AS (
+                    SELECT COUNT(*) AS documents, GREATEST(AVG(term_count), 1) AS average_length
+                    FROM document_search WHERE user_id = :userId
+                ), frequencies AS (
+                    SELECT t.term, COUNT(*) AS df
+                    FROM document_search_terms t JOIN document_search ds ON ds.document_id = t.document_id
+                    WHERE ds.user_id = :userId AND t.term IN (:terms)
+                    GROUP BY t.term
+                ), matches AS (
+                    SELECT ds.document_id, COALESCE(ds.term_count, 0) AS term_count
+                    FROM document_search ds, to_tsquery('simple', :query) q
+                    WHERE ds.user_id = :userId AND ds.tsv @@ q
+                )
+                SELECT m.document_id,
+                       CAST(SUM(LN(1 + (s.documents - f.df + 0.5) / (f.df + 0.5))
+                                * t.term_frequency * 2.2
+                                / (t.term_frequency + 1.2 * (0.25 + 0.75 * m.term_count / s.average_length)))
+                            AS DOUBLE PRECISION) AS score,
+                       MIN(t.first_offset) AS first_offset,
+                       (ARRAY_AGG(LENGTH(t.term) ORDER BY t.first_offset))[1] AS match_length
+                FROM matches m
+                JOIN document_search_terms t ON t.document_id = m.document_id AND t.term IN (:terms)
+                JOIN frequencies f ON f.term = t.term
+                CROSS JOIN stats s
+                GROUP BY m.document_id
+                ORDER BY score DESC, m.document_id DESC
+                LIMIT :limit OFFSET :offset
+                """, params.addValue("terms", queryTerms),
+                (rs, rowNum) -> new Hit(rs.getLong(1), rs.getDouble(2), rs.getInt(3), rs.getInt(4)));
+    }
+
+    @Override
+    public List<Long> findUnindexedDocumentIds() {
+        return jdbcTemplate.queryForList("""
+                SELECT d.id FROM documents d
+                JOIN document_text dt ON dt.document_id = d.id
+                LEFT JOIN document_search ds ON ds.document_id = d.id
+                WHERE ds.document_id IS NULL OR ds.term_count IS NULL
+                ORDER BY d.id
+                """, Long.class);
+    }
+}
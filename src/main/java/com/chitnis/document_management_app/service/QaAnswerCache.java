@@ -0,0 +1,236 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.util.SimilarityKernels;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Answers already computed for a document, so repeated questions skip retrieval and the LLM call.
+ *
+ * Entries are keyed by document id, the document's chunk-set version and the normalized
+ * question. A miss on the exact question can still be answered by an earlier question whose
+ * embedding is at least {@code app.qa.answer-cache.similarity-threshold} similar. Entries
+ * expire after {@code ttl}; writers call {@link #invalidate(Long)} when a document's chunks
+ * change, and a different version never matches in any case.
+ *
+ * Lookups are counted in {@code qa.answer-cache.requests}, tagged {@code exact},
+ * {@code semantic} or {@code miss}.
+ */
+@Component
+public class QaAnswerCache {
+
+    private final Cache<Long, DocumentAnswers> cache;
+    private final boolean enabled;
+    private final boolean semantic;
+    private final double similarityThreshold;
+    private final int maxPerDocument;
+    private final long ttlNanos;
+    private final Counter exactHits;
+    private final Counter semanticHits;
+    private final Counter misses;
+
+    public QaAnswerCache(MeterRegistry meterRegistry,
+                         @Value("${app.qa.answer-cache.enabled:true}") boolean enabled,
+                         @Value("${app.qa.answer-cache.max-entries:2000}") long maxEntries,
+                         @Value("${app.qa.answer-cache.max-per-document:64}") int maxPerDocument,
+                         @Value("${app.qa.answer-cache.ttl:PT24H}") Duration ttl,
+                         @Value("${app.qa.answer-cache.semantic:true}") boolean semantic,
+                         @Value("${app.qa.answer-cache.similarity-threshold:0.95}") double similarityThreshold) {
+        this.enabled = enabled;
+        this.semantic = semantic;
+        this.similarityThreshold = similarityThreshold;
+        this.maxPerDocument = Math.max(1, maxPerDocument);
+        this.ttlNanos = ttl.toNanos();
+        // Weighed by answer count so the bound is in answers, not documents
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxEntries)
+                .weigher((Long documentId, DocumentAnswers answers) -> answers.entries.size())
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "qa.answers");
+        this.exactHits = counter(meterRegistry, "exact");
+        this.semanticHits = counter(meterRegistry, "semantic");
+        this.misses = counter(meterRegistry, "miss");
+    }
+
+    /**
+     * Answer for exactly this question, after normalization.
+     *
+     * @return The cached answer, or {@code null}
+     */
+    public CachedAnswer get(Long documentId, long version, String question) {
+        if (!enabled) {
+            return null;
+        }
+        String normalized = normalize(question);
+        for (CachedAnswer answer : live(documentId, version)) {
+            if (answer.normalizedQuestion.equals(normalized)) {
+                exactHits.increment();
+                return answer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Answer for the most similar earlier question, if it is similar enough. Counts a miss
+     * otherwise, so call it after {@link #get} came back empty.
+     *
+     * @param questionVector Normalized question embedding
+     * @return The cached answer, or {@code null}
+     */
+    public CachedAnswer findSimilar(Long documentId, long version, float[] questionVector) {
+        if (!enabled) {
+            return null;
+        }
+        CachedAnswer best = null;
+        double bestScore = similarityThreshold;
+        if (semantic) {
+            for (CachedAnswer answer : live(documentId, version)) {
+                if (answer.questionVector == null || answer.questionVector.length != questionVector.length) {
+                    continue;
+                }
+                double score = SimilarityKernels.dot(answer.questionVector, questionVector);
+                if (score >= bestScore) {
+                    best = answer;
+                    bestScore = score;
+                }
+            }
+        }
+        if (best != null) {
+            semanticHits.increment();
+        } else {
+            misses.increment();
+        }
+        return best;
+    }
+
+    /**
+     * Count a miss for a lookup that cannot use the semantic tier.
+     */
+    public void recordMiss() {
+        if (enabled) {
+            misses.increment();
+        }
+    }
+
+    /**
+     * @param questionVector Normalized question embedding, or {@code null} if none was computed
+     */
+    public void put(Long documentId, long version, String question, float[] questionVector,
+                    String answer, String sourceSnippet) {
+        if (!enabled) {
+            return;
+        }
+        CachedAnswer entry = new CachedAnswer(normalize(question), questionVector, answer, sourceSnippet, System.nanoTime());
+        cache.asMap().compute(documentId, (id, current) -> {
+            List<CachedAnswer> entries = new ArrayList<>(maxPerDocument);
+            entries.add(entry);
+            if (current != null && current.version == version) {
+                for (CachedAnswer existing : current.entries) {
+                    if (entries.size() == maxPerDocument) {
+                        break;
+                    }
+                    if (!existing.normalizedQuestion.equals(entry.normalizedQuestion) && !isExpired(existing)) {
+                        entries.add(existing);
+                    }
+                }
+            }
+            return new DocumentAnswers(version, entries);
+        });
+    }
+
+    public void invalidate(Long documentId) {
+        cache.invalidate(documentId);
+    }
+
+    /**
+     * Lowercase, collapse whitespace and drop trailing punctuation, so "What is X?" and
+     * "what is  x" share an entry.
+     */
+    static String normalize(String question) {
+        String collapsed = question.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        int end = collapsed.length();
+        while (end > 0 && "?!. ".indexOf(collapsed.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return collapsed.substring(0, end);
+    }
+
+    private List<CachedAnswer> live(Long documentId, long version) {
+        DocumentAnswers answers = cache.getIfPresent(documentId);
+        if (answers == null || answers.version != version) {
+            return Collections.emptyList();
+        }
+        List<CachedAnswer> live = new ArrayList<>(answers.entries.size());
+        for (CachedAnswer answer : answers.entries) {
+            if (!isExpired(answer)) {
+                live.add(answer);
+            }
+        }
+        return live;
+    }
+
+    private boolean isExpired(CachedAnswer answer) {
+        return System.nanoTime() - answer.createdAtNanos > ttlNanos;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("qa.answer-cache.requests")
+                .description("Question answering lookups by how the answer cache served them")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Answers for one version of a document's chunks, most recent first. Replaced, never
+     * modified, so readers need no locking.
+     */
+    private static class DocumentAnswers {
+        final long version;
+        final List<CachedAnswer> entries;
+
+        DocumentAnswers(long version, List<CachedAnswer> entries) {
+            this.version = version;
+            this.entries = entries;
+        }
+    }
+
+    public static class CachedAnswer {
+        private final String normalizedQuestion;
+        private final float[] questionVector;
+        private final String answer;
+        private final String sourceSnippet;
+        private final long createdAtNanos;
+
+        CachedAnswer(String normalizedQuestion, float[] questionVector, String answer, String sourceSnippet,
+                     long createdAtNanos) {
+            this.normalizedQuestion = normalizedQuestion;
+            this.questionVector = questionVector;
+            this.answer = answer;
+            this.sourceSnippet = sourceSnippet;
+            this.createdAtNanos = createdAtNanos;
+        }
+
+        public String getAnswer() {
+            return answer;
+        }
+
+        public String getSourceSnippet() {
+            return sourceSnippet;
+        }
+    }
+}
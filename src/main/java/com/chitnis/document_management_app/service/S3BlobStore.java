@@ -0,0 +1,348 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.util.SigV4Signer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Blobs in an S3-compatible bucket (AWS S3, MinIO, Ceph RGW...), so several app nodes can
+ * share one store. Requests are signed with SigV4 and use path-style URLs,
+ * {@code <endpoint>/<bucket>/<prefix>ab/cd/<key>}, which every S3-compatible server accepts.
+ *
+ * {@link #localFile} keeps downloaded copies in a local cache directory for PDF parsing and
+ * file downloads. The directory is limited to {@code cacheMaxBytes}; the least recently used
+ * files are deleted first. A file handed out is pinned until its {@link LocalFile} is closed,
+ * so eviction cannot delete it between the caller getting the path and opening it; pinned
+ * files can keep the directory over the limit until a later use evicts them. The store
+ * tracks what it cached itself, so the directory must not be cleared by hand while the app
+ * runs.
+ *
+ * Keys are content hashes, so a cached copy never goes stale while its blob exists. Only
+ * {@link #delete} can make it stale, and it clears just this node's cache: other nodes keep
+ * serving their copy until it is evicted.
+ */
+public class S3BlobStore implements BlobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(S3BlobStore.class);
+
+    private final HttpClient httpClient;
+    private final URI endpoint;
+    private final String bucket;
+    private final String prefix;
+    private final SigV4Signer signer;
+    private final LocalBlobStore cache;
+    private final long cacheMaxBytes;
+    private final Duration timeout;
+    private final Clock clock;
+    // Cached keys and their sizes, least recently used first
+    private final LinkedHashMap<String, Long> cachedFiles = new LinkedHashMap<>(16, 0.75f, true);
+    // ReentrantLock rather than synchronized: evictions delete files while holding it
+    private final ReentrantLock cacheLock = new ReentrantLock();
+    private long cachedBytes;
+    // Keys handed out by localFile and not yet closed, with how many times
+    private final Map<String, Integer> pins = new HashMap<>();
+
+    public S3BlobStore(HttpClient httpClient, URI endpoint, String bucket, String prefix,
+                       SigV4Signer signer, Path cacheDir, long cacheMaxBytes, Duration timeout, Clock clock) {
+        this.httpClient = httpClient;
+        this.endpoint = endpoint;
+        this.bucket = bucket;
+        this.prefix = prefix == null ? "" : prefix;
+        this.signer = signer;
+        this.cache = new LocalBlobStore(cacheDir);
+        this.cacheMaxBytes = cacheMaxBytes;
+        this.timeout = timeout;
+        this.clock = clock;
+        indexCache();
+    }
+
+    @Override
+    public Path stagingDirectory() throws IOException {
+        return cache.stagingDirectory();
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        HttpResponse<String> response = send("PUT", objectPath(key), Map.of(),
+                HttpRequest.BodyPublishers.ofFile(source), HttpResponse.BodyHandlers.ofString());
+        expect(response, "PUT " + key, 200);
+        Files.delete(source);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        HttpResponse<Void> response = send("HEAD", objectPath(key), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        expect(response, "HEAD " + key, 200);
+        return true;
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        HttpResponse<InputStream> response = send("GET", objectPath(key), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            try (InputStream body = response.body()) {
+                body.transferTo(OutputStream.nullOutputStream());
+            }
+            if (response.statusCode() == 404) {
+                throw new NoSuchFileException(key);
+            }
+            throw new IOException("S3 GET " + key + " failed with status " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    @Override
+    public LocalFile localFile(String key) throws IOException {
+        Path cached = cache.path(key);
+        if (Files.exists(cached)) {
+            try {
+                return use(key, cached, true);
+            } catch (NoSuchFileException ex) {
+                // Evicted in the meantime; download it again
+            }
+        }
+        Path temp = Files.createTempFile(cache.stagingDirectory(), ".get-", ".tmp");
+        try {
+            try (InputStream in = open(key)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.createDirectories(cached.getParent());
+            try {
+                Files.move(temp, cached, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, cached, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return use(key, cached, true);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpResponse<String> response = send("DELETE", objectPath(key), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 404) {
+            expect(response, "DELETE " + key, 204, 200);
+        }
+        cacheLock.lock();
+        try {
+            Long size = cachedFiles.remove(key);
+            if (size != null) {
+                cachedBytes -= size;
+            }
+            cache.delete(key);
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<StoredBlob> action) throws IOException {
+        String continuation = null;
+        do {
+            Map<String, String> query = new TreeMap<>();
+            query.put("list-type", "2");
+            if (!prefix.isEmpty()) {
+                query.put("prefix", prefix);
+            }
+            if (continuation != null) {
+                query.put("continuation-token", continuation);
+            }
+            HttpResponse<InputStream> response = send("GET", "/" + bucket, query,
+                    HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream());
+            org.w3c.dom.Document listing;
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    throw new IOException("S3 list of " + bucket + " failed with status " + response.statusCode());
+                }
+                listing = parse(body);
+            }
+
+            NodeList contents = listing.getElementsByTagName("Contents");
+            for (int i = 0; i < contents.getLength(); i++) {
+                Element entry = (Element) contents.item(i);
+                String objectKey = text(entry, "Key");
+                String lastModified = text(entry, "LastModified");
+                // Only objects in the sharded layout are blobs
+                String[] parts = objectKey.substring(prefix.length()).split("/");
+                if (parts.length == 3) {
+                    action.accept(new StoredBlob(parts[2],
+                            lastModified != null ? Instant.parse(lastModified) : Instant.EPOCH));
+                }
+            }
+            continuation = "true".equals(text(listing.getDocumentElement(), "IsTruncated"))
+                    ? text(listing.getDocumentElement(), "NextContinuationToken")
+                    : null;
+        } while (continuation != null);
+    }
+
+    /**
+     * Record a use of a cached file, optionally pinning it, then evict least recently used
+     * files that are not pinned until the cache fits.
+     */
+    private LocalFile use(String key, Path file, boolean pin) throws IOException {
+        cacheLock.lock();
+        try {
+            if (cachedFiles.get(key) == null) {
+                long size = Files.size(file);
+                cachedFiles.put(key, size);
+                cachedBytes += size;
+            }
+            if (pin) {
+                pins.merge(key, 1, Integer::sum);
+            }
+            Iterator<Map.Entry<String, Long>> eldest = cachedFiles.entrySet().iterator();
+            while (cachedBytes > cacheMaxBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (!pins.containsKey(entry.getKey())) {
+                    eldest.remove();
+                    cachedBytes -= entry.getValue();
+                    try {
+                        cache.delete(entry.getKey());
+                    } catch (IOException ex) {
+                        if (pin) {
+                            unpin(key);
+                        }
+                        throw ex;
+                    }
+                }
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+        return pin ? new LocalFile(file, true, () -> unpin(key)) : null;
+    }
+
+    private void unpin(String key) {
+        cacheLock.lock();
+        try {
+            pins.computeIfPresent(key, (pinned, count) -> count > 1 ? count - 1 : null);
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * Pick up files cached before a restart, oldest first, so they count against the limit.
+     */
+    private void indexCache() {
+        List<StoredBlob> existing = new ArrayList<>();
+        try {
+            cache.forEach(existing::add);
+            existing.sort(Comparator.comparing(StoredBlob::getLastModified));
+            for (StoredBlob blob : existing) {
+                try {
+                    use(blob.getKey(), cache.path(blob.getKey()), false);
+                } catch (NoSuchFileException ignored) {
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Could not index blob cache: {}", ex.toString());
+        }
+    }
+
+    private String objectPath(String key) {
+        // Sharded like the local store, so listings and bucket consoles stay navigable
+        return "/" + bucket + "/" + prefix + LocalBlobStore.shardedName(key);
+    }
+
+    private <T> HttpResponse<T> send(String method, String path, Map<String, String> query,
+                                     HttpRequest.BodyPublisher body, HttpResponse.BodyHandler<T> handler) throws IOException {
+        String canonicalUri = SigV4Signer.encode(path, true);
+        String canonicalQuery = query.entrySet().stream()
+                .map(param -> SigV4Signer.encode(param.getKey(), false) + "=" + SigV4Signer.encode(param.getValue(), false))
+                .collect(Collectors.joining("&"));
+        String host = endpoint.getPort() == -1 ? endpoint.getHost() : endpoint.getHost() + ":" + endpoint.getPort();
+
+        SortedMap<String, String> headers = new TreeMap<>();
+        headers.put("host", host);
+        headers.put("x-amz-content-sha256", "PUT".equals(method) ? SigV4Signer.UNSIGNED_PAYLOAD : SigV4Signer.EMPTY_PAYLOAD_SHA256);
+        headers.put("x-amz-date", SigV4Signer.amzDate(clock.instant()));
+        String authorization = signer.authorization(method, canonicalUri, canonicalQuery, headers, headers.get("x-amz-content-sha256"));
+
+        URI uri = URI.create(endpoint.getScheme() + "://" + host + canonicalUri
+                + (canonicalQuery.isEmpty() ? "" : "?" + canonicalQuery));
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .method(method, body)
+                .header("x-amz-content-sha256", headers.get("x-amz-content-sha256"))
+                .header("x-amz-date", headers.get("x-amz-date"))
+                .header("Authorization", authorization)
+                .build();
+        try {
+            return httpClient.send(request, handler);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during S3 " + method + " " + path);
+        }
+    }
+
+    private static void expect(HttpResponse<?> response, String operation, int... statuses) throws IOException {
+        for (int status : statuses) {
+            if (response.statusCode() == status) {
+                return;
+            }
+        }
+        Object body = response.body();
+        throw new IOException("S3 " + operation + " failed with status " + response.statusCode()
+                + (body instanceof String text && !text.isBlank() ? ": " + text : ""));
+    }
+
+    private static org.w3c.dom.Document parse(InputStream body) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return factory.newDocumentBuilder().parse(body);
+        } catch (ParserConfigurationException | SAXException ex) {
+            throw new IOException("Unreadable S3 listing", ex);
+        }
+    }
+
+    private static String text(Element parent, String tag) {
+        NodeList nodes = parent.getElementsByTagName(tag);
+        return nodes.getLength() == 0 ? null : nodes.item(0).getTextContent();
+    }
+}
@@ -0,0 +1,53 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.repository.DocumentRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Indexes documents whose text was extracted before the search index existed (or, for the
+ * embedded index, before this process started). Each document's text is streamed into the
+ * index one at a time.
+ */
+@Component
+public class SearchIndexBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexBackfill.class);
+
+    private final FullTextSearchIndex searchIndex;
+    private final DocumentRepository documentRepository;
+    private final DocumentTextStore textStore;
+
+    public SearchIndexBackfill(FullTextSearchIndex searchIndex, DocumentRepository documentRepository,
+                               DocumentTextStore textStore) {
+        this.searchIndex = searchIndex;
+        this.documentRepository = documentRepository;
+        this.textStore = textStore;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        List<Long> ids = searchIndex.findUnindexedDocumentIds();
+        if (ids.isEmpty()) {
+            return;
+        }
+        log.info("Indexing {} documents for full-text search", ids.size());
+        for (Long id : ids) {
+            documentRepository.findById(id).ifPresent(document -> {
+                try (Reader text = textStore.openReader(id)) {
+                    searchIndex.indexDocument(document.getId(), document.getUserId(), text);
+                } catch (IOException | RuntimeException ex) {
+                    log.warn("Could not index document {} for search: {}", id, ex.toString());
+                }
+            });
+        }
+    }
+}
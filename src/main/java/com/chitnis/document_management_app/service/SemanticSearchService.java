@@ -0,0 +1,344 @@
+package com.chitnis.document_management_app.service;
+import com.chitnis.document_management_app.dto.SemanticSearchResult;
+import com.chitnis.document_management_app.entity.DocumentChunk;
+import com.chitnis.document_management_app.repository.DocumentChunkRepository;
+import com.chitnis.document_management_app.repository.DocumentRepository;
+import com.chitnis.document_management_app.util.HnswIndex;
+import com.chitnis.document_management_app.util.SingleFlight;
+import com.chitnis.document_management_app.util.VectorCodec;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cross-document semantic search over all of a user's chunk vectors.
+ *
+ * Each user has an in-process {@link HnswIndex} that is updated as chunks are written and
+ * removed, and saved to {@code app.semantic-search.dir} so a restart maps the file instead of
+ * re-reading every vector from the database. A saved index is only reused if its chunk count
+ * and highest chunk id still match the database; otherwise it is rebuilt.
+ *
+ * Indexes stay in memory up to {@code app.semantic-search.max-bytes} in total; the least
+ * recently used ones are saved and dropped beyond that. Changes are written to disk at most
+ * once per {@code app.semantic-search.flush-delay}, so ingesting a batch of documents does
+ * not rewrite the whole index after each one.
+ */
+@Service
+public class SemanticSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticSearchService.class);
+    private static final int SNIPPET_LENGTH = 300;
+
+    private final DocumentChunkRepository documentChunkRepository;
+    private final DocumentRepository documentRepository;
+    private final EmbeddingService embeddingService;
+    private final Cache<Long, UserIndex> indexes;
+    private final SingleFlight<Long, UserIndex> loads = new SingleFlight<>();
+
+    @Value("${app.semantic-search.dir:semantic-index}")
+    private String indexDir;
+
+    @Value("${app.semantic-search.m:16}")
+    private int m;
+
+    @Value("${app.semantic-search.ef-construction:100}")
+    private int efConstruction;
+
+    @Value("${app.semantic-search.ef-search:64}")
+    private int efSearch;
+
+    @Value("${app.semantic-search.flush-delay:PT5S}")
+    private Duration flushDelay;
+
+    public SemanticSearchService(DocumentChunkRepository documentChunkRepository,
+                                 DocumentRepository documentRepository,
+                                 EmbeddingService embeddingService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.semantic-search.max-bytes:268435456}") long maxBytes) {
+        this.documentChunkRepository = documentChunkRepository;
+        this.documentRepository = documentRepository;
+        this.embeddingService = embeddingService;
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long userId, UserIndex userIndex) -> (int) Math.min(Integer.MAX_VALUE, userIndex.sizeInBytes()))
+                // Runs after the entry is gone; a reload meanwhile sees a stale file and rebuilds
+                .removalListener((Long userId, UserIndex userIndex, RemovalCause cause) -> {
+                    if (cause.wasEvicted() && userId != null && userIndex != null) {
+                        save(userId, userIndex);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "semantic-search.indexes");
+    }
+
+    /**
+     * Documents of a user most related to {@code query}, each with its best matching chunk.
+     *
+     * @param limit Maximum number of documents
+     */
+    public List<SemanticSearchResult> search(Long userId, String query, int limit) {
+        float[] queryVector = VectorCodec.toFloatArray(embeddingService.embed(query));
+
+        // Several chunks usually come from the same document, so over-fetch before grouping,
+        // and widen the search until enough documents turn up or the index runs out
+        Map<Long, HnswIndex.Match> bestPerDocument = new LinkedHashMap<>();
+        UserIndex userIndex = index(userId);
+        userIndex.lock.readLock().lock();
+        try {
+            HnswIndex hnsw = userIndex.hnsw;
+            if (hnsw == null || hnsw.getDimension() != queryVector.length) {
+                return List.of();
+            }
+            int k = Math.min(hnsw.size(), Math.max(limit, limit * 4));
+            while (true) {
+                List<HnswIndex.Match> matches = hnsw.search(queryVector, k, efSearch);
+                bestPerDocument.clear();
+                for (HnswIndex.Match match : matches) {
+                    bestPerDocument.putIfAbsent(match.getGroup(), match);
+                    if (bestPerDocument.size() == limit) {
+                        break;
+                    }
+                }
+                if (bestPerDocument.size() >= limit || matches.size() < k || k >= hnsw.size()) {
+                    break;
+                }
+                k = (int) Math.min(hnsw.size(), k * 2L);
+            }
+        } finally {
+            userIndex.lock.readLock().unlock();
+        }
+
+        if (bestPerDocument.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, String> fileNames = new HashMap<>();
+        documentRepository.findTitlesByUserIdAndIdIn(userId, bestPerDocument.keySet())
+                .forEach(title -> fileNames.put(title.getId(), title.getOriginalFileName()));
+        Map<Long, DocumentChunk> chunks = new HashMap<>();
+        documentChunkRepository.findAllById(bestPerDocument.values().stream().map(HnswIndex.Match::getId).toList())
+                .forEach(chunk -> chunks.put(chunk.getId(), chunk));
+
+        List<SemanticSearchResult> results = new ArrayList<>(bestPerDocument.size());
+        for (HnswIndex.Match match : bestPerDocument.values()) {
+            DocumentChunk chunk = chunks.get(match.getId());
+            String fileName = fileNames.get(match.getGroup());
+            // Skip entries whose rows were removed after they were indexed
+            if (chunk == null || fileName == null) {
+                continue;
+            }
+            String text = chunk.getText();
+            results.add(new SemanticSearchResult(
+                    match.getGroup(),
+                    fileName,
+                    chunk.getChunkIndex(),
+                    match.getScore(),
+                    text.length() > SNIPPET_LENGTH ? text.substring(0, SNIPPET_LENGTH) + "…" : text
+            ));
+        }
+        return results;
+    }
+
+    /**
+     * Add freshly stored chunks to their owner's index. Chunks without an id or embedding are skipped.
+     */
+    public void addChunks(Long userId, List<DocumentChunk> chunks) {
+        UserIndex userIndex = index(userId);
+        userIndex.lock.writeLock().lock();
+        try {
+            for (DocumentChunk chunk : chunks) {
+                if (chunk.getId() == null || chunk.getEmbedding() == null) {
+                    continue;
+                }
+                float[] vector = VectorCodec.decode(chunk.getEmbedding());
+                if (userIndex.hnsw == null || (userIndex.hnsw.size() == 0 && userIndex.hnsw.getDimension() != vector.length)) {
+                    userIndex.hnsw = new HnswIndex(vector.length, m, efConstruction);
+                }
+                if (userIndex.hnsw.getDimension() != vector.length) {
+                    log.warn("Skipping chunk {} for semantic search: dimension {} does not match index dimension {}",
+                            chunk.getId(), vector.length, userIndex.hnsw.getDimension());
+                    continue;
+                }
+                userIndex.dirty |= userIndex.hnsw.add(chunk.getId(), chunk.getDocumentId(), vector);
+            }
+        } finally {
+            userIndex.lock.writeLock().unlock();
+        }
+        reweigh(userId, userIndex);
+    }
+
+    /**
+     * Remove all chunks of a document from its owner's index.
+     */
+    public void removeDocument(Long userId, Long documentId) {
+        UserIndex userIndex = index(userId);
+        userIndex.lock.writeLock().lock();
+        try {
+            HnswIndex hnsw = userIndex.hnsw;
+            if (hnsw == null) {
+                return;
+            }
+            for (Long chunkId : hnsw.idsInGroup(documentId)) {
+                userIndex.dirty |= hnsw.remove(chunkId);
+            }
+            // Tombstones slow searches down; rebuild once they outnumber live vectors
+            if (hnsw.deletedCount() > hnsw.size()) {
+                userIndex.hnsw = hnsw.compact();
+            }
+        } finally {
+            userIndex.lock.writeLock().unlock();
+        }
+        reweigh(userId, userIndex);
+    }
+
+    /**
+     * Persist a user's index if it changed, after {@code app.semantic-search.flush-delay}.
+     * Calls made while a save is pending are folded into that save.
+     */
+    public void flush(Long userId) {
+        UserIndex userIndex = indexes.getIfPresent(userId);
+        if (userIndex == null || !userIndex.saveScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        Runnable task = () -> {
+            userIndex.saveScheduled.set(false);
+            save(userId, userIndex);
+        };
+        if (flushDelay.isZero() || flushDelay.isNegative()) {
+            task.run();
+        } else {
+            CompletableFuture.runAsync(task, CompletableFuture.delayedExecutor(flushDelay.toMillis(), TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        indexes.asMap().forEach(this::save);
+    }
+
+    private UserIndex index(Long userId) {
+        UserIndex userIndex = indexes.getIfPresent(userId);
+        if (userIndex != null) {
+            return userIndex;
+        }
+        // Loaded outside the cache's locks: a rebuild reads every vector of the user
+        return loads.load(userId, id -> {
+            UserIndex current = indexes.getIfPresent(id);
+            if (current == null) {
+                current = load(id);
+                indexes.put(id, current);
+            }
+            return current;
+        });
+    }
+
+    private void reweigh(Long userId, UserIndex userIndex) {
+        // Caffeine weighs entries when they are written; only refresh the one still cached
+        indexes.asMap().replace(userId, userIndex, userIndex);
+    }
+
+    private UserIndex load(Long userId) {
+        UserIndex userIndex = new UserIndex();
+        DocumentChunkRepository.ChunkStats stats = documentChunkRepository.findChunkStatsByUserId(userId);
+        long count = stats.getCount() == null ? 0 : stats.getCount();
+        long maxId = stats.getMaxId() == null ? -1 : stats.getMaxId();
+
+        Path file = indexFile(userId);
+        if (Files.exists(file)) {
+            try {
+                HnswIndex saved = HnswIndex.load(file);
+                if (saved.size() == count && saved.maxId() == maxId) {
+                    userIndex.hnsw = saved;
+                    return userIndex;
+                }
+                log.info("Semantic index for user {} is stale ({} vectors, database has {}); rebuilding",
+                        userId, saved.size(), count);
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Could not read semantic index {}: {}; rebuilding", file, ex.toString());
+            }
+        }
+        if (count == 0) {
+            return userIndex;
+        }
+
+        for (DocumentChunkRepository.UserEmbeddingRow row : documentChunkRepository.findEmbeddingsByUserId(userId)) {
+            float[] vector = VectorCodec.decode(row.getEmbedding());
+            if (userIndex.hnsw == null) {
+                userIndex.hnsw = new HnswIndex(vector.length, m, efConstruction);
+            }
+            if (vector.length == userIndex.hnsw.getDimension()) {
+                userIndex.hnsw.add(row.getId(), row.getDocumentId(), vector);
+            }
+        }
+        userIndex.dirty = true;
+        save(userId, userIndex);
+        return userIndex;
+    }
+
+    private void save(Long userId, UserIndex userIndex) {
+        // The read lock keeps writers out while the graph is serialized, searches can continue
+        userIndex.lock.readLock().lock();
+        try {
+            userIndex.saveLock.lock();
+            try {
+                if (!userIndex.dirty || userIndex.hnsw == null) {
+                    return;
+                }
+                Path file = indexFile(userId);
+                Files.createDirectories(file.getParent());
+                userIndex.hnsw.save(file);
+                userIndex.dirty = false;
+            } finally {
+                userIndex.saveLock.unlock();
+            }
+        } catch (IOException ex) {
+            log.warn("Could not save semantic index for user {}: {}", userId, ex.toString());
+        } finally {
+            userIndex.lock.readLock().unlock();
+        }
+    }
+
+    private Path indexFile(Long userId) {
+        return Paths.get(indexDir).toAbsolutePath().normalize().resolve("user-" + userId + ".hnsw");
+    }
+
+    private static class UserIndex {
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        // Serializes saves; not synchronized, since the file write would pin a virtual thread
+        final ReentrantLock saveLock = new ReentrantLock();
+        final AtomicBoolean saveScheduled = new AtomicBoolean();
+        volatile HnswIndex hnsw;
+        volatile boolean dirty;
+
+        long sizeInBytes() {
+            HnswIndex current = hnsw;
+            return current == null ? 64 : current.sizeInBytes();
+        }
+    }
+}
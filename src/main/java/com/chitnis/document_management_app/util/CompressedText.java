@@ -0,0 +1,207 @@
+package com.chitnis.document_management_app.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A text split into independently deflated UTF-8 blocks, so a slice of a long text can be
+ * read by inflating only the blocks it spans.
+ *
+ * Blocks hold about {@code blockChars} characters each, and are never split inside a
+ * surrogate pair. {@link #getBlockOffsets()} holds the character offset at which every
+ * block starts. {@link #getPageOffsets()} holds the offset of every page the writer was told
+ * about, see {@link Builder#endPage()}; it is empty for text without pages.
+ */
+public final class CompressedText {
+
+    private final int length;
+    private final List<byte[]> blocks;
+    private final int[] blockOffsets;
+    private final int[] pageOffsets;
+
+    CompressedText(int length, List<byte[]> blocks, int[] blockOffsets, int[] pageOffsets) {
+        this.length = length;
+        this.blocks = blocks;
+        this.blockOffsets = blockOffsets;
+        this.pageOffsets = pageOffsets;
+    }
+
+    public static Builder builder(int blockChars) {
+        return new Builder(blockChars);
+    }
+
+    public static CompressedText of(CharSequence text, int blockChars) {
+        Builder builder = builder(blockChars);
+        builder.append(text);
+        return builder.build();
+    }
+
+    /**
+     * Length of the text in characters.
+     */
+    public int length() {
+        return length;
+    }
+
+    public List<byte[]> getBlocks() {
+        return blocks;
+    }
+
+    public int[] getBlockOffsets() {
+        return blockOffsets;
+    }
+
+    public int[] getPageOffsets() {
+        return pageOffsets;
+    }
+
+    /**
+     * Index of the block holding the character at {@code offset}.
+     */
+    public static int blockAt(int[] blockOffsets, int offset) {
+        int index = Arrays.binarySearch(blockOffsets, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    public static byte[] deflate(CharSequence text) {
+        byte[] input = text.toString().getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 3));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static String inflate(byte[] block) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(block);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(block.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated text block");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("Corrupt text block", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Little-endian int32 array, for storing offsets next to the blocks.
+     */
+    public static byte[] encodeOffsets(int[] offsets) {
+        ByteBuffer buffer = ByteBuffer.allocate(offsets.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asIntBuffer().put(offsets);
+        return buffer.array();
+    }
+
+    public static int[] decodeOffsets(byte[] bytes) {
+        if (bytes == null) {
+            return new int[0];
+        }
+        int[] offsets = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(offsets);
+        return offsets;
+    }
+
+    /**
+     * Compresses text as it is written, holding at most one uncompressed block.
+     */
+    public static final class Builder extends Writer {
+        private final int blockChars;
+        private final StringBuilder block;
+        private final List<byte[]> blocks = new ArrayList<>();
+        private final List<Integer> blockOffsets = new ArrayList<>();
+        private final List<Integer> pageOffsets = new ArrayList<>();
+        private int length;
+        private int pageStart;
+
+        Builder(int blockChars) {
+            this.blockChars = Math.max(1024, blockChars);
+            this.block = new StringBuilder(this.blockChars + 1);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            append(CharBuffer.wrap(cbuf, off, len));
+        }
+
+        @Override
+        public Builder append(CharSequence text) {
+            int start = 0;
+            while (start < text.length()) {
+                int take = Math.min(text.length() - start, blockChars - block.length());
+                block.append(text, start, start + take);
+                start += take;
+                length += take;
+                if (block.length() >= blockChars) {
+                    flushBlock();
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Mark the end of a page; the next character written starts a new one. Empty pages
+         * count too, so page numbers match the source.
+         */
+        public void endPage() {
+            pageOffsets.add(pageStart);
+            pageStart = length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        public CompressedText build() {
+            if (!block.isEmpty()) {
+                compress(block.length());
+            }
+            int[] pages = pageOffsets.stream().mapToInt(Integer::intValue).toArray();
+            return new CompressedText(length, List.copyOf(blocks),
+                    blockOffsets.stream().mapToInt(Integer::intValue).toArray(), pages);
+        }
+
+        private void flushBlock() {
+            // Keep a trailing high surrogate with its low half in the next block
+            int end = Character.isHighSurrogate(block.charAt(block.length() - 1)) ? block.length() - 1 : block.length();
+            compress(end);
+        }
+
+        private void compress(int end) {
+            blockOffsets.add(length - block.length());
+            blocks.add(deflate(block.subSequence(0, end)));
+            block.delete(0, end);
+        }
+    }
+}
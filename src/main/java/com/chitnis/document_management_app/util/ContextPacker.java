@@ -0,0 +1,147 @@
+package com.chitnis.document_management_app.util;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tracks how much of a prompt's context budget has been used, so callers can add ranked
+ * passages greedily until the budget runs out instead of truncating the assembled text.
+ *
+ * Tokens are counted with the model's {@link TokenEstimator}. Sentences already packed are
+ * dropped from later passages, so overlapping windows, duplicate documents and repeated
+ * boilerplate only use the budget once.
+ */
+public class ContextPacker {
+
+    // Shorter sentences ("Yes.", "See above.") legitimately repeat and are always kept
+    private static final int MIN_DEDUPLICATED_SENTENCE = 32;
+
+    private final TokenEstimator estimator;
+    private final int budgetTokens;
+    private final Set<Long> seenSentences = new HashSet<>();
+    private int usedTokens;
+    private int usedChars;
+
+    /**
+     * @param budgetTokens Number of tokens the context may use
+     */
+    public ContextPacker(TokenEstimator estimator, int budgetTokens) {
+        this.estimator = estimator;
+        this.budgetTokens = budgetTokens;
+    }
+
+    /**
+     * Add a passage if what it adds beyond already packed sentences still fits.
+     *
+     * @return The text to include, which may omit repeated sentences, or {@code null} if the
+     *         passage does not fit or adds nothing new
+     */
+    public String tryAdd(String passage) {
+        String text = withoutSeenSentences(passage, false);
+        if (text.isBlank()) {
+            return null;
+        }
+        int tokens = estimator.count(text);
+        if (usedTokens + tokens > budgetTokens) {
+            return null;
+        }
+        withoutSeenSentences(text, true);
+        usedTokens += tokens;
+        usedChars += text.length();
+        return text;
+    }
+
+    /**
+     * Add as much of the start of {@code text} as still fits, ending between words.
+     *
+     * @return The included prefix, or {@code null} if nothing fits
+     */
+    public String addPrefix(String text) {
+        return addPrefix(text, remainingTokens());
+    }
+
+    /**
+     * Like {@link #addPrefix(String)}, using at most {@code maxTokens} of what is left.
+     */
+    public String addPrefix(String text, int maxTokens) {
+        int end = estimator.prefixLength(text, Math.min(maxTokens, remainingTokens()));
+        String prefix = text.substring(0, end).trim();
+        if (prefix.isEmpty()) {
+            return null;
+        }
+        withoutSeenSentences(prefix, true);
+        usedTokens += estimator.count(prefix);
+        usedChars += prefix.length();
+        return prefix;
+    }
+
+    public int remainingTokens() {
+        return Math.max(0, budgetTokens - usedTokens);
+    }
+
+    public int usedTokens() {
+        return usedTokens;
+    }
+
+    /**
+     * Characters of all included text, for sizing the builder the context is assembled in.
+     */
+    public int usedChars() {
+        return usedChars;
+    }
+
+    /**
+     * Return {@code passage} minus sentences already packed; the passage itself when nothing
+     * is dropped. With {@code record}, its sentences are marked as packed.
+     */
+    private String withoutSeenSentences(String passage, boolean record) {
+        StringBuilder kept = null;
+        int start = 0;
+        int length = passage.length();
+        while (start < length) {
+            int end = sentenceEnd(passage, start);
+            long key = sentenceKey(passage, start, end);
+            boolean repeated = key != 0 && (record ? !seenSentences.add(key) : seenSentences.contains(key));
+            if (repeated && !record && kept == null) {
+                kept = new StringBuilder(length);
+                kept.append(passage, 0, start);
+            } else if (!repeated && kept != null) {
+                kept.append(passage, start, end);
+            }
+            start = end;
+        }
+        return kept == null ? passage : kept.toString();
+    }
+
+    private static int sentenceEnd(String text, int start) {
+        int length = text.length();
+        for (int i = start; i < length; i++) {
+            char c = text.charAt(i);
+            if ((c == '.' || c == '?' || c == '!' || c == '\n') && (i + 1 == length || Character.isWhitespace(text.charAt(i + 1)))) {
+                int end = i + 1;
+                while (end < length && Character.isWhitespace(text.charAt(end))) {
+                    end++;
+                }
+                return end;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 64-bit hash of a sentence ignoring case and whitespace, or 0 for sentences too short to
+     * deduplicate.
+     */
+    private static long sentenceKey(String text, int start, int end) {
+        long hash = 1125899906842597L;
+        int significant = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                hash = 31 * hash + Character.toLowerCase(c);
+                significant++;
+            }
+        }
+        return significant < MIN_DEDUPLICATED_SENTENCE ? 0 : (hash == 0 ? 1 : hash);
+    }
+}
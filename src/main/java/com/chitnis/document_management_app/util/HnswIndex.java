@@ -0,0 +1,530 @@
+package com.chitnis.document_management_app.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Hierarchical navigable small world graph for approximate nearest-neighbour search by
+ * cosine similarity.
+ *
+ * Vectors are normalized on insert, so similarity is a dot product. Every vector carries a
+ * {@code long} id and a {@code long} group (e.g. chunk id and document id). Removed vectors
+ * are tombstoned: they still route searches but are never returned; {@link #compact()}
+ * rebuilds the graph without them.
+ *
+ * Not thread-safe. Callers serialize writes and may run searches concurrently with each
+ * other only while no write is in progress.
+ */
+public class HnswIndex {
+
+    private static final int MAGIC = 0x484E5357; // "HNSW"
+    private static final int FORMAT_VERSION = 1;
+
+    private final int dimension;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+    private final SimilarityKernel kernel = SimilarityKernels.get();
+
+    private long[] ids = new long[16];
+    private long[] groups = new long[16];
+    private float[] vectors;
+    // links[node][level] holds the neighbour count at [0] followed by the neighbours
+    private int[][][] links = new int[16][][];
+    private final BitSet deleted = new BitSet();
+    private final Map<Long, Integer> nodeById = new HashMap<>();
+
+    private int nodeCount;
+    private int deletedCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    /**
+     * @param dimension Vector dimension
+     * @param m Neighbours kept per node on upper layers (twice as many on layer 0)
+     * @param efConstruction Candidate list size while inserting; higher builds a better graph more slowly
+     */
+    public HnswIndex(int dimension, int m, int efConstruction) {
+        if (dimension <= 0 || m < 2 || efConstruction < 1) {
+            throw new IllegalArgumentException("Invalid HNSW parameters: dimension=" + dimension
+                    + ", m=" + m + ", efConstruction=" + efConstruction);
+        }
+        this.dimension = dimension;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.vectors = new float[16 * dimension];
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * @return Number of vectors that can be returned by a search
+     */
+    public int size() {
+        return nodeCount - deletedCount;
+    }
+
+    public int deletedCount() {
+        return deletedCount;
+    }
+
+    /**
+     * Approximate heap footprint, used as a cache weight. Counts allocated capacity and
+     * assumes layer-0 links dominate, as they do for any {@code m} above a handful.
+     */
+    public long sizeInBytes() {
+        long arrays = (long) ids.length * Long.BYTES * 2 + (long) vectors.length * Float.BYTES;
+        long linksPerNode = 16L + (maxM0 + 1L) * Integer.BYTES;
+        long lookupPerNode = 64L;
+        return 128L + arrays + (long) nodeCount * (linksPerNode + lookupPerNode);
+    }
+
+    public boolean contains(long id) {
+        return nodeById.containsKey(id);
+    }
+
+    /**
+     * @return Largest id that has not been removed, or -1 if the index is empty
+     */
+    public long maxId() {
+        long max = -1;
+        for (int node = 0; node < nodeCount; node++) {
+            if (!deleted.get(node) && ids[node] > max) {
+                max = ids[node];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Insert a vector. Adding an id that is already live is a no-op; a removed id may be added
+     * again, as a new node.
+     *
+     * @return Whether the vector was added
+     */
+    public boolean add(long id, long group, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException(
+                    "Vectors must have same dimension: " + vector.length + " vs " + dimension
+            );
+        }
+        if (nodeById.containsKey(id)) {
+            return false;
+        }
+
+        int node = allocate(id, group, vector);
+        int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[1 + (l == 0 ? maxM0 : m)];
+        }
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return true;
+        }
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(node, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(vectors, node * dimension, current, efConstruction, l);
+            int maxNeighbours = l == 0 ? maxM0 : m;
+            List<Candidate> selected = selectNeighbours(candidates, maxNeighbours);
+            for (Candidate neighbour : selected) {
+                appendLink(node, l, neighbour.node);
+                connect(neighbour.node, node, l, maxNeighbours);
+            }
+            current = candidates.get(0).node;
+        }
+
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+        return true;
+    }
+
+    /**
+     * Tombstone a vector. The node stays in the graph until {@link #compact()}, but the id is
+     * released so it can be added again. Unknown ids are ignored.
+     *
+     * @return Whether a live vector was removed
+     */
+    public boolean remove(long id) {
+        Integer node = nodeById.remove(id);
+        if (node == null) {
+            return false;
+        }
+        deleted.set(node);
+        deletedCount++;
+        return true;
+    }
+
+    /**
+     * Ids of the live vectors in a group.
+     */
+    public List<Long> idsInGroup(long group) {
+        List<Long> result = new ArrayList<>();
+        for (int node = 0; node < nodeCount; node++) {
+            if (!deleted.get(node) && groups[node] == group) {
+                result.add(ids[node]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Approximate {@code k} nearest live vectors, best first.
+     *
+     * @param query Query vector; normalized here so callers can pass raw embeddings
+     * @param efSearch Candidate list size; higher trades speed for recall
+     */
+    public List<Match> search(float[] query, int k, int efSearch) {
+        if (size() == 0 || k <= 0) {
+            return Collections.emptyList();
+        }
+        if (query.length != dimension) {
+            throw new IllegalArgumentException(
+                    "Vectors must have same dimension: " + query.length + " vs " + dimension
+            );
+        }
+
+        float[] normalized = SimilarityKernels.normalize(query.clone());
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedyClosest(normalized, 0, current, l);
+        }
+
+        // Tombstones take up room in the candidate list, so widen it by the share of deleted nodes
+        int ef = Math.max(efSearch, k);
+        if (deletedCount > 0) {
+            ef = (int) Math.min(nodeCount, (long) ef * nodeCount / Math.max(1, size()));
+        }
+        List<Candidate> candidates = searchLayer(normalized, 0, current, ef, 0);
+
+        List<Match> matches = new ArrayList<>(k);
+        for (Candidate candidate : candidates) {
+            if (!deleted.get(candidate.node)) {
+                matches.add(new Match(ids[candidate.node], groups[candidate.node], candidate.score));
+                if (matches.size() == k) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Rebuild the graph from the live vectors only.
+     */
+    public HnswIndex compact() {
+        HnswIndex compacted = new HnswIndex(dimension, m, efConstruction);
+        float[] vector = new float[dimension];
+        for (int node = 0; node < nodeCount; node++) {
+            if (!deleted.get(node)) {
+                System.arraycopy(vectors, node * dimension, vector, 0, dimension);
+                compacted.add(ids[node], groups[node], vector);
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * Write the index to {@code file}, replacing it atomically.
+     */
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream stream = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(dimension);
+            out.writeInt(m);
+            out.writeInt(efConstruction);
+            out.writeInt(nodeCount);
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+            for (int node = 0; node < nodeCount; node++) {
+                out.writeLong(ids[node]);
+                out.writeLong(groups[node]);
+                out.writeBoolean(deleted.get(node));
+                out.writeInt(links[node].length);
+                for (int i = node * dimension; i < (node + 1) * dimension; i++) {
+                    out.writeFloat(vectors[i]);
+                }
+                for (int[] level : links[node]) {
+                    out.writeInt(level[0]);
+                    for (int i = 1; i <= level[0]; i++) {
+                        out.writeInt(level[i]);
+                    }
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read an index written by {@link #save(Path)}. The file is memory-mapped, so vectors are
+     * copied in bulk without per-value stream reads.
+     */
+    public static HnswIndex load(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            throw new IOException("Not an HNSW index file: " + file);
+        }
+
+        HnswIndex index = new HnswIndex(buffer.getInt(), buffer.getInt(), buffer.getInt());
+        int count = buffer.getInt();
+        index.ensureCapacity(count);
+        index.entryPoint = buffer.getInt();
+        index.maxLevel = buffer.getInt();
+
+        int dimension = index.dimension;
+        for (int node = 0; node < count; node++) {
+            index.ids[node] = buffer.getLong();
+            index.groups[node] = buffer.getLong();
+            if (buffer.get() != 0) {
+                index.deleted.set(node);
+                index.deletedCount++;
+            }
+            int levels = buffer.getInt();
+            buffer.asFloatBuffer().get(index.vectors, node * dimension, dimension);
+            buffer.position(buffer.position() + dimension * Float.BYTES);
+
+            index.links[node] = new int[levels][];
+            for (int l = 0; l < levels; l++) {
+                int[] level = new int[1 + (l == 0 ? index.maxM0 : index.m)];
+                level[0] = buffer.getInt();
+                for (int i = 1; i <= level[0]; i++) {
+                    level[i] = buffer.getInt();
+                }
+                index.links[node][l] = level;
+            }
+            if (!index.deleted.get(node)) {
+                index.nodeById.put(index.ids[node], node);
+            }
+        }
+        index.nodeCount = count;
+        return index;
+    }
+
+    private int allocate(long id, long group, float[] vector) {
+        int node = nodeCount;
+        ensureCapacity(node + 1);
+        ids[node] = id;
+        groups[node] = group;
+        System.arraycopy(vector, 0, vectors, node * dimension, dimension);
+        SimilarityKernels.normalize(vectors, node * dimension, dimension);
+        nodeById.put(id, node);
+        nodeCount++;
+        return node;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        groups = Arrays.copyOf(groups, newCapacity);
+        vectors = Arrays.copyOf(vectors, newCapacity * dimension);
+        links = Arrays.copyOf(links, newCapacity);
+    }
+
+    private int greedyClosest(int node, int start, int level) {
+        return greedyClosest(vectors, node * dimension, start, level);
+    }
+
+    private int greedyClosest(float[] query, int queryOffset, int start, int level) {
+        int current = start;
+        double currentScore = similarity(query, queryOffset, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links[current][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                double score = similarity(query, queryOffset, neighbours[i]);
+                if (score > currentScore) {
+                    currentScore = score;
+                    current = neighbours[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search on one layer.
+     *
+     * @return Up to {@code ef} nodes, best first
+     */
+    private List<Candidate> searchLayer(float[] query, int queryOffset, int start, int ef, int level) {
+        BitSet visited = new BitSet(nodeCount);
+        visited.set(start);
+        Candidate first = new Candidate(start, similarity(query, queryOffset, start));
+
+        PriorityQueue<Candidate> toVisit = new PriorityQueue<>((a, b) -> Double.compare(b.score, a.score));
+        PriorityQueue<Candidate> found = new PriorityQueue<>((a, b) -> Double.compare(a.score, b.score));
+        toVisit.add(first);
+        found.add(first);
+
+        while (!toVisit.isEmpty()) {
+            Candidate candidate = toVisit.poll();
+            if (found.size() >= ef && candidate.score < found.peek().score) {
+                break;
+            }
+            int[] neighbours = links[candidate.node][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                double score = similarity(query, queryOffset, neighbour);
+                if (found.size() < ef || score > found.peek().score) {
+                    Candidate next = new Candidate(neighbour, score);
+                    toVisit.add(next);
+                    found.add(next);
+                    if (found.size() > ef) {
+                        found.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> result = new ArrayList<>(found);
+        result.sort((a, b) -> Double.compare(b.score, a.score));
+        return result;
+    }
+
+    /**
+     * Neighbour selection heuristic from the HNSW paper: keep a candidate only if it is closer
+     * to the new node than to any neighbour already kept, so links spread in different directions.
+     */
+    private List<Candidate> selectNeighbours(List<Candidate> candidates, int maxNeighbours) {
+        List<Candidate> selected = new ArrayList<>(maxNeighbours);
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= maxNeighbours) {
+                break;
+            }
+            boolean diverse = true;
+            for (Candidate kept : selected) {
+                if (similarity(vectors, kept.node * dimension, candidate.node) > candidate.score) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            }
+        }
+        // Fill up with the closest leftovers so sparse regions still get enough links
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= maxNeighbours) {
+                break;
+            }
+            if (!selected.contains(candidate)) {
+                selected.add(candidate);
+            }
+        }
+        return selected;
+    }
+
+    private void connect(int node, int newNeighbour, int level, int maxNeighbours) {
+        int[] neighbours = links[node][level];
+        if (neighbours[0] < maxNeighbours) {
+            appendLink(node, level, newNeighbour);
+            return;
+        }
+
+        List<Candidate> candidates = new ArrayList<>(neighbours[0] + 1);
+        int offset = node * dimension;
+        candidates.add(new Candidate(newNeighbour, similarity(vectors, offset, newNeighbour)));
+        for (int i = 1; i <= neighbours[0]; i++) {
+            candidates.add(new Candidate(neighbours[i], similarity(vectors, offset, neighbours[i])));
+        }
+        candidates.sort((a, b) -> Double.compare(b.score, a.score));
+
+        List<Candidate> kept = selectNeighbours(candidates, maxNeighbours);
+        neighbours[0] = 0;
+        for (Candidate candidate : kept) {
+            appendLink(node, level, candidate.node);
+        }
+    }
+
+    private void appendLink(int node, int level, int neighbour) {
+        int[] neighbours = links[node][level];
+        neighbours[++neighbours[0]] = neighbour;
+    }
+
+    private double similarity(float[] query, int queryOffset, int node) {
+        return kernel.dot(query, queryOffset, vectors, node * dimension, dimension);
+    }
+
+    private static class Candidate {
+        final int node;
+        final double score;
+
+        Candidate(int node, double score) {
+            this.node = node;
+            this.score = score;
+        }
+    }
+
+    /**
+     * A stored id and group paired with its cosine similarity to the query.
+     */
+    public static class Match {
+        private final long id;
+        private final long group;
+        private final double score;
+
+        public Match(long id, long group, double score) {
+            this.id = id;
+            this.group = group;
+            this.score = score;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getGroup() {
+            return group;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
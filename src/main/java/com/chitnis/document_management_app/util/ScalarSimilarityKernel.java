@@ -0,0 +1,59 @@
+package com.chitnis.document_management_app.util;
+
+/**
+ * Plain Java kernel, used when the Vector API module is not available.
+ *
+ * Four independent accumulators let the JIT overlap the multiply-adds instead of waiting on
+ * a single running sum.
+ */
+final class ScalarSimilarityKernel implements SimilarityKernel {
+
+    static final ScalarSimilarityKernel INSTANCE = new ScalarSimilarityKernel();
+
+    private ScalarSimilarityKernel() {
+    }
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0f;
+        float s1 = 0f;
+        float s2 = 0f;
+        float s3 = 0f;
+        int i = 0;
+        for (int upper = length & ~3; i < upper; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public float squaredDistance(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0f;
+        float s1 = 0f;
+        int i = 0;
+        for (int upper = length & ~1; i < upper; i += 2) {
+            float d0 = a[aOffset + i] - b[bOffset + i];
+            float d1 = a[aOffset + i + 1] - b[bOffset + i + 1];
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+        }
+        if (i < length) {
+            float d = a[aOffset + i] - b[bOffset + i];
+            s0 += d * d;
+        }
+        return s0 + s1;
+    }
+
+    @Override
+    public void dotBatch(float[] query, float[] matrix, int rowOffset, int rows, int dimension, float[] scores) {
+        for (int row = 0; row < rows; row++) {
+            scores[row] = dot(query, 0, matrix, (rowOffset + row) * dimension, dimension);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.chitnis.document_management_app.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Splits text into lowercase search terms in one pass, reporting where each term starts.
+ *
+ * A term is a run of letters and digits. Lowercasing is done per character so a term has the
+ * same length as the text it was read from, which lets offsets be used to cut snippets.
+ */
+public final class SearchTokenizer {
+
+    /**
+     * Longer runs (hashes, base64, etc.) are not useful search terms and are skipped.
+     */
+    public static final int MAX_TERM_LENGTH = 64;
+
+    private SearchTokenizer() {
+    }
+
+    @FunctionalInterface
+    public interface TermConsumer {
+        /**
+         * @param term Lowercase term
+         * @param offset Index of the term's first character in the tokenized text
+         */
+        void accept(String term, int offset);
+    }
+
+    /**
+     * Report every term of {@code text} in order.
+     */
+    public static void tokenize(CharSequence text, TermConsumer consumer) {
+        if (text == null) {
+            return;
+        }
+        Scanner scanner = new Scanner(consumer);
+        for (int i = 0; i < text.length(); i++) {
+            scanner.accept(text.charAt(i));
+        }
+        scanner.finish();
+    }
+
+    /**
+     * Report every term read from {@code text} in order, holding only one buffer and one term
+     * at a time. Offsets count characters from the start of the reader.
+     */
+    public static void tokenize(Reader text, TermConsumer consumer) throws IOException {
+        if (text == null) {
+            return;
+        }
+        Scanner scanner = new Scanner(consumer);
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = text.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                scanner.accept(buffer[i]);
+            }
+        }
+        scanner.finish();
+    }
+
+    /**
+     * Distinct terms of a search query, in the order they first appear.
+     */
+    public static List<String> queryTerms(String query) {
+        LinkedHashSet<String> terms = new LinkedHashSet<>();
+        tokenize(query, (term, offset) -> terms.add(term));
+        return new ArrayList<>(terms);
+    }
+
+    /**
+     * Collects one character at a time, so a term may span reads.
+     */
+    private static final class Scanner {
+        private final TermConsumer consumer;
+        private final char[] term = new char[MAX_TERM_LENGTH];
+        private int offset;
+        private int start;
+        private int length;
+
+        Scanner(TermConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        void accept(char c) {
+            if (Character.isLetterOrDigit(c)) {
+                if (length == 0) {
+                    start = offset;
+                }
+                if (length < MAX_TERM_LENGTH) {
+                    term[length] = Character.toLowerCase(c);
+                }
+                length++;
+            } else {
+                finish();
+            }
+            offset++;
+        }
+
+        void finish() {
+            if (length > 0 && length <= MAX_TERM_LENGTH) {
+                consumer.accept(new String(term, 0, length), start);
+            }
+            length = 0;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.chitnis.document_management_app.util;
+
+/**
+ * Primitive similarity functions over {@code float[]} vectors.
+ *
+ * Offsets let callers score rows of a row-major matrix in place without copying them out.
+ * Obtain an implementation from {@link SimilarityKernels}.
+ */
+public interface SimilarityKernel {
+
+    /**
+     * Dot product of {@code length} values starting at the given offsets.
+     */
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * Squared Euclidean distance of {@code length} values starting at the given offsets.
+     */
+    float squaredDistance(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * Score one query against {@code rows} consecutive rows of a row-major matrix.
+     *
+     * @param query Query vector of {@code dimension} values
+     * @param matrix Row-major vectors
+     * @param rowOffset Index of the first row to score
+     * @param rows Number of rows to score
+     * @param dimension Vector dimension
+     * @param scores Receives the dot product of row {@code rowOffset + i} at index {@code i}
+     */
+    void dotBatch(float[] query, float[] matrix, int rowOffset, int rows, int dimension, float[] scores);
+}
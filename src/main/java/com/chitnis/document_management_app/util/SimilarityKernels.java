@@ -0,0 +1,116 @@
+package com.chitnis.document_management_app.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entry point for vector similarity scoring.
+ *
+ * Uses the SIMD kernel on {@code jdk.incubator.vector} when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}, and falls back to a scalar loop otherwise.
+ * Set {@code -Dapp.similarity.scalar=true} to force the scalar kernel.
+ *
+ * Stored embeddings are normalized before they are written, so cosine similarity against a
+ * normalized query is just {@link #dot(float[], float[])}.
+ */
+public final class SimilarityKernels {
+
+    private static final Logger log = LoggerFactory.getLogger(SimilarityKernels.class);
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final SimilarityKernel VECTORIZED = loadVectorized();
+    private static final SimilarityKernel ACTIVE =
+            VECTORIZED == null || Boolean.getBoolean("app.similarity.scalar") ? ScalarSimilarityKernel.INSTANCE : VECTORIZED;
+
+    static {
+        log.info("Vector similarity kernel: {}", ACTIVE == VECTORIZED ? "Vector API (SIMD)" : "scalar");
+    }
+
+    private SimilarityKernels() {
+    }
+
+    /**
+     * The kernel used by {@link VectorUtils}, the per-document vector index and the semantic index.
+     */
+    public static SimilarityKernel get() {
+        return ACTIVE;
+    }
+
+    public static SimilarityKernel scalar() {
+        return ScalarSimilarityKernel.INSTANCE;
+    }
+
+    /**
+     * @return The Vector API kernel, or {@code null} if the module is not available
+     */
+    public static SimilarityKernel vectorized() {
+        return VECTORIZED;
+    }
+
+    public static float dot(float[] a, float[] b) {
+        checkDimensions(a.length, b.length);
+        return ACTIVE.dot(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Cosine similarity of two vectors that need not be normalized; 0 if either is all zeros.
+     */
+    public static double cosine(float[] a, float[] b) {
+        checkDimensions(a.length, b.length);
+        double normA = ACTIVE.dot(a, 0, a, 0, a.length);
+        double normB = ACTIVE.dot(b, 0, b, 0, b.length);
+        if (normA == 0.0 || normB == 0.0) {
+            return 0.0;
+        }
+        return ACTIVE.dot(a, 0, b, 0, a.length) / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+
+    public static double l2Distance(float[] a, float[] b) {
+        checkDimensions(a.length, b.length);
+        return Math.sqrt(ACTIVE.squaredDistance(a, 0, b, 0, a.length));
+    }
+
+    /**
+     * Scale a vector to unit length in place. Zero vectors are left untouched.
+     *
+     * @return The same array
+     */
+    public static float[] normalize(float[] vector) {
+        normalize(vector, 0, vector.length);
+        return vector;
+    }
+
+    /**
+     * Scale one row of a row-major matrix to unit length in place. Rows that are already
+     * normalized, as stored embeddings are, are left as they are.
+     */
+    public static void normalize(float[] matrix, int offset, int dimension) {
+        double norm = ACTIVE.dot(matrix, offset, matrix, offset, dimension);
+        if (norm == 0.0 || Math.abs(norm - 1.0) < 1e-6) {
+            return;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = offset; i < offset + dimension; i++) {
+            matrix[i] *= scale;
+        }
+    }
+
+    private static void checkDimensions(int a, int b) {
+        if (a != b) {
+            throw new IllegalArgumentException("Vectors must have same dimension: " + a + " vs " + b);
+        }
+    }
+
+    private static SimilarityKernel loadVectorized() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            return (SimilarityKernel) Class.forName(SimilarityKernels.class.getPackageName() + ".VectorApiSimilarityKernel")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            log.warn("Vector API kernel unavailable, using scalar similarity: {}", ex.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.chitnis.document_management_app.util;
+
+/**
+ * Builds short, whitespace-normalized previews of document text.
+ *
+ * Callers pass only a window of the document around the match, so the cost depends on the
+ * snippet size rather than on the size of the document.
+ */
+public final class SnippetBuilder {
+
+    /**
+     * Characters of context kept on each side of a match.
+     */
+    public static final int DEFAULT_RADIUS = 100;
+
+    private SnippetBuilder() {
+    }
+
+    /**
+     * Snippet centered on a match.
+     *
+     * @param window Part of the document containing the match
+     * @param matchStart Index of the match within {@code window}
+     * @param matchLength Length of the match
+     * @param radius Characters of context to keep on each side after normalization
+     * @param moreBefore Whether the document continues before {@code window}
+     * @param moreAfter Whether the document continues after {@code window}
+     */
+    public static String around(CharSequence window, int matchStart, int matchLength, int radius,
+                                boolean moreBefore, boolean moreAfter) {
+        StringBuilder normalized = new StringBuilder(window.length());
+        int normalizedMatch = -1;
+        boolean pendingSpace = false;
+        for (int i = 0; i < window.length(); i++) {
+            char c = window.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            if (i >= matchStart && normalizedMatch < 0) {
+                normalizedMatch = normalized.length();
+            }
+            normalized.append(c);
+        }
+        if (pendingSpace) {
+            normalized.append(' ');
+        }
+        if (normalizedMatch < 0) {
+            normalizedMatch = normalized.length();
+        }
+
+        int start = Math.max(0, normalizedMatch - radius);
+        int end = Math.min(normalized.length(), normalizedMatch + matchLength + radius);
+        String snippet = normalized.substring(start, end);
+
+        if (start > 0 || moreBefore) {
+            snippet = "…" + snippet;
+        }
+        if (end < normalized.length() || moreAfter) {
+            snippet = snippet + "…";
+        }
+        return snippet;
+    }
+
+    /**
+     * Preview of the start of a document, used when there is no match position.
+     *
+     * @param window Beginning of the document
+     * @param length Maximum snippet length after normalization
+     */
+    public static String leading(CharSequence window, int length) {
+        StringBuilder normalized = new StringBuilder(Math.min(window.length(), length));
+        boolean pendingSpace = false;
+        for (int i = 0; i < window.length() && normalized.length() < length; i++) {
+            char c = window.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            normalized.append(c);
+        }
+        return normalized.length() > length ? normalized.substring(0, length) : normalized.toString();
+    }
+}
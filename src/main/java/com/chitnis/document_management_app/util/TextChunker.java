@@ -0,0 +1,156 @@
+package com.chitnis.document_management_app.util;
+
+import java.io.Writer;
+import java.util.function.Consumer;
+
+/**
+ * Streaming version of {@link VectorUtils#splitIntoChunks(String, int)}.
+ *
+ * Text written to this {@link Writer} is whitespace-normalized on the fly and emitted to the
+ * sink as soon as a chunk boundary can be decided, so only about one chunk of text is buffered
+ * regardless of the input size. Closing the writer flushes the final chunk. The chunks produced
+ * are identical to the ones {@code splitIntoChunks} returns for the concatenated input.
+ */
+public class TextChunker extends Writer {
+
+    // Drain well before the buffer grows so large inputs written in one call stay bounded
+    private static final int DRAIN_FACTOR = 4;
+
+    private final int chunkSize;
+    private final Consumer<String> sink;
+    private final StringBuilder buffer;
+    private boolean started;
+    private boolean pendingSpace;
+    private boolean closed;
+    private int chunkCount;
+
+    /**
+     * @param chunkSize Target size for each chunk (in characters)
+     * @param sink Receives each chunk as soon as it is complete
+     */
+    public TextChunker(int chunkSize, Consumer<String> sink) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.sink = sink;
+        this.buffer = new StringBuilder(chunkSize * (DRAIN_FACTOR + 1));
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        ensureOpen();
+        for (int i = off; i < off + len; i++) {
+            accept(cbuf[i]);
+        }
+        drain(false);
+    }
+
+    @Override
+    public void write(String str) {
+        write(str, 0, str.length());
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        ensureOpen();
+        for (int i = off; i < off + len; i++) {
+            accept(str.charAt(i));
+        }
+        drain(false);
+    }
+
+    @Override
+    public void flush() {
+        // Chunks are emitted as soon as they are complete; the tail waits for close()
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            drain(true);
+            closed = true;
+        }
+    }
+
+    /**
+     * @return Number of chunks emitted so far
+     */
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    private void accept(char c) {
+        // Same normalization as replaceAll("\\s+", " ").trim()
+        if (isWhitespace(c)) {
+            pendingSpace = started;
+            return;
+        }
+        if (!started) {
+            if (c <= ' ') {
+                return;
+            }
+            started = true;
+        }
+        if (pendingSpace) {
+            buffer.append(' ');
+            pendingSpace = false;
+        }
+        buffer.append(c);
+
+        if (buffer.length() > chunkSize * DRAIN_FACTOR) {
+            drain(false);
+        }
+    }
+
+    private void drain(boolean finished) {
+        int start = 0;
+        while (start < buffer.length()) {
+            int length = buffer.length();
+            // Until the input ends, a boundary is only decided once the character after it is known
+            if (!finished && length <= start + chunkSize) {
+                break;
+            }
+
+            int end = Math.min(start + chunkSize, length);
+
+            // If not at the end, try to break at a sentence boundary
+            if (end < length) {
+                int lastPeriod = buffer.lastIndexOf(".", end);
+                int lastQuestion = buffer.lastIndexOf("?", end);
+                int lastExclamation = buffer.lastIndexOf("!", end);
+                int sentenceEnd = Math.max(lastPeriod, Math.max(lastQuestion, lastExclamation));
+
+                // Only use sentence boundary if it's not too far back
+                if (sentenceEnd > start + (chunkSize / 2)) {
+                    end = sentenceEnd + 1;
+                } else {
+                    // Try to break at a space
+                    int lastSpace = buffer.lastIndexOf(" ", end);
+                    if (lastSpace > start) {
+                        end = lastSpace;
+                    }
+                }
+            }
+
+            String chunk = buffer.substring(start, end).trim();
+            if (!chunk.isEmpty()) {
+                chunkCount++;
+                sink.accept(chunk);
+            }
+            start = end;
+        }
+        buffer.delete(0, start);
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("TextChunker is closed");
+        }
+    }
+
+    private static boolean isWhitespace(char c) {
+        // Matches the regex class \s: [ \t\n\x0B\f\r]
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
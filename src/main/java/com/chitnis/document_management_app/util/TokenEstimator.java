@@ -0,0 +1,123 @@
+package com.chitnis.document_management_app.util;
+
+import java.util.Locale;
+
+/**
+ * Fast local approximation of how many tokens a chat model's tokenizer produces for a text,
+ * for budgeting prompts without shipping the tokenizer itself.
+ *
+ * The text is walked once without allocating. A run of letters counts one token per
+ * {@code charsPerWordPiece} characters, digits are grouped the way the tokenizer groups them,
+ * CJK characters and other symbols count one each, and spaces are free because BPE
+ * tokenizers fold a leading space into the next word. For English prose the estimate comes
+ * out slightly above the real count, so packed prompts do not overflow.
+ */
+public final class TokenEstimator {
+
+    private final int charsPerWordPiece;
+    private final int digitsPerToken;
+
+    TokenEstimator(int charsPerWordPiece, int digitsPerToken) {
+        this.charsPerWordPiece = charsPerWordPiece;
+        this.digitsPerToken = digitsPerToken;
+    }
+
+    /**
+     * Estimator tuned for a model family, chosen by name (e.g. {@code groq.api.model}).
+     */
+    public static TokenEstimator forModel(String model) {
+        String name = model == null ? "" : model.toLowerCase(Locale.ROOT);
+        // SentencePiece vocabularies of ~32k entries split words finely and numbers digit by digit
+        if (name.contains("mistral") || name.contains("mixtral") || name.contains("llama-2") || name.contains("llama2")) {
+            return new TokenEstimator(4, 1);
+        }
+        // Llama 3 and later, Gemma, Qwen and GPT-style BPE: large vocabularies, numbers in groups of three
+        if (name.contains("llama") || name.contains("gemma") || name.contains("qwen") || name.contains("gpt")) {
+            return new TokenEstimator(6, 3);
+        }
+        return new TokenEstimator(5, 2);
+    }
+
+    public int count(CharSequence text) {
+        int tokens = 0;
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            long step = step(text, i);
+            i = (int) (step >>> 32);
+            tokens += (int) step;
+        }
+        return tokens;
+    }
+
+    /**
+     * Length of the longest prefix of {@code text} that fits in {@code maxTokens}. The prefix
+     * ends between tokens, so words are not cut.
+     */
+    public int prefixLength(CharSequence text, int maxTokens) {
+        int tokens = 0;
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            long step = step(text, i);
+            if (tokens + (int) step > maxTokens) {
+                return i;
+            }
+            i = (int) (step >>> 32);
+            tokens += (int) step;
+        }
+        return length;
+    }
+
+    /**
+     * Upper bound on the characters {@code tokens} tokens can cover, for sizing reads.
+     */
+    public int maxCharsFor(int tokens) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) tokens * (charsPerWordPiece + 1));
+    }
+
+    /**
+     * Consume one run starting at {@code i}.
+     *
+     * @return The index after the run in the high 32 bits and its token count in the low 32 bits
+     */
+    private long step(CharSequence text, int i) {
+        int length = text.length();
+        char c = text.charAt(i);
+        int tokens;
+        if (c == ' ') {
+            return ((long) (i + 1) << 32);
+        }
+        if (Character.isWhitespace(c)) {
+            // A run of line breaks or tabs is a token of its own
+            int end = i + 1;
+            while (end < length && Character.isWhitespace(text.charAt(end))) {
+                end++;
+            }
+            return ((long) end << 32) | 1;
+        }
+        if (Character.isDigit(c)) {
+            int end = i + 1;
+            while (end < length && Character.isDigit(text.charAt(end))) {
+                end++;
+            }
+            tokens = (end - i + digitsPerToken - 1) / digitsPerToken;
+            return ((long) end << 32) | tokens;
+        }
+        if (Character.isLetter(c) && !isCjk(c)) {
+            int end = i + 1;
+            while (end < length && Character.isLetter(text.charAt(end)) && !isCjk(text.charAt(end))) {
+                end++;
+            }
+            tokens = 1 + (end - i - 1) / charsPerWordPiece;
+            return ((long) end << 32) | tokens;
+        }
+        return ((long) (i + 1) << 32) | 1;
+    }
+
+    private static boolean isCjk(char c) {
+        return Character.isIdeographic(c)
+                || (c >= '぀' && c <= 'ヿ')
+                || (c >= '가' && c <= '힯');
+    }
+}
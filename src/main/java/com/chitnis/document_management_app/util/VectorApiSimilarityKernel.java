@@ -0,0 +1,92 @@
+package com.chitnis.document_management_app.util;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernel on the incubating Vector API, using the widest lane count the CPU supports.
+ *
+ * Only loaded by {@link SimilarityKernels} once it has checked that {@code jdk.incubator.vector}
+ * is in the boot layer, so the application still starts without {@code --add-modules}.
+ */
+final class VectorApiSimilarityKernel implements SimilarityKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (int upper = SPECIES.loopBound(length); i < upper; i += SPECIES.length()) {
+            FloatVector x = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            FloatVector y = FloatVector.fromArray(SPECIES, b, bOffset + i);
+            acc = x.fma(y, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float squaredDistance(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (int upper = SPECIES.loopBound(length); i < upper; i += SPECIES.length()) {
+            FloatVector diff = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .sub(FloatVector.fromArray(SPECIES, b, bOffset + i));
+            acc = diff.fma(diff, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            float d = a[aOffset + i] - b[bOffset + i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    @Override
+    public void dotBatch(float[] query, float[] matrix, int rowOffset, int rows, int dimension, float[] scores) {
+        int upper = SPECIES.loopBound(dimension);
+        int row = 0;
+        // Four rows per pass, so every query lane loaded is reused four times
+        for (; row + 3 < rows; row += 4) {
+            int o0 = (rowOffset + row) * dimension;
+            int o1 = o0 + dimension;
+            int o2 = o1 + dimension;
+            int o3 = o2 + dimension;
+            FloatVector acc0 = FloatVector.zero(SPECIES);
+            FloatVector acc1 = FloatVector.zero(SPECIES);
+            FloatVector acc2 = FloatVector.zero(SPECIES);
+            FloatVector acc3 = FloatVector.zero(SPECIES);
+            int i = 0;
+            for (; i < upper; i += SPECIES.length()) {
+                FloatVector q = FloatVector.fromArray(SPECIES, query, i);
+                acc0 = q.fma(FloatVector.fromArray(SPECIES, matrix, o0 + i), acc0);
+                acc1 = q.fma(FloatVector.fromArray(SPECIES, matrix, o1 + i), acc1);
+                acc2 = q.fma(FloatVector.fromArray(SPECIES, matrix, o2 + i), acc2);
+                acc3 = q.fma(FloatVector.fromArray(SPECIES, matrix, o3 + i), acc3);
+            }
+            float s0 = acc0.reduceLanes(VectorOperators.ADD);
+            float s1 = acc1.reduceLanes(VectorOperators.ADD);
+            float s2 = acc2.reduceLanes(VectorOperators.ADD);
+            float s3 = acc3.reduceLanes(VectorOperators.ADD);
+            for (; i < dimension; i++) {
+                float q = query[i];
+                s0 += q * matrix[o0 + i];
+                s1 += q * matrix[o1 + i];
+                s2 += q * matrix[o2 + i];
+                s3 += q * matrix[o3 + i];
+            }
+            scores[row] = s0;
+            scores[row + 1] = s1;
+            scores[row + 2] = s2;
+            scores[row + 3] = s3;
+        }
+        for (; row < rows; row++) {
+            scores[row] = dot(query, 0, matrix, (rowOffset + row) * dimension, dimension);
+        }
+    }
+}
@@ -23,44 +23,10 @@ public class VectorUtils {
             return chunks;
         }
 
-        // Normalize whitespace
-        String normalized = text.replaceAll("\\s+", " ").trim();
-
-        int start = 0;
-        while (start < normalized.length()) {
-            int end = Math.min(start + chunkSize, normalized.length());
-
-            // If not at the end, try to break at a sentence boundary
-            if (end < normalized.length()) {
-                int lastPeriod = normalized.lastIndexOf('.', end);
-                int lastQuestion = normalized.lastIndexOf('?', end);
-                int lastExclamation = normalized.lastIndexOf('!', end);
-                int lastNewline = normalized.lastIndexOf('\n', end);
-
-                int sentenceEnd = Math.max(
-                        Math.max(lastPeriod, lastQuestion),
-                        Math.max(lastExclamation, lastNewline)
-                );
-
-                // Only use sentence boundary if it's not too far back
-                if (sentenceEnd > start + (chunkSize / 2)) {
-                    end = sentenceEnd + 1;
-                } else {
-                    // Try to break at a space
-                    int lastSpace = normalized.lastIndexOf(' ', end);
-                    if (lastSpace > start) {
-                        end = lastSpace;
-                    }
-                }
-            }
-
-            String chunk = normalized.substring(start, end).trim();
-            if (!chunk.isEmpty()) {
-                chunks.add(chunk);
-            }
-
-            start = end;
-        }
+        // Whitespace normalization and boundary selection live in the streaming chunker
+        TextChunker chunker = new TextChunker(chunkSize, chunks::add);
+        chunker.write(text);
+        chunker.close();
 
         return chunks;
     }
@@ -102,6 +68,21 @@ public class VectorUtils {
         return dotProduct / (Math.sqrt(normA) * Math.sqrt(normB));
     }
 
+    /**
+     * Calculate cosine similarity between two primitive vectors.
+     *
+     * @param a First vector
+     * @param b Second vector
+     * @return Cosine similarity score (0 to 1, where 1 is most similar)
+     */
+    public static double cosineSimilarity(float[] a, float[] b) {
+        if (a == null || b == null || a.length == 0 || b.length == 0) {
+            return 0.0;
+        }
+
+        return SimilarityKernels.cosine(a, b);
+    }
+
     /**
      * Parse a JSON array string into a list of doubles.
      *
@@ -0,0 +1,104 @@
+package com.chitnis.document_management_app.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the streaming AiClient calls against a local stub of the chat completions endpoint.
+ */
+class AiClientTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final CountDownLatch firstTokenSeen = new CountDownLatch(1);
+	private final AtomicBoolean deliveredBeforeEnd = new AtomicBoolean();
+	private final List<JsonNode> requests = new CopyOnWriteArrayList<>();
+	private HttpServer server;
+	private AiClient client;
+	private volatile int status = 200;
+
+	@BeforeEach
+	void startStub() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/v1/chat/completions", exchange -> {
+			requests.add(objectMapper.readTree(exchange.getRequestBody()));
+			if (status != 200) {
+				exchange.sendResponseHeaders(status, -1);
+				exchange.close();
+				return;
+			}
+			exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream out = exchange.getResponseBody()) {
+				writeChunk(out, "The ");
+				// The rest is only written once the client has seen the first token
+				try {
+					deliveredBeforeEnd.set(firstTokenSeen.await(5, TimeUnit.SECONDS));
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				writeChunk(out, "answer");
+				writeChunk(out, " is 42. ");
+				out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+			}
+		});
+		server.start();
+		String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+		client = new AiClient(new RestTemplate(), "test-key", baseUrl, "test-model");
+	}
+
+	@AfterEach
+	void stopStub() {
+		server.stop(0);
+	}
+
+	@Test
+	void tokensArriveWhileTheCompletionIsStillStreaming() {
+		List<String> tokens = new CopyOnWriteArrayList<>();
+
+		String answer = client.streamAnswer("Some document", "What is the answer?", token -> {
+			tokens.add(token);
+			firstTokenSeen.countDown();
+		});
+
+		assertTrue(deliveredBeforeEnd.get());
+		assertEquals(List.of("The ", "answer", " is 42. "), tokens);
+		assertEquals("The answer is 42.", answer);
+		assertTrue(requests.get(0).get("stream").asBoolean());
+	}
+
+	@Test
+	void quotaErrorFallsBackInOnePiece() {
+		status = 429;
+		List<String> tokens = new CopyOnWriteArrayList<>();
+
+		String answer = client.streamAnswer("Some document", "What is the answer?", tokens::add);
+
+		assertEquals(List.of(answer), tokens);
+		assertTrue(answer.startsWith("AI temporarily unavailable"));
+	}
+
+	private void writeChunk(OutputStream out, String content) throws IOException {
+		Map<String, Object> chunk = Map.of("choices", List.of(Map.of("index", 0, "delta", Map.of("content", content))));
+		out.write(("data: " + objectMapper.writeValueAsString(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+		out.flush();
+	}
+}
@@ -0,0 +1,60 @@
+package com.chitnis.document_management_app.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SemaphoreTaskExecutorTest {
+
+	@Test
+	void limitsConcurrencyAndRejectsBeyondTheQueue() throws Exception {
+		// Platform threads stand in for virtual threads, which this JDK may not have
+		SemaphoreTaskExecutor executor = new SemaphoreTaskExecutor(Thread::new, 2, 1);
+		CountDownLatch started = new CountDownLatch(2);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch finished = new CountDownLatch(3);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		Runnable task = () -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			running.decrementAndGet();
+			finished.countDown();
+		};
+
+		executor.execute(task);
+		executor.execute(task);
+		executor.execute(task);
+		assertThrows(TaskRejectedException.class, () -> executor.execute(task));
+
+		// Both admitted tasks must be running before they are let go
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		release.countDown();
+		assertTrue(finished.await(5, TimeUnit.SECONDS));
+		assertEquals(2, maxRunning.get());
+
+		// Capacity is returned once the tasks' threads have finished
+		CountDownLatch again = new CountDownLatch(3);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (again.getCount() > 0 && System.nanoTime() < deadline) {
+			try {
+				executor.execute(again::countDown);
+			} catch (TaskRejectedException ex) {
+				Thread.sleep(10);
+			}
+		}
+		assertTrue(again.await(5, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,126 @@
+package com.chitnis.document_management_app.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileRangeResponderTest {
+
+	private static final String ETAG = "\"abc123\"";
+	private static final Instant STORED = Instant.parse("2024-05-01T10:00:00Z");
+
+	@TempDir
+	Path dir;
+
+	private Path file;
+	private final FileRangeResponder responder = new FileRangeResponder(1024);
+
+	@BeforeEach
+	void setUp() throws Exception {
+		file = Files.writeString(dir.resolve("doc.pdf"), "0123456789abcdefghij");
+	}
+
+	@Test
+	void servesWholeFileAndSingleRanges() throws Exception {
+		MockHttpServletResponse full = respond(new MockHttpServletRequest("GET", "/download"));
+		assertEquals(200, full.getStatus());
+		assertEquals("0123456789abcdefghij", full.getContentAsString());
+		assertEquals(ETAG, full.getHeader("ETag"));
+		assertEquals("bytes", full.getHeader("Accept-Ranges"));
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+		request.addHeader("Range", "bytes=5-9");
+		MockHttpServletResponse partial = respond(request);
+		assertEquals(206, partial.getStatus());
+		assertEquals("56789", partial.getContentAsString());
+		assertEquals("bytes 5-9/20", partial.getHeader("Content-Range"));
+
+		request = new MockHttpServletRequest("GET", "/download");
+		request.addHeader("Range", "bytes=-3");
+		assertEquals("hij", respond(request).getContentAsString());
+
+		request = new MockHttpServletRequest("GET", "/download");
+		request.addHeader("Range", "bytes=50-60");
+		MockHttpServletResponse unsatisfiable = respond(request);
+		assertEquals(416, unsatisfiable.getStatus());
+		assertEquals("bytes */20", unsatisfiable.getHeader("Content-Range"));
+	}
+
+	@Test
+	void honoursConditionalHeaders() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+		request.addHeader("If-None-Match", ETAG);
+		MockHttpServletResponse notModified = respond(request);
+		assertEquals(304, notModified.getStatus());
+		assertEquals(0, notModified.getContentAsByteArray().length);
+
+		// A stale If-Range falls back to the whole file
+		request = new MockHttpServletRequest("GET", "/download");
+		request.addHeader("Range", "bytes=0-1");
+		request.addHeader("If-Range", "\"other\"");
+		MockHttpServletResponse stale = respond(request);
+		assertEquals(200, stale.getStatus());
+		assertEquals(20, stale.getContentAsByteArray().length);
+
+		request = new MockHttpServletRequest("GET", "/download");
+		request.addHeader("Range", "bytes=0-1,10-11");
+		request.addHeader("If-Range", ETAG);
+		MockHttpServletResponse multipart = respond(request);
+		assertEquals(206, multipart.getStatus());
+		assertTrue(multipart.getContentType().startsWith("multipart/byteranges; boundary="));
+		String body = multipart.getContentAsString(StandardCharsets.US_ASCII);
+		assertTrue(body.contains("Content-Range: bytes 0-1/20\r\n\r\n01\r\n"));
+		assertTrue(body.contains("Content-Range: bytes 10-11/20\r\n\r\nab\r\n"));
+		assertEquals(multipart.getContentLengthLong(), multipart.getContentAsByteArray().length);
+	}
+
+	@Test
+	void mergesOverlappingRangesAndRefusesRepeatedOnes() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+		request.addHeader("Range", "bytes=10-11,0-4,3-9");
+		MockHttpServletResponse merged = respond(request);
+		assertEquals(206, merged.getStatus());
+		assertEquals("bytes 0-11/20", merged.getHeader("Content-Range"));
+		assertEquals("0123456789ab", merged.getContentAsString());
+
+		// More bytes than the file holds: served once as a plain 200
+		request = new MockHttpServletRequest("GET", "/download");
+		request.addHeader("Range", "bytes=0-,0-,0-,0-");
+		MockHttpServletResponse repeated = respond(request);
+		assertEquals(200, repeated.getStatus());
+		assertEquals("0123456789abcdefghij", repeated.getContentAsString());
+	}
+
+	@Test
+	void handsLargeBodiesToContainerSendfile() throws Exception {
+		Files.write(file, new byte[4096]);
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+		request.setAttribute(FileRangeResponder.SENDFILE_SUPPORTED, Boolean.TRUE);
+		request.addHeader("Range", "bytes=100-");
+
+		MockHttpServletResponse response = respond(request);
+
+		assertEquals(206, response.getStatus());
+		assertEquals(3996, response.getContentLengthLong());
+		assertEquals(0, response.getContentAsByteArray().length);
+		assertEquals(file.toRealPath().toString(), request.getAttribute(FileRangeResponder.SENDFILE_FILENAME));
+		assertEquals(100L, request.getAttribute(FileRangeResponder.SENDFILE_START));
+		assertEquals(4096L, request.getAttribute(FileRangeResponder.SENDFILE_END));
+	}
+
+	private MockHttpServletResponse respond(MockHttpServletRequest request) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		responder.respond(request, response, file, true, "application/pdf", "inline; filename=\"doc.pdf\"", ETAG, STORED);
+		return response;
+	}
+}
@@ -0,0 +1,74 @@
+package com.chitnis.document_management_app.repository;
+
+import com.chitnis.document_management_app.entity.DocumentChunk;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class DocumentChunkBulkOperationsImplTest {
+
+	private JdbcTemplate jdbcTemplate;
+	private DocumentChunkBulkOperationsImpl operations;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:chunk-bulk-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false", "sa", ""));
+		jdbcTemplate.execute("""
+				CREATE TABLE document_chunk (
+				    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+				    document_id BIGINT NOT NULL,
+				    chunk_index INTEGER NOT NULL,
+				    text TEXT NOT NULL,
+				    embedding_vector VARBINARY(64),
+				    created_at TIMESTAMP
+				)""");
+		operations = new DocumentChunkBulkOperationsImpl(jdbcTemplate);
+	}
+
+	@Test
+	void insertsAllChunksAndAssignsTheirIds() {
+		List<DocumentChunk> chunks = chunks(7L, 5);
+
+		operations.insertChunks(chunks);
+
+		for (DocumentChunk chunk : chunks) {
+			assertNotNull(chunk.getId());
+			assertEquals(chunk.getText(), jdbcTemplate.queryForObject(
+					"SELECT text FROM document_chunk WHERE id = ?", String.class, chunk.getId()));
+		}
+		assertArrayEquals(new byte[]{4}, jdbcTemplate.queryForObject(
+				"SELECT embedding_vector FROM document_chunk WHERE id = ?", byte[].class, chunks.get(4).getId()));
+	}
+
+	@Test
+	void replaceDropsOnlyThatDocumentsChunks() {
+		operations.insertChunks(chunks(1L, 3));
+		operations.insertChunks(chunks(2L, 2));
+
+		operations.replaceChunks(1L, chunks(1L, 1));
+
+		assertEquals(1, count(1L));
+		assertEquals(2, count(2L));
+	}
+
+	private int count(Long documentId) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM document_chunk WHERE document_id = ?", Integer.class, documentId);
+	}
+
+	private static List<DocumentChunk> chunks(Long documentId, int count) {
+		List<DocumentChunk> chunks = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			chunks.add(new DocumentChunk(documentId, i, "chunk " + i + " of " + documentId, new byte[]{(byte) i}));
+		}
+		return chunks;
+	}
+}
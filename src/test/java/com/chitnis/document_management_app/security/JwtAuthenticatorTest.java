@@ -0,0 +1,65 @@
+package com.chitnis.document_management_app.security;
+
+import com.chitnis.document_management_app.entity.User;
+import com.chitnis.document_management_app.service.JwtService;
+import com.chitnis.document_management_app.service.UserService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticatorTest {
+
+	private static final String SECRET = "test-secret-test-secret-test-secret-1234";
+
+	private final UserService userService = mock(UserService.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final User user = new User();
+
+	@BeforeEach
+	void setUp() {
+		user.setEmail("ada@example.com");
+		when(userService.loadUserByUsername("ada@example.com")).thenReturn(user);
+	}
+
+	@Test
+	void verifiesATokenOnceAndServesRepeatsFromTheCache() {
+		JwtService jwtService = new JwtService(SECRET, 60_000);
+		JwtAuthenticator authenticator = new JwtAuthenticator(jwtService, userService, meterRegistry, true, 100, Duration.ofMinutes(1));
+		String token = jwtService.generateToken(user);
+
+		for (int i = 0; i < 5; i++) {
+			assertSame(user, authenticator.authenticate(token));
+		}
+
+		verify(userService, times(1)).loadUserByUsername("ada@example.com");
+		assertEquals(1, meterRegistry.get("auth.jwt.duration").tag("result", "verified").timer().count());
+		assertEquals(4, meterRegistry.get("auth.jwt.duration").tag("result", "cached").timer().count());
+	}
+
+	@Test
+	void rejectsForgedAndExpiredTokensWithoutLoadingUsers() {
+		JwtAuthenticator authenticator = new JwtAuthenticator(new JwtService(SECRET, 60_000), userService,
+				meterRegistry, true, 100, Duration.ofMinutes(1));
+		String forged = new JwtService("another-secret-another-secret-another-1", 60_000).generateToken(user);
+		String expired = new JwtService(SECRET, -1_000).generateToken(user);
+
+		assertNull(authenticator.authenticate(forged));
+		assertNull(authenticator.authenticate(expired));
+		assertNull(authenticator.authenticate("not.a.jwt"));
+
+		verify(userService, never()).loadUserByUsername("ada@example.com");
+		assertEquals(3, meterRegistry.get("auth.jwt.duration").tag("result", "rejected").timer().count());
+	}
+}
@@ -0,0 +1,198 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.entity.FileBlob;
+import com.chitnis.document_management_app.repository.FileBlobRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs against a real database so the reference count updates are exercised as SQL
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:blob-service;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_UPPER=false")
+class BlobServiceTest {
+
+	@TempDir
+	Path uploadDir;
+
+	@Autowired
+	private FileBlobRepository repository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private LocalBlobStore store;
+	private BlobService service;
+
+	@BeforeEach
+	void setUp() {
+		repository.deleteAll();
+		store = new LocalBlobStore(uploadDir);
+		service = new BlobService(repository, store, transactionManager);
+	}
+
+	@Test
+	void identicalUploadsShareOneFileUntilLastReleased() throws Exception {
+		FileBlob first = service.store(stream("same bytes"), ".pdf");
+		FileBlob second = service.store(stream("same bytes"), ".pdf");
+		FileBlob other = service.store(stream("other bytes"), ".pdf");
+
+		assertEquals(first.getStoredFilePath(), second.getStoredFilePath());
+		assertNotEquals(first.getContentHash(), other.getContentHash());
+		assertEquals(64, first.getContentHash().length());
+		assertEquals(first.getContentHash() + ".pdf", first.getStoredFilePath());
+		assertEquals(2, repository.findById(first.getContentHash()).orElseThrow().getRefCount());
+		assertEquals(10, first.getSizeInBytes());
+		// Two blobs, sharded by hash prefix, and no temporary files left behind
+		String hash = first.getContentHash();
+		assertTrue(Files.exists(uploadDir.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash + ".pdf")));
+		assertEquals(2, blobCount());
+		try (Stream<Path> staged = Files.list(store.stagingDirectory())) {
+			assertEquals(0, staged.count());
+		}
+
+		service.release(first.getContentHash());
+		assertTrue(store.exists(first.getStoredFilePath()));
+		service.release(first.getContentHash());
+		assertFalse(store.exists(first.getStoredFilePath()));
+		assertFalse(repository.existsById(first.getContentHash()));
+	}
+
+	@Test
+	void adoptingADuplicateLegacyFilePointsAtTheExistingBlob() throws Exception {
+		FileBlob stored = service.store(stream("policy"), ".pdf");
+		Path legacy = Files.writeString(uploadDir.resolve("legacy-copy.pdf"), "policy");
+
+		FileBlob adopted = service.adopt(legacy);
+
+		assertEquals(stored.getStoredFilePath(), adopted.getStoredFilePath());
+		assertEquals(2, adopted.getRefCount());
+	}
+
+	@Test
+	void movesLegacyFilesIntoTheStoreAndDeletesOrphans() throws Exception {
+		Path legacy = Files.writeString(uploadDir.resolve("legacy.pdf"), "legacy bytes");
+		FileBlob adopted = service.adopt(legacy);
+
+		assertFalse(Files.exists(legacy));
+		assertEquals(adopted.getContentHash() + ".pdf", adopted.getStoredFilePath());
+		assertEquals("legacy bytes", Files.readString(service.localFile(adopted.getStoredFilePath()).getPath()));
+
+		// A blob whose row was never saved, e.g. after a crash
+		Path stray = Files.writeString(store.stagingDirectory().resolve("stray"), "stray");
+		store.put("0123456789abcdef.pdf", stray);
+		assertEquals(0, service.deleteOrphans(Duration.ofHours(1)));
+		assertEquals(1, service.deleteOrphans(Duration.ofSeconds(-1)));
+		assertFalse(store.exists("0123456789abcdef.pdf"));
+		assertTrue(store.exists(adopted.getStoredFilePath()));
+	}
+
+	@Test
+	void rejectsUploadsWithWrongMagicOrSizeWithoutStoringThem() throws Exception {
+		byte[] magic = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+
+		assertThrows(IllegalArgumentException.class, () -> service.store(stream("<html>not a pdf"), ".pdf", 100, magic));
+		assertThrows(IllegalArgumentException.class, () -> service.store(stream("%PD"), ".pdf", 100, magic));
+		assertThrows(MaxUploadSizeExceededException.class,
+				() -> service.store(stream("%PDF-1.7 " + "x".repeat(100)), ".pdf", 100, magic));
+		assertEquals(0, blobCount());
+		try (Stream<Path> staged = Files.list(store.stagingDirectory())) {
+			assertEquals(0, staged.count());
+		}
+
+		// The magic may arrive split over several reads
+		InputStream trickle = new FilterInputStream(stream("%PDF-1.7 body")) {
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				return super.read(b, off, Math.min(len, 2));
+			}
+		};
+		FileBlob blob = service.store(trickle, ".pdf", 100, magic);
+		assertEquals("%PDF-1.7 body", Files.readString(service.localFile(blob.getStoredFilePath()).getPath()));
+	}
+
+	@Test
+	void nodesSharingTheDatabaseKeepAnAccurateCount() throws Exception {
+		// Two services stand in for two nodes: nothing is shared between them but the table and store
+		BlobService otherNode = new BlobService(repository, store, transactionManager);
+		FileBlob kept = service.store(stream("shared"), ".pdf");
+		int rounds = 50;
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Callable<Void>> tasks = new ArrayList<>();
+			for (BlobService node : List.of(service, otherNode)) {
+				for (int i = 0; i < 2; i++) {
+					tasks.add(() -> {
+						for (int round = 0; round < rounds; round++) {
+							node.store(stream("shared"), ".pdf");
+							node.release(kept.getContentHash());
+						}
+						return null;
+					});
+				}
+			}
+			for (Future<Void> result : executor.invokeAll(tasks)) {
+				result.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, repository.findById(kept.getContentHash()).orElseThrow().getRefCount());
+		assertTrue(store.exists(kept.getStoredFilePath()));
+
+		// The count also reaches zero exactly once when releases race
+		otherNode.store(stream("shared"), ".pdf");
+		Thread first = new Thread(() -> service.release(kept.getContentHash()));
+		Thread second = new Thread(() -> otherNode.release(kept.getContentHash()));
+		first.start();
+		second.start();
+		first.join();
+		second.join();
+		assertFalse(repository.existsById(kept.getContentHash()));
+		assertFalse(store.exists(kept.getStoredFilePath()));
+	}
+
+	private int blobCount() throws IOException {
+		int[] count = {0};
+		store.forEach(blob -> count[0]++);
+		return count[0];
+	}
+
+	private static ByteArrayInputStream stream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,122 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.entity.EmbeddingCacheEntry;
+import com.chitnis.document_management_app.repository.EmbeddingCacheRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingEmbeddingServiceTest {
+
+	private final EmbeddingService delegate = mock(EmbeddingService.class);
+	private final EmbeddingCacheRepository repository = mock(EmbeddingCacheRepository.class);
+	private final Map<String, EmbeddingCacheEntry> rows = new HashMap<>();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@BeforeEach
+	void setUp() {
+		when(delegate.getModelName()).thenReturn("test-model");
+		when(delegate.isModelOutput(any())).thenReturn(true);
+		when(delegate.embedAll(anyList())).thenAnswer(invocation -> {
+			List<String> texts = invocation.getArgument(0);
+			List<List<Double>> embeddings = new ArrayList<>();
+			for (String text : texts) {
+				embeddings.add(List.of((double) text.length(), 1.0));
+			}
+			return embeddings;
+		});
+		when(repository.findAllById(any())).thenAnswer(invocation -> {
+			List<EmbeddingCacheEntry> found = new ArrayList<>();
+			for (String key : invocation.<Iterable<String>>getArgument(0)) {
+				if (rows.containsKey(key)) {
+					found.add(rows.get(key));
+				}
+			}
+			return found;
+		});
+		when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+			for (EmbeddingCacheEntry entry : invocation.<List<EmbeddingCacheEntry>>getArgument(0)) {
+				rows.put(entry.getCacheKey(), entry);
+			}
+			return invocation.getArgument(0);
+		});
+	}
+
+	@Test
+	void duplicateTextsAreEmbeddedOnceAndThenServedFromMemory() {
+		CachingEmbeddingService service = service();
+
+		List<List<Double>> first = service.embedAll(List.of("Confidential footer", "Body text", "Confidential   footer"));
+		List<List<Double>> second = service.embedAll(List.of("Body text"));
+
+		// Whitespace differences share one entry
+		verify(delegate).embedAll(List.of("Confidential footer", "Body text"));
+		assertEquals(first.get(0), first.get(2));
+		assertEquals(first.get(1), second.get(0));
+		assertEquals(2, rows.size());
+		assertEquals(1.0, count("memory"));
+		assertEquals(3.0, count("miss"));
+	}
+
+	@Test
+	void storedEmbeddingsSurviveANewProcess() {
+		service().embed("What is the refund policy?");
+
+		// A fresh instance has an empty memory tier but shares the table
+		CachingEmbeddingService restarted = service();
+		List<Double> embedding = restarted.embed("What is the refund policy?");
+
+		assertEquals(List.of(26.0, 1.0), embedding);
+		verify(delegate).embedAll(List.of("What is the refund policy?"));
+		assertEquals(1.0, count("store"));
+	}
+
+	@Test
+	void fallbackVectorsAreNotCached() {
+		when(delegate.isModelOutput(any())).thenReturn(false);
+		CachingEmbeddingService service = service();
+
+		service.embed("provider is down");
+		service.embed("provider is down");
+
+		verify(repository, never()).saveAll(anyList());
+		assertEquals(2.0, count("miss"));
+	}
+
+	@Test
+	void concurrentlyStoredKeyDoesNotFailTheCaller() {
+		// Another request inserted the same key first; the insert fails when flushed
+		doThrow(new DataIntegrityViolationException("duplicate key")).when(repository).flush();
+
+		List<Double> embedding = service().embed("Body text");
+
+		assertEquals(List.of(9.0, 1.0), embedding);
+		verify(repository).flush();
+	}
+
+	private CachingEmbeddingService service() {
+		return new CachingEmbeddingService(delegate, repository, mock(PlatformTransactionManager.class),
+				meterRegistry, 100, true);
+	}
+
+	private double count(String result) {
+		return meterRegistry.get("embedding.cache.requests").tag("result", result).counter().count();
+	}
+}
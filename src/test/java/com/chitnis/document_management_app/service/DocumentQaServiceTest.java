@@ -0,0 +1,170 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.ai.AiClient;
+import com.chitnis.document_management_app.dto.DocumentQaResponse;
+import com.chitnis.document_management_app.dto.MultiDocumentQaResponse;
+import com.chitnis.document_management_app.entity.DocumentChunk;
+import com.chitnis.document_management_app.repository.DocumentChunkRepository;
+import com.chitnis.document_management_app.repository.DocumentRepository;
+import com.chitnis.document_management_app.util.TokenEstimator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DocumentQaServiceTest {
+
+	private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+	private final DocumentChunkRepository documentChunkRepository = mock(DocumentChunkRepository.class);
+	private final EmbeddingService embeddingService = mock(EmbeddingService.class);
+	private final AiClient aiClient = mock(AiClient.class);
+	private final DocumentVectorIndexCache vectorIndexCache = mock(DocumentVectorIndexCache.class);
+	private final DocumentTextStore textStore = mock(DocumentTextStore.class);
+	private final List<DocumentChunk> chunks = new ArrayList<>();
+
+	private DocumentQaService service;
+
+	@BeforeEach
+	void setUp() {
+		QaAnswerCache answerCache = new QaAnswerCache(new SimpleMeterRegistry(), true, 100, 10,
+				Duration.ofHours(1), true, 0.95);
+		service = new DocumentQaService(documentRepository, documentChunkRepository, embeddingService,
+				aiClient, vectorIndexCache, answerCache, textStore);
+		ReflectionTestUtils.setField(service, "topK", 5);
+		ReflectionTestUtils.setField(service, "contextTokens", 1000);
+		ReflectionTestUtils.setField(service, "multiTopK", 5);
+		ReflectionTestUtils.setField(service, "maxChunksPerDocument", 3);
+		ReflectionTestUtils.setField(service, "multiContextTokens", 10_000);
+
+		when(aiClient.getTokenEstimator()).thenReturn(TokenEstimator.forModel("llama-3.1-8b-instant"));
+		when(embeddingService.embed("What changed?")).thenReturn(List.of(1.0, 0.0));
+		when(aiClient.answerQuestionMulti(any(), eq("What changed?"))).thenReturn("answer");
+		when(documentChunkRepository.findAllById(any())).thenAnswer(invocation -> {
+			Collection<Long> ids = invocation.getArgument(0);
+			return chunks.stream().filter(chunk -> ids.contains(chunk.getId())).toList();
+		});
+	}
+
+	@Test
+	void mergesChunksAcrossDocumentsWithPerDocumentQuota() {
+		when(documentRepository.findQaMetadataByIdIn(List.of(1L, 2L)))
+				.thenReturn(List.of(metadata(1L, "policy.pdf"), metadata(2L, "memo.pdf")));
+		// Document 1 matches the question much better than document 2
+		when(vectorIndexCache.get(1L)).thenReturn(index(1L, 10, 0.9f));
+		when(vectorIndexCache.get(2L)).thenReturn(index(2L, 20, 0.1f));
+
+		MultiDocumentQaResponse response = service.answerQuestionMulti(List.of(1L, 2L, 1L), "What changed?");
+
+		ArgumentCaptor<CharSequence> context = ArgumentCaptor.forClass(CharSequence.class);
+		verify(aiClient).answerQuestionMulti(context.capture(), eq("What changed?"));
+		String sent = context.getValue().toString();
+
+		assertEquals(List.of(1L, 2L), response.getDocumentIds());
+		assertEquals(List.of("policy.pdf", "memo.pdf"), response.getDocumentNames());
+		assertTrue(sent.indexOf("[policy.pdf]") < sent.indexOf("[memo.pdf]"));
+		// Quota of 3 for the strong document, and the weak one still gets its best chunk
+		assertEquals(3, countOccurrences(sent, "chunk of document 1"));
+		assertTrue(sent.contains("chunk of document 2 #0"));
+		assertEquals("chunk of document 1 #0", response.getSourceSnippet());
+		verify(documentRepository, never()).findById(anyLong());
+	}
+
+	@Test
+	void answersFromOpeningTextWhenChunksHaveAnotherDimension() {
+		when(documentRepository.existsById(1L)).thenReturn(true);
+		when(textStore.hasText(1L)).thenReturn(true);
+		when(textStore.readWindow(eq(1L), eq(0), anyInt())).thenReturn("Opening text of the refund policy.");
+		// Chunks were embedded in 2 dimensions; the configured model now produces 3
+		when(vectorIndexCache.get(1L)).thenReturn(index(1L, 10, 0.9f));
+		when(embeddingService.embed("What changed?")).thenReturn(List.of(1.0, 0.0, 0.0));
+		when(aiClient.answerQuestion(any(), eq("What changed?"))).thenReturn("from the opening");
+
+		DocumentQaResponse response = service.answerQuestion(1L, "What changed?");
+
+		assertEquals("from the opening", response.getAnswer());
+		ArgumentCaptor<CharSequence> context = ArgumentCaptor.forClass(CharSequence.class);
+		verify(aiClient).answerQuestion(context.capture(), eq("What changed?"));
+		assertTrue(context.getValue().toString().contains("Opening text of the refund policy."));
+	}
+
+	@Test
+	void stopsAddingChunksWhenTokenBudgetIsUsed() {
+		ReflectionTestUtils.setField(service, "multiContextTokens", 8);
+		when(documentRepository.findQaMetadataByIdIn(List.of(1L)))
+				.thenReturn(List.of(metadata(1L, "policy.pdf")));
+		when(vectorIndexCache.get(1L)).thenReturn(index(1L, 10, 0.9f));
+
+		service.answerQuestionMulti(List.of(1L), "What changed?");
+
+		ArgumentCaptor<CharSequence> context = ArgumentCaptor.forClass(CharSequence.class);
+		verify(aiClient).answerQuestionMulti(context.capture(), eq("What changed?"));
+		String sent = context.getValue().toString();
+		assertEquals(1, countOccurrences(sent, "chunk of document 1"));
+		assertFalse(sent.contains("#1"));
+	}
+
+	private DocumentVectorIndex index(long documentId, long firstChunkId, float similarity) {
+		int rows = 4;
+		long[] ids = new long[rows];
+		float[] matrix = new float[rows * 2];
+		for (int i = 0; i < rows; i++) {
+			ids[i] = firstChunkId + i;
+			// Later chunks drift away from the question vector
+			float x = similarity - i * 0.05f;
+			float[] row = DocumentVectorIndex.normalize(new float[]{x, (float) Math.sqrt(1 - x * x)});
+			matrix[i * 2] = row[0];
+			matrix[i * 2 + 1] = row[1];
+
+			DocumentChunk chunk = new DocumentChunk(documentId, i, "chunk of document " + documentId + " #" + i, null);
+			ReflectionTestUtils.setField(chunk, "id", ids[i]);
+			chunks.add(chunk);
+		}
+		return new DocumentVectorIndex(ids, matrix, 2);
+	}
+
+	private static DocumentRepository.DocumentQaMetadata metadata(Long id, String name) {
+		return new DocumentRepository.DocumentQaMetadata() {
+			@Override
+			public Long getId() {
+				return id;
+			}
+
+			@Override
+			public String getOriginalFileName() {
+				return name;
+			}
+
+			@Override
+			public Boolean getHasText() {
+				return true;
+			}
+		};
+	}
+
+	private static int countOccurrences(String text, String needle) {
+		int count = 0;
+		for (int i = text.indexOf(needle); i >= 0; i = text.indexOf(needle, i + 1)) {
+			count++;
+		}
+		return count;
+	}
+}
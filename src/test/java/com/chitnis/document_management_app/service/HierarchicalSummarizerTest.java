@@ -0,0 +1,114 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.ai.AiClient;
+import com.chitnis.document_management_app.entity.SummaryCacheEntry;
+import com.chitnis.document_management_app.repository.SummaryCacheRepository;
+import com.chitnis.document_management_app.util.TokenEstimator;
+import com.chitnis.document_management_app.util.VectorUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HierarchicalSummarizerTest {
+
+	private final AiClient aiClient = mock(AiClient.class);
+	private final SummaryCacheRepository repository = mock(SummaryCacheRepository.class);
+	private final Map<String, SummaryCacheEntry> rows = new HashMap<>();
+	private HierarchicalSummarizer summarizer;
+
+	@BeforeEach
+	void setUp() {
+		when(aiClient.getModel()).thenReturn("test-model");
+		when(aiClient.getTokenEstimator()).thenReturn(TokenEstimator.forModel("test-model"));
+		when(aiClient.summarizeSection(anyString())).thenAnswer(invocation -> padded("section " + invocation.getArgument(0).hashCode()));
+		when(aiClient.combineSummaries(anyList())).thenAnswer(invocation -> padded("merged " + invocation.getArgument(0).hashCode()));
+		when(aiClient.summarize(anyString())).thenAnswer(invocation -> "final of " + invocation.<String>getArgument(0).length() + " chars");
+		when(repository.findAllById(any())).thenAnswer(invocation -> {
+			List<SummaryCacheEntry> found = new ArrayList<>();
+			for (String key : invocation.<Iterable<String>>getArgument(0)) {
+				if (rows.containsKey(key)) {
+					found.add(rows.get(key));
+				}
+			}
+			return found;
+		});
+		when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+			for (SummaryCacheEntry entry : invocation.<List<SummaryCacheEntry>>getArgument(0)) {
+				rows.put(entry.getCacheKey(), entry);
+			}
+			return invocation.getArgument(0);
+		});
+
+		TaskExecutor sameThread = Runnable::run;
+		// 1000-character sections; section summaries are ~80 tokens, so about three fit per merge
+		summarizer = new HierarchicalSummarizer(aiClient, repository, sameThread, new SimpleMeterRegistry(), 1000, 250);
+	}
+
+	@Test
+	void summarizesEverySectionAndMergesDownToOneFinalCall() {
+		String text = document("topic");
+
+		String summary = summarizer.summarize(text);
+
+		assertTrue(summary.startsWith("final of "));
+		verify(aiClient, times(VectorUtils.splitIntoChunks(text, 1000).size())).summarizeSection(anyString());
+		verify(aiClient, atLeast(3)).combineSummaries(anyList());
+		verify(aiClient, times(1)).summarize(anyString());
+	}
+
+	@Test
+	void smallEditOnlyResummarizesTheChangedSection() {
+		String text = document("topic");
+		summarizer.summarize(text);
+		clearInvocations(aiClient);
+
+		// Same length, so every later section keeps its boundaries
+		summarizer.summarize(text.replace("topic 150.", "topix 150."));
+
+		verify(aiClient, times(1)).summarizeSection(anyString());
+		verify(aiClient, times(1)).summarize(anyString());
+
+		clearInvocations(aiClient);
+		summarizer.summarize(text);
+		verify(aiClient, never()).summarizeSection(anyString());
+		verify(aiClient, never()).combineSummaries(anyList());
+	}
+
+	@Test
+	void shortDocumentsAreSummarizedInOneCall() {
+		assertEquals("final of 11 chars", summarizer.summarize("Short text."));
+		verify(aiClient, never()).summarizeSection(anyString());
+	}
+
+	private static String document(String word) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 300; i++) {
+			text.append(String.format("Sentence %03d is about %s %03d. ", i, word, i));
+		}
+		return text.toString();
+	}
+
+	private static String padded(String prefix) {
+		return prefix + " " + "x".repeat(400 - prefix.length());
+	}
+}
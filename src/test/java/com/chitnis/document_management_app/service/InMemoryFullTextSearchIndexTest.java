@@ -0,0 +1,98 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.repository.DocumentRepository;
+import com.chitnis.document_management_app.util.SnippetBuilder;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InMemoryFullTextSearchIndexTest {
+
+	private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+	private final InMemoryFullTextSearchIndex index = new InMemoryFullTextSearchIndex(documentRepository);
+
+	@Test
+	void ranksByTermFrequencyAndRequiresEveryTerm() {
+		index.indexDocument(1L, 7L, "Invoice for March. Payment due.");
+		index.indexDocument(2L, 7L, "Invoice invoice invoice, payment overdue: invoice attached.");
+		index.indexDocument(3L, 7L, "Meeting notes about the office move.");
+
+		List<FullTextSearchIndex.Hit> hits = index.search(7L, "INVOICE payment", 0, 10);
+
+		assertEquals(List.of(2L, 1L), hits.stream().map(FullTextSearchIndex.Hit::getDocumentId).toList());
+		assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+		assertTrue(index.search(7L, "invoice office", 0, 10).isEmpty());
+	}
+
+	@Test
+	void isolatesUsersAndPaginates() {
+		for (long id = 1; id <= 5; id++) {
+			index.indexDocument(id, 1L, "quarterly report number " + id);
+		}
+		index.indexDocument(99L, 2L, "quarterly report of someone else");
+
+		assertEquals(5, index.search(1L, "quarterly", 0, 10).size());
+		assertEquals(List.of(5L, 4L), index.search(1L, "quarterly", 0, 2).stream()
+				.map(FullTextSearchIndex.Hit::getDocumentId).toList());
+		assertEquals(List.of(1L), index.search(1L, "quarterly", 2, 2).stream()
+				.map(FullTextSearchIndex.Hit::getDocumentId).toList());
+		assertEquals(List.of(99L), index.search(2L, "report", 0, 10).stream()
+				.map(FullTextSearchIndex.Hit::getDocumentId).toList());
+	}
+
+	@Test
+	void reindexAndRemoveReplacePostings() {
+		index.indexDocument(1L, 1L, "draft contract");
+		index.indexDocument(1L, 1L, "signed contract");
+
+		assertTrue(index.search(1L, "draft", 0, 10).isEmpty());
+		assertEquals(1, index.search(1L, "signed", 0, 10).size());
+
+		index.removeDocument(1L);
+		assertTrue(index.search(1L, "contract", 0, 10).isEmpty());
+
+		when(documentRepository.findIdsWithRawText()).thenReturn(List.of(1L, 2L));
+		index.indexDocument(2L, 1L, "other");
+		assertEquals(List.of(1L), index.findUnindexedDocumentIds());
+	}
+
+	@Test
+	void reportsFirstMatchOffsetForSnippets() {
+		String text = "Header\n\n   Section one.   The   refund policy applies to all orders.";
+		index.indexDocument(1L, 1L, text);
+
+		FullTextSearchIndex.Hit hit = index.search(1L, "policy refund", 0, 10).get(0);
+
+		assertEquals(text.indexOf("refund"), hit.getMatchOffset());
+		assertEquals("refund".length(), hit.getMatchLength());
+		assertEquals("… one. The refund policy ap…",
+				SnippetBuilder.around(text, hit.getMatchOffset(), hit.getMatchLength(), 10, false, false));
+	}
+
+	@Test
+	void streamsTextWithTermsSplitAcrossReads() {
+		String text = "Appendix: the indemnification clause survives termination.";
+		// Three characters per read, so most terms arrive in pieces
+		Reader trickle = new StringReader(text) {
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				return super.read(cbuf, off, Math.min(len, 3));
+			}
+		};
+		index.indexDocument(1L, 1L, trickle);
+
+		FullTextSearchIndex.Hit hit = index.search(1L, "termination indemnification", 0, 10).get(0);
+
+		assertEquals(text.indexOf("indemnification"), hit.getMatchOffset());
+		assertEquals("indemnification".length(), hit.getMatchLength());
+	}
+}
@@ -0,0 +1,150 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.entity.Document;
+import com.chitnis.document_management_app.entity.DocumentStatus;
+import com.chitnis.document_management_app.entity.IngestionJob;
+import com.chitnis.document_management_app.repository.DocumentChunkRepository;
+import com.chitnis.document_management_app.repository.DocumentRepository;
+import com.chitnis.document_management_app.repository.DocumentSummaryRepository;
+import com.chitnis.document_management_app.repository.IngestionJobRepository;
+import com.chitnis.document_management_app.util.CompressedText;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs jobs through a real {@link DocumentService} on the calling thread, with the provider
+ * and storage mocked.
+ */
+class IngestionServiceTest {
+
+	private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+	private final DocumentChunkRepository documentChunkRepository = mock(DocumentChunkRepository.class);
+	private final IngestionJobRepository ingestionJobRepository = mock(IngestionJobRepository.class);
+	private final EmbeddingService embeddingService = mock(EmbeddingService.class);
+	private final PdfTextExtractor pdfTextExtractor = mock(PdfTextExtractor.class);
+	private final FullTextSearchIndex searchIndex = mock(FullTextSearchIndex.class);
+	private final DocumentTextStore textStore = mock(DocumentTextStore.class);
+	private final BlobService blobService = mock(BlobService.class);
+	private final SemanticSearchService semanticSearchService = mock(SemanticSearchService.class);
+	private final Document document = new Document();
+	private final IngestionJob job = new IngestionJob();
+	private IngestionService ingestionService;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		document.setId(7L);
+		document.setUserId(1L);
+		document.setStoredFilePath("abcd.pdf");
+		job.setDocumentId(7L);
+		job.setStatus(DocumentStatus.QUEUED);
+		when(documentRepository.findById(7L)).thenReturn(Optional.of(document));
+		when(ingestionJobRepository.findByStatusIn(any())).thenReturn(List.of(job));
+		when(ingestionJobRepository.findByDocumentId(7L)).thenReturn(Optional.of(job));
+		when(blobService.localFile("abcd.pdf")).thenReturn(new BlobStore.LocalFile(Path.of("abcd.pdf"), false, () -> { }));
+		when(textStore.newBuilder()).thenReturn(CompressedText.builder(1024));
+		when(pdfTextExtractor.extract(any(), any())).thenAnswer(invocation -> {
+			invocation.<Writer>getArgument(1).write("Refunds are issued within thirty days of purchase.");
+			return 1;
+		});
+		when(embeddingService.isModelConfigured()).thenReturn(true);
+		when(embeddingService.embedAll(anyList())).thenAnswer(invocation -> {
+			List<List<Double>> embeddings = new ArrayList<>();
+			for (int i = 0; i < invocation.<List<String>>getArgument(0).size(); i++) {
+				embeddings.add(List.of(1.0, 0.0));
+			}
+			return embeddings;
+		});
+
+		DocumentService documentService = new DocumentService(documentRepository, documentChunkRepository,
+				embeddingService, mock(DocumentVectorIndexCache.class), pdfTextExtractor, searchIndex,
+				semanticSearchService, blobService, mock(DocumentSummaryRepository.class),
+				ingestionJobRepository, mock(QaAnswerCache.class), textStore);
+		ReflectionTestUtils.setField(documentService, "chunkSize", 800);
+		ReflectionTestUtils.setField(documentService, "embeddingBatchSize", 64);
+		ingestionService = new IngestionService(documentService, documentRepository, ingestionJobRepository,
+				Runnable::run, searchIndex, textStore);
+		ReflectionTestUtils.setField(ingestionService, "maxAttempts", 3);
+		ReflectionTestUtils.setField(ingestionService, "retryBackoffMs", 1L);
+	}
+
+	@Test
+	void storesModelVectorsAndMarksTheDocumentReady() {
+		when(embeddingService.isModelOutput(any())).thenReturn(true);
+
+		ingestionService.resumeInterruptedJobs();
+
+		assertEquals(DocumentStatus.READY, job.getStatus());
+		assertEquals(1, job.getAttempts());
+		// Semantic search entries are swapped only once the new chunks are stored
+		InOrder order = inOrder(documentChunkRepository, semanticSearchService);
+		order.verify(documentChunkRepository).replaceChunks(eq(7L), anyList());
+		order.verify(semanticSearchService).removeDocument(1L, 7L);
+		order.verify(semanticSearchService).addChunks(eq(1L), anyList());
+	}
+
+	@Test
+	void failingProviderRetriesAndFailsInsteadOfStoringStandIns() {
+		// What the provider client returns after an error, a malformed response or a busy limiter
+		when(embeddingService.isModelOutput(any())).thenReturn(false);
+
+		ingestionService.resumeInterruptedJobs();
+
+		assertEquals(DocumentStatus.FAILED, job.getStatus());
+		assertEquals(3, job.getAttempts());
+		assertTrue(job.getLastError().contains("did not embed"));
+		verify(embeddingService, times(3)).embedAll(anyList());
+		verify(documentChunkRepository, never()).replaceChunks(anyLong(), anyList());
+		verify(semanticSearchService, never()).removeDocument(anyLong(), anyLong());
+		verify(documentRepository, never()).updateStatus(7L, DocumentStatus.READY);
+		verify(documentRepository).updateStatus(7L, DocumentStatus.FAILED);
+	}
+
+	@Test
+	void keywordIndexFailureDoesNotFailIngestion() {
+		when(embeddingService.isModelOutput(any())).thenReturn(true);
+		doThrow(new DataIntegrityViolationException("string is too long for tsvector"))
+				.when(searchIndex).indexDocument(eq(7L), eq(1L), nullable(Reader.class));
+
+		ingestionService.resumeInterruptedJobs();
+
+		assertEquals(DocumentStatus.READY, job.getStatus());
+		assertEquals(1, job.getAttempts());
+	}
+
+	@Test
+	void standInsAreStoredWhenNoModelIsConfigured() {
+		when(embeddingService.isModelConfigured()).thenReturn(false);
+		when(embeddingService.isModelOutput(any())).thenReturn(false);
+
+		ingestionService.resumeInterruptedJobs();
+
+		assertEquals(DocumentStatus.READY, job.getStatus());
+		verify(documentChunkRepository).replaceChunks(eq(7L), anyList());
+	}
+}
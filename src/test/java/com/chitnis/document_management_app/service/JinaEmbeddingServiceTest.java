@@ -0,0 +1,136 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.config.ProviderConcurrencyLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs JinaEmbeddingService against a local stub of the embeddings endpoint.
+ */
+class JinaEmbeddingServiceTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final List<Integer> requestSizes = new CopyOnWriteArrayList<>();
+	private HttpServer server;
+	private String url;
+
+	@BeforeEach
+	void startStub() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/v1/embeddings", exchange -> {
+			JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+			JsonNode input = request.get("input");
+			requestSizes.add(input.size());
+
+			// Answer in reverse order: the client must place results by "index"
+			List<Object> data = new ArrayList<>();
+			for (int i = input.size() - 1; i >= 0; i--) {
+				String text = input.get(i).asText();
+				data.add(Map.of("index", i, "embedding", List.of((double) text.length(), 1.0)));
+			}
+			byte[] body = objectMapper.writeValueAsBytes(Map.of("data", data));
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+		url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/embeddings";
+	}
+
+	@AfterEach
+	void stopStub() {
+		server.stop(0);
+	}
+
+	@Test
+	void requestRejectedByTheConcurrencyLimitIsNotModelOutput() throws IOException {
+		ProviderConcurrencyLimiter limiter = new ProviderConcurrencyLimiter("jina", 1, Duration.ZERO, new SimpleMeterRegistry());
+		// Hold the only slot, as a long request on another thread would
+		limiter.intercept(mock(HttpRequest.class), new byte[0], (request, body) -> mock(ClientHttpResponse.class));
+		RestTemplate restTemplate = new RestTemplate();
+		restTemplate.getInterceptors().add(limiter);
+		JinaEmbeddingService service = new JinaEmbeddingService(restTemplate, "test-key", url, 4, 100_000);
+
+		List<Double> embedding = service.embed("busy provider");
+
+		// Ingestion fails such a batch and retries it rather than storing the stand-in
+		assertTrue(service.isModelConfigured());
+		assertFalse(service.isModelOutput(embedding));
+		assertEquals(List.of(), requestSizes);
+	}
+
+	@Test
+	void embedAllSendsOneRequestPerBatch() {
+		JinaEmbeddingService service = new JinaEmbeddingService(new RestTemplate(), "test-key", url, 4, 100_000);
+		List<String> texts = new ArrayList<>();
+		for (int i = 1; i <= 10; i++) {
+			texts.add("x".repeat(i));
+		}
+
+		List<List<Double>> embeddings = service.embedAll(texts);
+
+		assertEquals(List.of(4, 4, 2), requestSizes);
+		for (int i = 0; i < texts.size(); i++) {
+			assertEquals(texts.get(i).length(), embeddings.get(i).get(0).intValue());
+		}
+	}
+
+	@Test
+	void embedAllSplitsBatchesByEstimatedTokens() {
+		// 800 characters is ~201 estimated tokens, so only two chunks fit in 450 tokens
+		JinaEmbeddingService service = new JinaEmbeddingService(new RestTemplate(), "test-key", url, 64, 450);
+		List<String> texts = Collections.nCopies(5, "a".repeat(800));
+
+		List<List<Double>> embeddings = service.embedAll(texts);
+
+		assertEquals(List.of(2, 2, 1), requestSizes);
+		assertEquals(5, embeddings.size());
+	}
+
+	@Test
+	void blankTextsDoNotReachTheApi() {
+		JinaEmbeddingService service = new JinaEmbeddingService(new RestTemplate(), "test-key", url, 64, 16_000);
+
+		List<List<Double>> embeddings = service.embedAll(List.of(" ", "hello", ""));
+
+		assertEquals(List.of(1), requestSizes);
+		assertEquals(768, embeddings.get(0).size());
+		assertEquals(5, embeddings.get(1).get(0).intValue());
+		assertEquals(768, embeddings.get(2).size());
+	}
+
+	@Test
+	void singleEmbedUsesTheBatchEndpoint() {
+		JinaEmbeddingService service = new JinaEmbeddingService(new RestTemplate(), "test-key", url, 64, 16_000);
+
+		List<Double> embedding = service.embed("question");
+
+		assertEquals(List.of(1), requestSizes);
+		assertEquals(8, embedding.get(0).intValue());
+	}
+}
@@ -0,0 +1,89 @@
+package com.chitnis.document_management_app.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PdfTextExtractorTest {
+
+	private static final int PAGES = 75;
+
+	@TempDir
+	static Path tempDir;
+
+	private static Path pdf;
+	private static ExecutorService executor;
+
+	@BeforeAll
+	static void createPdf() throws Exception {
+		pdf = tempDir.resolve("report.pdf");
+		try (PDDocument document = new PDDocument()) {
+			PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+			for (int i = 1; i <= PAGES; i++) {
+				PDPage page = new PDPage();
+				document.addPage(page);
+				try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+					content.beginText();
+					content.setFont(font, 12);
+					content.newLineAtOffset(72, 700);
+					content.showText("Page marker " + i + " of the quarterly report.");
+					content.endText();
+				}
+			}
+			document.save(pdf.toFile());
+		}
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@AfterAll
+	static void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void parallelExtractionMatchesSequentialPageOrder() throws Exception {
+		StringWriter sequential = new StringWriter();
+		StringWriter parallel = new StringWriter();
+
+		int sequentialPages = new PdfTextExtractor(0, 1, 1, executor).extract(pdf, sequential);
+		int parallelPages = new PdfTextExtractor(0, 4, 10, executor).extract(pdf, parallel);
+
+		assertEquals(PAGES, sequentialPages);
+		assertEquals(PAGES, parallelPages);
+		assertEquals(sequential.toString(), parallel.toString());
+
+		String text = parallel.toString();
+		int previous = -1;
+		for (int i = 1; i <= PAGES; i++) {
+			int position = text.indexOf("Page marker " + i + " ");
+			assertTrue(position > previous, "page " + i + " out of order");
+			previous = position;
+		}
+	}
+
+	@Test
+	void smallDocumentsStayOnCallingThread() throws Exception {
+		StringWriter out = new StringWriter();
+		Executor rejecting = command -> {
+			throw new AssertionError("pool should not be used below the page threshold");
+		};
+
+		assertEquals(PAGES, new PdfTextExtractor(0, 4, PAGES + 1, rejecting).extract(pdf, out));
+		assertTrue(out.toString().contains("Page marker " + PAGES + " "));
+	}
+}
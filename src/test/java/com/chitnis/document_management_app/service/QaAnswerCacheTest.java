@@ -0,0 +1,49 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.util.SimilarityKernels;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class QaAnswerCacheTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final QaAnswerCache cache = new QaAnswerCache(meterRegistry, true, 100, 10, Duration.ofHours(1), true, 0.95);
+
+	@Test
+	void exactLookupIgnoresCaseSpacingAndTrailingPunctuation() {
+		cache.put(1L, 7L, "What is the refund policy?", null, "30 days", "snippet");
+
+		assertEquals("30 days", cache.get(1L, 7L, "  what is the   REFUND policy").getAnswer());
+		assertNull(cache.get(2L, 7L, "What is the refund policy?"));
+		// Re-embedded chunks get a new version
+		assertNull(cache.get(1L, 8L, "What is the refund policy?"));
+	}
+
+	@Test
+	void similarQuestionReusesAnswerAboveThreshold() {
+		float[] asked = SimilarityKernels.normalize(new float[]{1f, 0.1f, 0f});
+		cache.put(1L, 7L, "How long do refunds take?", asked, "Five days", "snippet");
+
+		float[] close = SimilarityKernels.normalize(new float[]{1f, 0.12f, 0.01f});
+		float[] unrelated = SimilarityKernels.normalize(new float[]{0f, 1f, 1f});
+
+		assertEquals("Five days", cache.findSimilar(1L, 7L, close).getAnswer());
+		assertNull(cache.findSimilar(1L, 7L, unrelated));
+		assertEquals(1.0, meterRegistry.get("qa.answer-cache.requests").tag("result", "semantic").counter().count());
+		assertEquals(1.0, meterRegistry.get("qa.answer-cache.requests").tag("result", "miss").counter().count());
+	}
+
+	@Test
+	void invalidateDropsADocumentsAnswers() {
+		cache.put(1L, 7L, "Who signed it?", null, "Alice", "snippet");
+		cache.invalidate(1L);
+
+		assertNull(cache.get(1L, 7L, "Who signed it?"));
+	}
+}
@@ -0,0 +1,229 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.util.SigV4Signer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the store against a minimal in-memory S3 stand-in that checks every request's
+ * signature.
+ */
+class S3BlobStoreTest {
+
+	private static final String BUCKET = "documents";
+
+	@TempDir
+	Path dir;
+
+	private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+	private final List<String> rejected = new CopyOnWriteArrayList<>();
+	private final SigV4Signer signer = new SigV4Signer("minio", "minio-secret", "us-east-1", "s3");
+	private HttpServer server;
+	private S3BlobStore store;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", this::handle);
+		server.start();
+		store = store(1024);
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	void storesReadsListsAndDeletesSignedObjects() throws Exception {
+		String key = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08.pdf";
+		Path source = Files.writeString(store.stagingDirectory().resolve("upload"), "%PDF-1.7 body");
+
+		store.put(key, source);
+
+		assertFalse(Files.exists(source));
+		assertArrayEquals("%PDF-1.7 body".getBytes(StandardCharsets.UTF_8), objects.get("blobs/9f/86/" + key));
+		assertTrue(store.exists(key));
+		assertFalse(store.exists("ffff.pdf"));
+		try (InputStream in = store.open(key)) {
+			assertEquals("%PDF-1.7 body", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+		Path local;
+		try (BlobStore.LocalFile file = store.localFile(key)) {
+			local = file.getPath();
+			assertTrue(file.isCached());
+			assertEquals("%PDF-1.7 body", Files.readString(local));
+		}
+		assertThrows(NoSuchFileException.class, () -> store.localFile("ffff.pdf"));
+
+		List<String> keys = new ArrayList<>();
+		store.forEach(blob -> keys.add(blob.getKey()));
+		assertEquals(List.of(key), keys);
+
+		store.delete(key);
+		assertFalse(store.exists(key));
+		assertFalse(Files.exists(local));
+		assertEquals(List.of(), rejected);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedCachedFiles() throws Exception {
+		S3BlobStore small = store(30);
+		List<String> keys = List.of("aaaa1.pdf", "bbbb2.pdf", "cccc3.pdf");
+		for (String key : keys) {
+			small.put(key, Files.writeString(small.stagingDirectory().resolve(key), "13 bytes each"));
+		}
+
+		Path first = read(small, keys.get(0));
+		Path second = read(small, keys.get(1));
+		read(small, keys.get(0));
+		Path third = read(small, keys.get(2));
+
+		// Only two files fit; the second was used least recently
+		assertTrue(Files.exists(first));
+		assertFalse(Files.exists(second));
+		assertTrue(Files.exists(third));
+		read(small, keys.get(1));
+		assertFalse(Files.exists(first));
+
+		// A restarted node counts the files already cached against the limit
+		S3BlobStore restarted = store(13);
+		read(restarted, keys.get(0));
+		try (Stream<Path> cached = Files.find(dir.resolve("cache"), 3, (file, attributes) -> attributes.isRegularFile())) {
+			assertEquals(1, cached.count());
+		}
+	}
+
+	@Test
+	void keepsFilesInUseUntilTheyAreClosed() throws Exception {
+		S3BlobStore small = store(13);
+		List<String> keys = List.of("aaaa1.pdf", "bbbb2.pdf");
+		for (String key : keys) {
+			small.put(key, Files.writeString(small.stagingDirectory().resolve(key), "13 bytes each"));
+		}
+
+		BlobStore.LocalFile first = small.localFile(keys.get(0));
+		Path second = read(small, keys.get(1));
+
+		// Still being read, so the limit is exceeded rather than the file deleted under the reader
+		assertEquals("13 bytes each", Files.readString(first.getPath()));
+		assertTrue(Files.exists(second));
+
+		first.close();
+		first.close();
+		read(small, keys.get(1));
+		assertFalse(Files.exists(first.getPath()));
+		assertTrue(Files.exists(second));
+	}
+
+	private static Path read(S3BlobStore store, String key) throws IOException {
+		try (BlobStore.LocalFile file = store.localFile(key)) {
+			assertEquals("13 bytes each", Files.readString(file.getPath()));
+			return file.getPath();
+		}
+	}
+
+	private S3BlobStore store(long cacheMaxBytes) {
+		URI endpoint = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+		return new S3BlobStore(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build(),
+				endpoint, BUCKET, "blobs/", signer, dir.resolve("cache"), cacheMaxBytes, Duration.ofSeconds(10), Clock.systemUTC());
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getRawPath();
+		String query = exchange.getRequestURI().getRawQuery();
+		if (!signatureMatches(exchange, path, query)) {
+			rejected.add(exchange.getRequestMethod() + " " + path);
+			respond(exchange, 403, "SignatureDoesNotMatch");
+			return;
+		}
+
+		String objectKey = path.length() > BUCKET.length() + 2 ? path.substring(BUCKET.length() + 2) : "";
+		switch (exchange.getRequestMethod()) {
+			case "PUT" -> {
+				objects.put(objectKey, exchange.getRequestBody().readAllBytes());
+				respond(exchange, 200, "");
+			}
+			case "HEAD" -> {
+				exchange.sendResponseHeaders(objects.containsKey(objectKey) ? 200 : 404, -1);
+				exchange.close();
+			}
+			case "DELETE" -> {
+				objects.remove(objectKey);
+				exchange.sendResponseHeaders(204, -1);
+				exchange.close();
+			}
+			default -> {
+				if (query != null && query.contains("list-type=2")) {
+					String listing = objects.keySet().stream()
+							.map(name -> "<Contents><Key>" + name + "</Key><LastModified>2024-01-01T00:00:00.000Z</LastModified></Contents>")
+							.collect(Collectors.joining());
+					respond(exchange, 200, "<ListBucketResult><IsTruncated>false</IsTruncated>" + listing + "</ListBucketResult>");
+				} else if (objects.containsKey(objectKey)) {
+					byte[] body = objects.get(objectKey);
+					exchange.sendResponseHeaders(200, body.length);
+					exchange.getResponseBody().write(body);
+					exchange.close();
+				} else {
+					respond(exchange, 404, "NoSuchKey");
+				}
+			}
+		}
+	}
+
+	private boolean signatureMatches(HttpExchange exchange, String path, String query) {
+		String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+		if (authorization == null) {
+			return false;
+		}
+		SortedMap<String, String> headers = new TreeMap<>();
+		headers.put("host", exchange.getRequestHeaders().getFirst("Host"));
+		headers.put("x-amz-content-sha256", exchange.getRequestHeaders().getFirst("x-amz-content-sha256"));
+		headers.put("x-amz-date", exchange.getRequestHeaders().getFirst("x-amz-date"));
+		String canonicalQuery = query == null ? "" : Arrays.stream(query.split("&")).sorted().collect(Collectors.joining("&"));
+		return authorization.equals(signer.authorization(exchange.getRequestMethod(), path, canonicalQuery,
+				headers, headers.get("x-amz-content-sha256")));
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		if (bytes.length > 0) {
+			exchange.getResponseBody().write(bytes);
+		}
+		exchange.close();
+	}
+}
@@ -0,0 +1,136 @@
+package com.chitnis.document_management_app.service;
+
+import com.chitnis.document_management_app.dto.SemanticSearchResult;
+import com.chitnis.document_management_app.entity.DocumentChunk;
+import com.chitnis.document_management_app.repository.DocumentChunkRepository;
+import com.chitnis.document_management_app.repository.DocumentRepository;
+import com.chitnis.document_management_app.util.VectorCodec;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SemanticSearchServiceTest {
+
+	private static final long USER_ID = 7L;
+	private static final int DIMENSION = 8;
+
+	@TempDir
+	Path dir;
+
+	private final DocumentChunkRepository documentChunkRepository = mock(DocumentChunkRepository.class);
+	private final DocumentRepository documentRepository = mock(DocumentRepository.class);
+	private final EmbeddingService embeddingService = mock(EmbeddingService.class);
+	private final List<DocumentChunk> chunks = new ArrayList<>();
+
+	private SemanticSearchService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new SemanticSearchService(documentChunkRepository, documentRepository, embeddingService,
+				new SimpleMeterRegistry(), 64L * 1024 * 1024);
+		ReflectionTestUtils.setField(service, "indexDir", dir.toString());
+		ReflectionTestUtils.setField(service, "m", 8);
+		ReflectionTestUtils.setField(service, "efConstruction", 50);
+		ReflectionTestUtils.setField(service, "efSearch", 16);
+		ReflectionTestUtils.setField(service, "flushDelay", Duration.ZERO);
+
+		List<Double> query = new ArrayList<>(List.of(1.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0));
+		when(embeddingService.embed("renewal terms")).thenReturn(query);
+		when(documentChunkRepository.findChunkStatsByUserId(USER_ID))
+				.thenReturn(mock(DocumentChunkRepository.ChunkStats.class));
+		when(documentChunkRepository.findAllById(any())).thenAnswer(invocation -> {
+			Collection<Long> ids = invocation.getArgument(0);
+			return chunks.stream().filter(chunk -> ids.contains(chunk.getId())).toList();
+		});
+		when(documentRepository.findTitlesByUserIdAndIdIn(eq(USER_ID), any())).thenAnswer(invocation -> {
+			Collection<Long> ids = invocation.getArgument(1);
+			return ids.stream().map(SemanticSearchServiceTest::title).toList();
+		});
+	}
+
+	@Test
+	void widensSearchWhenOneDocumentOwnsTheClosestChunks() {
+		Random random = new Random(3);
+		long chunkId = 1;
+		// Document 1 has 200 chunks, all closer to the query than anything in documents 2-4
+		for (int i = 0; i < 200; i++) {
+			chunks.add(chunk(chunkId++, 1L, 0.95f + random.nextFloat() * 0.05f, random));
+		}
+		for (long documentId = 2; documentId <= 4; documentId++) {
+			chunks.add(chunk(chunkId++, documentId, 0.5f - documentId * 0.05f, random));
+		}
+		service.addChunks(USER_ID, chunks);
+
+		List<SemanticSearchResult> results = service.search(USER_ID, "renewal terms", 3);
+
+		assertEquals(List.of(1L, 2L, 3L), results.stream().map(SemanticSearchResult::getDocumentId).toList());
+
+		// Asking for more documents than exist returns all of them
+		assertEquals(4, service.search(USER_ID, "renewal terms", 10).size());
+	}
+
+	@Test
+	void reingestedDocumentIsSearchableAgain() {
+		Random random = new Random(5);
+		for (long id = 1; id <= 3; id++) {
+			chunks.add(chunk(id, 1L, 0.9f, random));
+		}
+		chunks.add(chunk(4, 2L, 0.5f, random));
+		service.addChunks(USER_ID, chunks);
+
+		// Re-ingestion swaps the document's entries; the same chunk ids may come back
+		service.removeDocument(USER_ID, 1L);
+		List<DocumentChunk> reingested = new ArrayList<>();
+		for (long id = 1; id <= 3; id++) {
+			reingested.add(chunk(id, 1L, 0.95f, random));
+		}
+		service.addChunks(USER_ID, reingested);
+		chunks.subList(0, 3).clear();
+		chunks.addAll(reingested);
+
+		List<SemanticSearchResult> results = service.search(USER_ID, "renewal terms", 2);
+
+		assertEquals(List.of(1L, 2L), results.stream().map(SemanticSearchResult::getDocumentId).toList());
+		assertEquals(0.95, results.get(0).getScore(), 1e-3);
+	}
+
+	private static DocumentChunk chunk(long id, long documentId, float similarity, Random random) {
+		float[] vector = new float[DIMENSION];
+		vector[0] = similarity;
+		float rest = (float) Math.sqrt(1 - similarity * similarity);
+		vector[1 + random.nextInt(DIMENSION - 1)] = rest;
+		DocumentChunk chunk = new DocumentChunk(documentId, (int) id, "chunk " + id, VectorCodec.encode(vector));
+		chunk.setId(id);
+		return chunk;
+	}
+
+	private static DocumentRepository.DocumentTitle title(Long id) {
+		return new DocumentRepository.DocumentTitle() {
+			@Override
+			public Long getId() {
+				return id;
+			}
+
+			@Override
+			public String getOriginalFileName() {
+				return "document-" + id + ".pdf";
+			}
+		};
+	}
+}
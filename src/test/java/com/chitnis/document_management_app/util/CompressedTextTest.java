@@ -0,0 +1,50 @@
+package com.chitnis.document_management_app.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedTextTest {
+
+	@Test
+	void blocksInflateBackToTheTextAndLocateOffsets() {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; text.length() < 10_000; i++) {
+			text.append("Line ").append(i).append(" of the contract, with an emoji 📄.\n");
+		}
+
+		CompressedText compressed = CompressedText.of(text, 1024);
+
+		StringBuilder restored = new StringBuilder();
+		for (byte[] block : compressed.getBlocks()) {
+			restored.append(CompressedText.inflate(block));
+		}
+		assertEquals(text.toString(), restored.toString());
+		assertEquals(text.length(), compressed.length());
+		assertTrue(compressed.getBlocks().size() >= 9);
+
+		int[] offsets = compressed.getBlockOffsets();
+		for (int block = 0; block < offsets.length; block++) {
+			assertEquals(block, CompressedText.blockAt(offsets, offsets[block]));
+			String inflated = CompressedText.inflate(compressed.getBlocks().get(block));
+			// No block ends in the middle of a surrogate pair
+			assertTrue(!Character.isHighSurrogate(inflated.charAt(inflated.length() - 1)));
+			assertEquals(text.substring(offsets[block], offsets[block] + inflated.length()), inflated);
+		}
+		assertArrayEquals(offsets, CompressedText.decodeOffsets(CompressedText.encodeOffsets(offsets)));
+	}
+
+	@Test
+	void recordsWherePagesStartIncludingEmptyOnes() {
+		CompressedText.Builder builder = CompressedText.builder(4096);
+		builder.append("first page\n");
+		builder.endPage();
+		builder.endPage();
+		builder.append("third page\n");
+		builder.endPage();
+
+		assertArrayEquals(new int[]{0, 11, 11}, builder.build().getPageOffsets());
+	}
+}
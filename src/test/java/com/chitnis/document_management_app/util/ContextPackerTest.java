@@ -0,0 +1,47 @@
+package com.chitnis.document_management_app.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextPackerTest {
+
+	private final TokenEstimator estimator = TokenEstimator.forModel("llama-3.1-8b-instant");
+
+	@Test
+	void estimatesWordsNumbersAndSymbols() {
+		assertEquals(0, estimator.count(""));
+		assertEquals(2, estimator.count("hello world"));
+		// Digits in groups of three, punctuation one token each
+		assertEquals(3, estimator.count("1234567"));
+		assertEquals(4, estimator.count("a, b."));
+		// Each ideograph is a token of its own
+		assertEquals(4, estimator.count("文档管理"));
+	}
+
+	@Test
+	void dropsSentencesAlreadyPacked() {
+		ContextPacker packer = new ContextPacker(estimator, 1000);
+		String shared = "The retention period for invoices is seven years. ";
+
+		assertEquals(shared + "Payments are due in thirty days.", packer.tryAdd(shared + "Payments are due in thirty days."));
+		assertEquals("Late fees apply after that. ", packer.tryAdd(shared + "Late fees apply after that. "));
+		assertNull(packer.tryAdd(shared));
+		assertEquals(estimator.count(shared + "Payments are due in thirty days.")
+				+ estimator.count("Late fees apply after that. "), packer.usedTokens());
+	}
+
+	@Test
+	void stopsAtTheBudgetAndCutsPrefixesBetweenWords() {
+		ContextPacker packer = new ContextPacker(estimator, 5);
+
+		assertNull(packer.tryAdd("one two three four five six"));
+		String prefix = packer.addPrefix("one two three four five six");
+
+		assertEquals("one two three four five", prefix);
+		assertEquals(0, packer.remainingTokens());
+		assertTrue(packer.usedChars() > 0);
+	}
+}
@@ -0,0 +1,145 @@
+package com.chitnis.document_management_app.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswIndexTest {
+
+	private static final int DIMENSION = 32;
+	private static final int COUNT = 2000;
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void findsMostExactNeighbours() {
+		Random random = new Random(1);
+		float[][] vectors = randomVectors(random, COUNT);
+		HnswIndex index = build(vectors);
+
+		int hits = 0;
+		int queries = 50;
+		for (int q = 0; q < queries; q++) {
+			float[] query = randomVector(random);
+			Set<Long> expected = bruteForce(vectors, query, 10, Set.of());
+			for (HnswIndex.Match match : index.search(query, 10, 64)) {
+				if (expected.contains(match.getId())) {
+					hits++;
+				}
+			}
+		}
+
+		double recall = hits / (double) (queries * 10);
+		assertTrue(recall > 0.9, "recall@10 was " + recall);
+	}
+
+	@Test
+	void removedVectorsAreNeverReturned() {
+		Random random = new Random(2);
+		float[][] vectors = randomVectors(random, 500);
+		HnswIndex index = build(vectors);
+
+		// Group is id % 5; drop group 0
+		for (long id : index.idsInGroup(0)) {
+			assertTrue(index.remove(id));
+		}
+		assertEquals(400, index.size());
+
+		float[] query = vectors[10];
+		List<HnswIndex.Match> matches = index.search(query, 20, 64);
+		assertEquals(20, matches.size());
+		assertTrue(matches.stream().noneMatch(match -> match.getGroup() == 0));
+
+		HnswIndex compacted = index.compact();
+		assertEquals(400, compacted.size());
+		assertEquals(0, compacted.deletedCount());
+		assertFalse(compacted.contains(10));
+	}
+
+	@Test
+	void savedIndexLoadsWithSameResults() throws Exception {
+		Random random = new Random(3);
+		float[][] vectors = randomVectors(random, 300);
+		HnswIndex index = build(vectors);
+		index.remove(7);
+
+		Path file = tempDir.resolve("user-1.hnsw");
+		index.save(file);
+		HnswIndex loaded = HnswIndex.load(file);
+
+		assertEquals(index.size(), loaded.size());
+		assertEquals(index.maxId(), loaded.maxId());
+		float[] query = randomVector(random);
+		assertEquals(
+				index.search(query, 10, 32).stream().map(HnswIndex.Match::getId).toList(),
+				loaded.search(query, 10, 32).stream().map(HnswIndex.Match::getId).toList());
+		assertFalse(loaded.add(8, 3, vectors[8]));
+		// Tombstoned ids are free to be re-added after a reload too
+		assertTrue(loaded.add(7, 2, vectors[7]));
+	}
+
+	@Test
+	void removedIdCanBeAddedAgainWithANewVector() {
+		Random random = new Random(4);
+		float[][] vectors = randomVectors(random, 200);
+		HnswIndex index = build(vectors);
+		float[] replacement = randomVector(random);
+
+		assertTrue(index.remove(42));
+		assertFalse(index.contains(42));
+		assertTrue(index.add(42, 2, replacement));
+
+		assertEquals(200, index.size());
+		assertEquals(List.of(42L), index.search(replacement, 1, 64).stream().map(HnswIndex.Match::getId).toList());
+		assertTrue(index.idsInGroup(2).contains(42L));
+		assertEquals(List.of(42L), index.compact().search(replacement, 1, 64).stream().map(HnswIndex.Match::getId).toList());
+	}
+
+	private static HnswIndex build(float[][] vectors) {
+		HnswIndex index = new HnswIndex(DIMENSION, 16, 100);
+		for (int i = 0; i < vectors.length; i++) {
+			index.add(i, i % 5, vectors[i]);
+		}
+		return index;
+	}
+
+	private static Set<Long> bruteForce(float[][] vectors, float[] query, int k, Set<Long> excluded) {
+		List<Integer> ids = new ArrayList<>(IntStream.range(0, vectors.length).boxed().toList());
+		ids.removeIf(id -> excluded.contains((long) id));
+		ids.sort(Comparator.comparingDouble(id -> -VectorUtils.cosineSimilarity(vectors[id], query)));
+		Set<Long> result = new HashSet<>();
+		for (int i = 0; i < k; i++) {
+			result.add((long) ids.get(i));
+		}
+		return result;
+	}
+
+	private static float[][] randomVectors(Random random, int count) {
+		float[][] vectors = new float[count][];
+		for (int i = 0; i < count; i++) {
+			vectors[i] = randomVector(random);
+		}
+		return vectors;
+	}
+
+	private static float[] randomVector(Random random) {
+		float[] vector = new float[DIMENSION];
+		for (int i = 0; i < DIMENSION; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return vector;
+	}
+}
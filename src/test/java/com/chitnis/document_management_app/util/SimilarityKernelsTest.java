@@ -0,0 +1,63 @@
+package com.chitnis.document_management_app.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class SimilarityKernelsTest {
+
+	@Test
+	void vectorKernelMatchesScalarKernel() {
+		SimilarityKernel scalar = SimilarityKernels.scalar();
+		SimilarityKernel vectorized = SimilarityKernels.vectorized();
+		// Surefire runs with --add-modules jdk.incubator.vector
+		assertNotNull(vectorized);
+
+		Random random = new Random(5);
+		// Odd sizes exercise the tail loops after the full-lane part
+		for (int dimension : new int[]{1, 3, 17, 384, 771}) {
+			int rows = 7;
+			float[] query = random(random, dimension);
+			float[] matrix = random(random, rows * dimension);
+
+			assertEquals(scalar.dot(query, 0, matrix, dimension, dimension),
+					vectorized.dot(query, 0, matrix, dimension, dimension), 1e-3);
+			assertEquals(scalar.squaredDistance(query, 0, matrix, 0, dimension),
+					vectorized.squaredDistance(query, 0, matrix, 0, dimension), 1e-2);
+
+			float[] expected = new float[rows - 1];
+			float[] actual = new float[rows - 1];
+			scalar.dotBatch(query, matrix, 1, rows - 1, dimension, expected);
+			vectorized.dotBatch(query, matrix, 1, rows - 1, dimension, actual);
+			for (int row = 0; row < rows - 1; row++) {
+				assertEquals(expected[row], actual[row], 1e-3);
+				assertEquals(scalar.dot(query, 0, matrix, (row + 1) * dimension, dimension), actual[row], 1e-3);
+			}
+		}
+	}
+
+	@Test
+	void cosineOfNormalizedVectorsIsDotProduct() {
+		float[] a = {3f, 4f, 0f};
+		float[] b = {4f, 3f, 0f};
+
+		assertEquals(0.96, SimilarityKernels.cosine(a, b), 1e-6);
+		assertEquals(5.0, SimilarityKernels.l2Distance(new float[]{0f, 0f, 0f}, a), 1e-6);
+
+		SimilarityKernels.normalize(a);
+		SimilarityKernels.normalize(b);
+		assertEquals(0.96, SimilarityKernels.dot(a, b), 1e-6);
+		assertEquals(0.0, SimilarityKernels.cosine(a, new float[3]));
+	}
+
+	private static float[] random(Random random, int length) {
+		float[] values = new float[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = (float) random.nextGaussian();
+		}
+		return values;
+	}
+}
@@ -0,0 +1,100 @@
+package com.chitnis.document_management_app.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextChunkerTest {
+
+	@Test
+	void matchesWholeStringChunkingForArbitraryWriteSizes() {
+		Random random = new Random(42);
+		for (int round = 0; round < 200; round++) {
+			String text = randomText(random, random.nextInt(5000));
+			int chunkSize = 20 + random.nextInt(300);
+
+			List<String> expected = referenceSplit(text, chunkSize);
+
+			List<String> actual = new ArrayList<>();
+			TextChunker chunker = new TextChunker(chunkSize, actual::add);
+			int pos = 0;
+			while (pos < text.length()) {
+				int len = Math.min(text.length() - pos, 1 + random.nextInt(chunkSize * 3));
+				chunker.write(text, pos, len);
+				pos += len;
+			}
+			chunker.close();
+
+			assertEquals(expected, actual, "chunkSize=" + chunkSize + " text=" + text);
+			assertEquals(expected.size(), chunker.getChunkCount());
+		}
+	}
+
+	@Test
+	void keepsBufferBoundedForLargeSingleWrite() {
+		String text = randomText(new Random(7), 200_000);
+		List<String> chunks = new ArrayList<>();
+
+		try (TextChunker chunker = new TextChunker(100, chunks::add)) {
+			chunker.write(text);
+		}
+
+		assertEquals(referenceSplit(text, 100), chunks);
+		// A sentence break exactly at the limit keeps its punctuation
+		assertTrue(chunks.stream().allMatch(chunk -> chunk.length() <= 101));
+	}
+
+	@Test
+	void splitIntoChunksDelegatesToChunker() {
+		String text = "  First sentence here.\n\nSecond\tone!  Third? ";
+
+		assertEquals(referenceSplit(text, 16), VectorUtils.splitIntoChunks(text, 16));
+		assertTrue(VectorUtils.splitIntoChunks(" \n ", 16).isEmpty());
+	}
+
+	private static String randomText(Random random, int length) {
+		String alphabet = "abcdefghij      ..!?\n\t\r\u000B\f\u0001";
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * The previous regex-based implementation of splitIntoChunks, kept as the reference output.
+	 */
+	private static List<String> referenceSplit(String text, int chunkSize) {
+		List<String> chunks = new ArrayList<>();
+		text = text.replaceAll("\\s+", " ").trim();
+		int start = 0;
+		while (start < text.length()) {
+			int end = Math.min(start + chunkSize, text.length());
+			if (end < text.length()) {
+				int lastPeriod = text.lastIndexOf(".", end);
+				int lastQuestion = text.lastIndexOf("?", end);
+				int lastExclamation = text.lastIndexOf("!", end);
+				int sentenceEnd = Math.max(lastPeriod, Math.max(lastQuestion, lastExclamation));
+				if (sentenceEnd > start + (chunkSize / 2)) {
+					end = sentenceEnd + 1;
+				} else {
+					int lastSpace = text.lastIndexOf(" ", end);
+					if (lastSpace > start) {
+						end = lastSpace;
+					}
+				}
+			}
+			String chunk = text.substring(start, end).trim();
+			if (!chunk.isEmpty()) {
+				chunks.add(chunk);
+			}
+			start = end;
+		}
+		return chunks;
+	}
+}
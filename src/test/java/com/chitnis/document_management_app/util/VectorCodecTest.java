@@ -0,0 +1,74 @@
+package com.chitnis.document_management_app.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VectorCodecTest {
+
+	@Test
+	void roundTripsLittleEndianFloats() {
+		float[] vector = {0.5f, -1.25f, 3.0e-5f, 0f};
+
+		byte[] encoded = VectorCodec.encode(vector);
+
+		assertEquals(VectorCodec.HEADER_BYTES + 4 * Float.BYTES, encoded.length);
+		// version 1, little-endian
+		assertEquals(1, encoded[0]);
+		assertEquals(0, encoded[3]);
+		assertEquals(4, VectorCodec.dimension(encoded));
+		assertArrayEquals(vector, VectorCodec.decode(encoded));
+	}
+
+	@Test
+	void floatBufferViewMatchesDecodedValues() {
+		byte[] encoded = VectorCodec.encode(List.of(0.1, 0.2, 0.3));
+
+		FloatBuffer view = VectorCodec.asFloatBuffer(encoded);
+
+		assertEquals(3, view.remaining());
+		assertEquals(0.2f, view.get(1));
+	}
+
+	@Test
+	void convertsLegacyJsonVectors() {
+		String json = VectorUtils.vectorToJson(List.of(1.0, -0.5, 0.25));
+
+		float[] decoded = VectorCodec.decode(VectorCodec.encode(VectorUtils.parseJsonToVector(json)));
+
+		assertArrayEquals(new float[]{1.0f, -0.5f, 0.25f}, decoded);
+	}
+
+	@Test
+	void rejectsTruncatedPayload() {
+		byte[] encoded = VectorCodec.encode(new float[]{1f, 2f});
+		byte[] truncated = java.util.Arrays.copyOf(encoded, encoded.length - 1);
+
+		assertThrows(IllegalArgumentException.class, () -> VectorCodec.decode(truncated));
+	}
+
+	@Test
+	void rejectsDimensionThatOverflowsToTheStoredLength() {
+		// 0x40000001 floats is 4 bytes once the byte count wraps around 32 bits
+		byte[] forged = ByteBuffer.allocate(VectorCodec.HEADER_BYTES + Float.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+				.putInt(VectorCodec.VERSION).putInt(0x40000001).putFloat(1f).array();
+
+		assertThrows(IllegalArgumentException.class, () -> VectorCodec.dimension(forged));
+		assertThrows(IllegalArgumentException.class, () -> VectorCodec.asFloatBuffer(forged));
+	}
+
+	@Test
+	void rejectsPayloadThatIsNotWholeFloats() {
+		byte[] encoded = VectorCodec.encode(new float[]{1f, 2f});
+		byte[] padded = java.util.Arrays.copyOf(encoded, encoded.length + 2);
+
+		assertThrows(IllegalArgumentException.class, () -> VectorCodec.dimension(padded));
+	}
+}